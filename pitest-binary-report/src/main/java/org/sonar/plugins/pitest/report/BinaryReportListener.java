@@ -0,0 +1,81 @@
+/*
+ * Sonar Pitest Plugin
+ * Copyright (C) 2009-2018 Vinod Anandan
+ * vinod@owasp.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.pitest.report;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import org.pitest.mutationtest.ClassMutationResults;
+import org.pitest.mutationtest.MutationResult;
+import org.pitest.mutationtest.MutationResultListener;
+import org.pitest.mutationtest.engine.MutationDetails;
+
+/**
+ * Collects the mutation results of a PIT run and writes them as <code>mutations.bin</code> when it ends.
+ */
+class BinaryReportListener implements MutationResultListener {
+
+  static final String REPORT_NAME = "mutations.bin";
+
+  private static final String NO_KILLING_TEST = "none";
+
+  private final File reportDirectory;
+  private final BinaryReportWriter writer = new BinaryReportWriter();
+
+  BinaryReportListener(File reportDirectory) {
+    this.reportDirectory = reportDirectory;
+  }
+
+  @Override
+  public void runStart() {
+    // nothing is written before the end of the run
+  }
+
+  @Override
+  public void handleMutationResult(ClassMutationResults results) {
+    for (MutationResult result : results.getMutations()) {
+      MutationDetails details = result.getDetails();
+      // the XML report has an empty element when there is no killing test
+      String killingTest = result.getKillingTestDescription();
+      writer.add(details.getFilename(),
+        details.getClassName().asJavaName(),
+        details.getMethod().name(),
+        details.getId().getLocation().getMethodDesc(),
+        details.getLineNumber(),
+        details.getMutator(),
+        details.getFirstIndex(),
+        details.getDescription(),
+        NO_KILLING_TEST.equals(killingTest) ? "" : killingTest,
+        result.getStatus().name(),
+        result.getStatus().isDetected());
+    }
+  }
+
+  @Override
+  public void runEnd() {
+    try {
+      Files.createDirectories(reportDirectory.toPath());
+      writer.write(reportDirectory.toPath().resolve(REPORT_NAME));
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to write the binary report in " + reportDirectory, e);
+    }
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ * Sonar Pitest Plugin
+ * Copyright (C) 2009-2018 Vinod Anandan
+ * vinod@owasp.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.pitest.report;
+
+import java.io.File;
+import java.lang.reflect.Field;
+import java.util.Properties;
+import org.pitest.mutationtest.ListenerArguments;
+import org.pitest.mutationtest.MutationResultListener;
+import org.pitest.mutationtest.MutationResultListenerFactory;
+import org.pitest.mutationtest.config.DirectoryResultOutputStrategy;
+import org.pitest.util.ResultOutputStrategy;
+
+/**
+ * PIT output format <code>SONAR_BINARY</code>: with this module on PIT's classpath, e.g. as a dependency of
+ * <code>pitest-maven</code>, it writes <code>mutations.bin</code> for the Sonar Pitest Plugin to load without any
+ * XML parsing. PIT only hands text writers to listeners, so the report goes to the directory PIT writes its own
+ * reports into, taken from its output strategy, unless the <code>binaryReport.directory</code> plugin configuration
+ * property says otherwise.
+ */
+public class BinaryReportListenerFactory implements MutationResultListenerFactory {
+
+  static final String DIRECTORY_PROPERTY = "binaryReport.directory";
+
+  @Override
+  public MutationResultListener getListener(Properties props, ListenerArguments args) {
+    String directory = props.getProperty(DIRECTORY_PROPERTY);
+    return new BinaryReportListener(directory == null ? reportDirectory(args.getOutputStrategy()) : new File(directory));
+  }
+
+  /**
+   * The report directory of PIT's options, within its timestamped sub directory if any. PIT 1.4 does not hand its
+   * options to listeners, only the output strategy holding that directory.
+   */
+  static File reportDirectory(ResultOutputStrategy outputStrategy) {
+    if (!(outputStrategy instanceof DirectoryResultOutputStrategy)) {
+      throw new IllegalStateException("PIT does not write its reports into a directory, set " + DIRECTORY_PROPERTY + " for the binary report");
+    }
+    try {
+      Field reportDir = DirectoryResultOutputStrategy.class.getDeclaredField("reportDir");
+      reportDir.setAccessible(true);
+      return (File) reportDir.get(outputStrategy);
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      throw new IllegalStateException("Unable to find the report directory of PIT, set " + DIRECTORY_PROPERTY + " for the binary report", e);
+    }
+  }
+
+  @Override
+  public String name() {
+    return "SONAR_BINARY";
+  }
+
+  @Override
+  public String description() {
+    return "Binary report for the Sonar Pitest Plugin";
+  }
+}
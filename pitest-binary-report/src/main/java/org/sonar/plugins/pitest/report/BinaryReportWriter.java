@@ -0,0 +1,118 @@
+/*
+ * Sonar Pitest Plugin
+ * Copyright (C) 2009-2018 Vinod Anandan
+ * vinod@owasp.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.pitest.report;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the binary report read by the plugin's <code>BinaryReportParser</code>, in big-endian order:
+ * <ul>
+ * <li>the magic number <code>PITB</code> and the format version</li>
+ * <li>the string table: its size, then every string as its UTF-8 length and bytes</li>
+ * <li>the number of mutants, then one record of {@link #RECORD_FIELDS} <code>int</code>s per mutant, the strings
+ * being ids in the table and <code>-1</code> standing for <code>null</code></li>
+ * </ul>
+ * Mutants are kept as records until {@link #write(Path)}: memory grows by {@link #RECORD_FIELDS} <code>int</code>s per
+ * mutant, every string being held once in the table however many mutants refer to it.
+ */
+final class BinaryReportWriter {
+
+  static final int MAGIC = 0x50495442;
+  static final int VERSION = 1;
+  static final int RECORD_FIELDS = 11;
+
+  private static final int NULL_ID = -1;
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  private final Map<String, Integer> ids = new HashMap<>();
+  private final List<String> strings = new ArrayList<>();
+  private int[] records = new int[RECORD_FIELDS * 1024];
+  private int size;
+
+  void add(String sourceFile, String mutatedClass, String mutatedMethod, String methodDescription, int lineNumber, String mutator, int index,
+    String description, String killingTest, String status, boolean detected) {
+    if (size + RECORD_FIELDS > records.length) {
+      records = Arrays.copyOf(records, records.length * 2);
+    }
+    // same order as the fields of the plugin's BinaryReportParser
+    records[size++] = id(sourceFile);
+    records[size++] = id(mutatedClass);
+    records[size++] = id(mutatedMethod);
+    records[size++] = id(methodDescription);
+    records[size++] = lineNumber;
+    records[size++] = id(mutator);
+    records[size++] = index;
+    records[size++] = id(description);
+    records[size++] = id(killingTest);
+    records[size++] = id(status);
+    records[size++] = detected ? 1 : 0;
+  }
+
+  int mutants() {
+    return size / RECORD_FIELDS;
+  }
+
+  /**
+   * Writes the report to a temporary file that then replaces the given one, so that a reader never sees it partly
+   * written.
+   */
+  void write(Path file) throws IOException {
+    Path temporaryFile = file.resolveSibling(file.getFileName() + ".tmp");
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile), BUFFER_SIZE))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(strings.size());
+      for (String string : strings) {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+      }
+      out.writeInt(mutants());
+      for (int i = 0; i < size; i++) {
+        out.writeInt(records[i]);
+      }
+    }
+    Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  private int id(String value) {
+    if (value == null) {
+      return NULL_ID;
+    }
+    Integer id = ids.get(value);
+    if (id == null) {
+      id = strings.size();
+      strings.add(value);
+      ids.put(value, id);
+    }
+    return id;
+  }
+}
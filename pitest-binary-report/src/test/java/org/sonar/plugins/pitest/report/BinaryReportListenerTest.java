@@ -0,0 +1,161 @@
+/*
+ * Sonar Pitest Plugin
+ * Copyright (C) 2009-2018 Vinod Anandan
+ * vinod@owasp.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.pitest.report;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.ServiceLoader;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.pitest.classinfo.ClassName;
+import org.pitest.mutationtest.ClassMutationResults;
+import org.pitest.mutationtest.DetectionStatus;
+import org.pitest.mutationtest.ListenerArguments;
+import org.pitest.mutationtest.MutationResult;
+import org.pitest.mutationtest.MutationResultListener;
+import org.pitest.mutationtest.MutationResultListenerFactory;
+import org.pitest.mutationtest.MutationStatusTestPair;
+import org.pitest.mutationtest.config.DatedDirectoryReportDirCreationStrategy;
+import org.pitest.mutationtest.config.DirectoryResultOutputStrategy;
+import org.pitest.mutationtest.config.UndatedReportDirCreationStrategy;
+import org.pitest.mutationtest.engine.Location;
+import org.pitest.mutationtest.engine.MethodName;
+import org.pitest.mutationtest.engine.MutationDetails;
+import org.pitest.mutationtest.engine.MutationIdentifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BinaryReportListenerTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void should_be_registered_as_a_pit_output_format() {
+    // given
+    List<String> names = new ArrayList<>();
+
+    // when
+    for (MutationResultListenerFactory factory : ServiceLoader.load(MutationResultListenerFactory.class)) {
+      names.add(factory.name());
+    }
+
+    // then
+    assertThat(names).contains("SONAR_BINARY");
+  }
+
+  @Test
+  public void should_write_the_mutation_results_of_the_run() throws IOException {
+    // given
+    File directory = temporaryFolder.newFolder();
+    MutationResultListener listener = new BinaryReportListenerFactory().getListener(new Properties(), arguments(directory));
+    Location location = Location.location(ClassName.fromString("com.example.Foo"), MethodName.fromString("bar"), "()I");
+    String mutator = "org.pitest.mutationtest.engine.gregor.mutators.MathMutator";
+    MutationResult killed = new MutationResult(new MutationDetails(new MutationIdentifier(location, 0, mutator), "Foo.java", "Replaced integer addition with subtraction", 7, 0),
+      new MutationStatusTestPair(1, DetectionStatus.KILLED, "com.example.FooTest.bar(com.example.FooTest)"));
+    MutationResult survived = new MutationResult(new MutationDetails(new MutationIdentifier(location, 1, mutator), "Foo.java", "Replaced integer subtraction with addition", 9, 0),
+      new MutationStatusTestPair(1, DetectionStatus.SURVIVED, null));
+
+    // when
+    listener.runStart();
+    listener.handleMutationResult(new ClassMutationResults(Arrays.asList(killed, survived)));
+    listener.runEnd();
+
+    // then
+    try (DataInputStream in = new DataInputStream(Files.newInputStream(directory.toPath().resolve(BinaryReportListener.REPORT_NAME)))) {
+      assertThat(in.readInt()).isEqualTo(BinaryReportWriter.MAGIC);
+      assertThat(in.readInt()).isEqualTo(BinaryReportWriter.VERSION);
+      List<String> strings = new ArrayList<>();
+      for (int count = in.readInt(); count > 0; count--) {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        strings.add(new String(bytes, StandardCharsets.UTF_8));
+      }
+      assertThat(in.readInt()).isEqualTo(2);
+
+      int[] first = readRecord(in);
+      assertThat(strings.get(first[1])).isEqualTo("com.example.Foo");
+      assertThat(strings.get(first[3])).isEqualTo("()I");
+      assertThat(first[4]).isEqualTo(7);
+      assertThat(strings.get(first[8])).isEqualTo("com.example.FooTest.bar(com.example.FooTest)");
+      assertThat(strings.get(first[9])).isEqualTo("KILLED");
+      assertThat(first[10]).isEqualTo(1);
+      int[] second = readRecord(in);
+      assertThat(second[6]).isEqualTo(1);
+      // PIT describes the missing killing test as "none", the XML report leaves it empty
+      assertThat(strings.get(second[8])).isEmpty();
+      assertThat(strings.get(second[9])).isEqualTo("SURVIVED");
+      assertThat(second[10]).isEqualTo(0);
+    }
+  }
+
+  @Test
+  public void should_write_into_the_configured_directory_rather_than_the_one_of_pit() throws IOException {
+    // given
+    File directory = temporaryFolder.newFolder();
+    Properties properties = new Properties();
+    properties.setProperty(BinaryReportListenerFactory.DIRECTORY_PROPERTY, directory.getPath());
+    File pitDirectory = temporaryFolder.newFolder();
+    MutationResultListener listener = new BinaryReportListenerFactory().getListener(properties, arguments(pitDirectory));
+
+    // when
+    listener.runStart();
+    listener.runEnd();
+
+    // then
+    assertThat(new File(directory, BinaryReportListener.REPORT_NAME)).isFile();
+    assertThat(new File(pitDirectory, BinaryReportListener.REPORT_NAME)).doesNotExist();
+  }
+
+  @Test
+  public void should_write_next_to_the_timestamped_reports_of_pit() throws IOException {
+    // given
+    File directory = temporaryFolder.newFolder();
+    ListenerArguments arguments = new ListenerArguments(new DirectoryResultOutputStrategy(directory.getPath(), new DatedDirectoryReportDirCreationStrategy()),
+      null, null, null, 0L);
+
+    // when
+    File reportDirectory = BinaryReportListenerFactory.reportDirectory(arguments.getOutputStrategy());
+
+    // then
+    assertThat(reportDirectory.getParentFile()).isEqualTo(directory);
+    assertThat(reportDirectory.getName()).matches("\\d{12}");
+  }
+
+  private static ListenerArguments arguments(File reportDirectory) {
+    return new ListenerArguments(new DirectoryResultOutputStrategy(reportDirectory.getPath(), new UndatedReportDirCreationStrategy()), null, null, null, 0L);
+  }
+
+  private static int[] readRecord(DataInputStream in) throws IOException {
+    int[] record = new int[BinaryReportWriter.RECORD_FIELDS];
+    for (int i = 0; i < record.length; i++) {
+      record[i] = in.readInt();
+    }
+    return record;
+  }
+}
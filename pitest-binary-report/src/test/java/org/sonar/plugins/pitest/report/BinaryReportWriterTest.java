@@ -0,0 +1,93 @@
+/*
+ * Sonar Pitest Plugin
+ * Copyright (C) 2009-2018 Vinod Anandan
+ * vinod@owasp.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.pitest.report;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BinaryReportWriterTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void should_write_string_table_then_fixed_width_records() throws IOException {
+    // given
+    BinaryReportWriter writer = new BinaryReportWriter();
+    for (int i = 0; i < 2000; i++) {
+      writer.add("Foo.java", "com.example.Foo", "bar", "()V", i, "org.pitest.mutationtest.engine.gregor.mutators.MathMutator", 0, "Replaced integer addition with subtraction",
+        i % 2 == 0 ? "com.example.FooTest.bar(com.example.FooTest)" : "", i % 2 == 0 ? "KILLED" : "SURVIVED", i % 2 == 0);
+    }
+    writer.add("Bär.java", "com.example.Bär", "baz", null, 7, "org.pitest.mutationtest.engine.gregor.mutators.MathMutator", 1, null, null, "NO_COVERAGE", false);
+    Path report = temporaryFolder.getRoot().toPath().resolve("mutations.bin");
+
+    // when
+    writer.write(report);
+
+    // then
+    try (DataInputStream in = new DataInputStream(Files.newInputStream(report))) {
+      assertThat(in.readInt()).isEqualTo(BinaryReportWriter.MAGIC);
+      assertThat(in.readInt()).isEqualTo(BinaryReportWriter.VERSION);
+      List<String> strings = new ArrayList<>();
+      for (int count = in.readInt(); count > 0; count--) {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        strings.add(new String(bytes, StandardCharsets.UTF_8));
+      }
+      assertThat(strings).hasSize(14).contains("Bär.java", "com.example.Foo", "");
+      assertThat(in.readInt()).isEqualTo(2001);
+
+      int[] first = readRecord(in);
+      assertThat(strings.get(first[0])).isEqualTo("Foo.java");
+      assertThat(strings.get(first[8])).isEqualTo("com.example.FooTest.bar(com.example.FooTest)");
+      assertThat(strings.get(first[9])).isEqualTo("KILLED");
+      assertThat(first[4]).isEqualTo(0);
+      assertThat(first[10]).isEqualTo(1);
+      in.skipBytes(1999 * BinaryReportWriter.RECORD_FIELDS * Integer.BYTES);
+      int[] last = readRecord(in);
+      assertThat(strings.get(last[1])).isEqualTo("com.example.Bär");
+      assertThat(last[3]).isEqualTo(-1);
+      assertThat(last[4]).isEqualTo(7);
+      assertThat(last[6]).isEqualTo(1);
+      assertThat(last[7]).isEqualTo(-1);
+      assertThat(last[8]).isEqualTo(-1);
+      assertThat(in.read()).isEqualTo(-1);
+    }
+    assertThat(report.resolveSibling("mutations.bin.tmp")).doesNotExist();
+  }
+
+  private static int[] readRecord(DataInputStream in) throws IOException {
+    int[] record = new int[BinaryReportWriter.RECORD_FIELDS];
+    for (int i = 0; i < record.length; i++) {
+      record[i] = in.readInt();
+    }
+    return record;
+  }
+}
@@ -0,0 +1,58 @@
+/*
+ * Sonar Pitest Plugin
+ * Copyright (C) 2009-2018 Vinod Anandan
+ * vinod@owasp.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.pitest.scanner;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * A <code>mutations.xml</code> written once per trial by {@link MutationsXmlGenerator}, with a fixed seed.
+ */
+@State(Scope.Benchmark)
+public class GeneratedReport {
+
+  @Param({"1000", "100000", "1000000"})
+  public int mutants;
+
+  @Param({"100", "10000"})
+  public int files;
+
+  File report;
+
+  @Setup(Level.Trial)
+  public void generate() throws IOException {
+    Path directory = Files.createTempDirectory("pitest-jmh");
+    report = new MutationsXmlGenerator().files(files).mutants(mutants).write(directory.resolve("mutations.xml")).toFile();
+  }
+
+  @TearDown(Level.Trial)
+  public void delete() throws IOException {
+    Files.deleteIfExists(report.toPath());
+    Files.deleteIfExists(report.toPath().getParent());
+  }
+}
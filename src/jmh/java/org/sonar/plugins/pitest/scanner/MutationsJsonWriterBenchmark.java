@@ -0,0 +1,96 @@
+/*
+ * Sonar Pitest Plugin
+ * Copyright (C) 2009-2018 Vinod Anandan
+ * vinod@owasp.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.pitest.scanner;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The mutations data measure of one large source file. <code>perMutantStrings</code> is the former
+ * serialization, kept as a baseline: compare the <code>gc.alloc.rate.norm</code> of both with
+ * <code>-prof gc</code>.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class MutationsJsonWriterBenchmark {
+
+  @Param({"5000"})
+  public int mutants;
+
+  private SourceFileReport sourceFileReport;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    Path directory = Files.createTempDirectory("pitest-jmh");
+    File report = new MutationsXmlGenerator().files(1).mutants(mutants).write(directory.resolve("mutations.xml")).toFile();
+    ProjectReport projectReport = new ProjectReport();
+    new XmlReportParser().parse(report, projectReport::addMutant);
+    sourceFileReport = projectReport.getSourceFileReports().iterator().next();
+    Files.delete(report.toPath());
+    Files.delete(directory);
+  }
+
+  @Benchmark
+  public String presizedBuffer() {
+    return sourceFileReport.toJSON();
+  }
+
+  @Benchmark
+  public String perMutantStrings() {
+    MutantStore store = sourceFileReport.getStore();
+    Map<Integer, List<String>> mutantsByLine = new HashMap<>();
+    for (int row = 0; row < store.size(); row++) {
+      mutantsByLine.computeIfAbsent(store.lineNumber(row), line -> new ArrayList<>())
+        .add(store.mutant(row, sourceFileReport.getRelativePath()).toString());
+    }
+    StringBuilder builder = new StringBuilder("{");
+    for (Map.Entry<Integer, List<String>> entry : mutantsByLine.entrySet()) {
+      if (builder.length() > 1) {
+        builder.append(',');
+      }
+      builder.append('"').append(entry.getKey()).append("\":[");
+      builder.append(String.join(",", entry.getValue())).append(']');
+    }
+    return builder.append('}').toString();
+  }
+}
@@ -19,6 +19,8 @@
  */
 package org.sonar.plugins.pitest;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.stream.Stream;
 import org.sonar.api.ExtensionPoint;
 import org.sonar.api.ce.ComputeEngineSide;
@@ -44,7 +46,7 @@ public class PitestComputer implements MeasureComputer {
     PitestMetrics.MUTATIONS_ERROR_KEY,
     PitestMetrics.MUTATIONS_UNKNOWN_KEY
   };
-  
+
   private static final String[] derivedKeys = {PitestMetrics.MUTATIONS_DATA_KEY,
     PitestMetrics.MUTATIONS_KILLED_PERCENT_KEY};
 
@@ -57,38 +59,44 @@ public class PitestComputer implements MeasureComputer {
 
   @Override
   public void compute(final MeasureComputerContext context) {
-    for (String metricKey : measureKeys) {
-      if (context.getMeasure(metricKey) == null) {
-        computeChildrenMeasurements(context, metricKey);
-      }
+    Map<String, Integer> totals = new HashMap<>();
+    for (String key : measureKeys) {
+      totals.put(key, computeMeasure(context, key));
     }
-    computeDerived(context) ;
+    computeDerived(context, totals.get(PitestMetrics.MUTATIONS_GENERATED_KEY), totals.get(PitestMetrics.MUTATIONS_KILLED_KEY));
   }
 
-  private void computeChildrenMeasurements(final MeasureComputerContext context, String key) {
-    if (context.getMeasure(key) == null) {
-      int sum = 0;
-      for (Measure m : context.getChildrenMeasures(key)) {
-        try {
-          sum += m.getIntValue();
-        } catch (IllegalStateException e) {
-          log.error("Failed to compute value for {}.", key, e);
-        }
+  /**
+   * @return the value already set on the component (by the sensor on files), or else the sum of the
+   * children values, which is then saved. A child value that cannot be read is logged and skipped without
+   * affecting the other metrics.
+   */
+  private static int computeMeasure(final MeasureComputerContext context, String key) {
+    Measure measure = context.getMeasure(key);
+    if (measure != null) {
+      try {
+        return measure.getIntValue();
+      } catch (IllegalStateException e) {
+        log.error("Failed to read value for {}.", key, e);
+        return 0;
       }
-      context.addMeasure(key, sum);
     }
-
-  }
-  private void computeDerived(final MeasureComputerContext context) {
-    final Measure mutationsTotal = context.getMeasure(PitestMetrics.MUTATIONS_GENERATED_KEY);
-    if (mutationsTotal != null) {
-      final Integer elements = mutationsTotal.getIntValue();
-      final Measure killed = context.getMeasure(PitestMetrics.MUTATIONS_KILLED_KEY);
-      if (elements > 0 && killed != null) {
-        final Integer coveredElements = killed.getIntValue();
-        final Double coverage = 100.0 * coveredElements / elements;
-        context.addMeasure(PitestMetrics.MUTATIONS_KILLED_PERCENT_KEY, coverage);
+    int sum = 0;
+    for (Measure m : context.getChildrenMeasures(key)) {
+      try {
+        sum += m.getIntValue();
+      } catch (IllegalStateException e) {
+        log.error("Failed to compute value for {}.", key, e);
       }
     }
+    context.addMeasure(key, sum);
+    return sum;
+  }
+
+  private static void computeDerived(final MeasureComputerContext context, int elements, int coveredElements) {
+    if (elements > 0) {
+      final Double coverage = 100.0 * coveredElements / elements;
+      context.addMeasure(PitestMetrics.MUTATIONS_KILLED_PERCENT_KEY, coverage);
+    }
   }
 }
@@ -50,4 +50,77 @@ public final class PitestConstants {
 
   public static final String REPORT_DIRECTORY_DEF = "target/pit-reports";
 
+  public static final String PARSER_PARALLELISM_KEY = "sonar.pitest.parser.parallelism";
+
+  public static final int PARSER_PARALLELISM_DEF = 1;
+
+  public static final String PARSER_PARALLEL_THRESHOLD_KEY = "sonar.pitest.parser.parallelThreshold";
+
+  public static final int PARSER_PARALLEL_THRESHOLD_DEF = 64;
+
+  public static final String PARSER_ENGINE_KEY = "sonar.pitest.parser.engine";
+
+  public static final String PARSER_ENGINE_STAX = "stax";
+
+  public static final String PARSER_ENGINE_BYTES = "bytes";
+
+  public static final String PARSER_ENGINE_DEF = PARSER_ENGINE_STAX;
+
+  public static final String PARSER_CACHE_KEY = "sonar.pitest.parser.cache";
+
+  public static final boolean PARSER_CACHE_DEF = false;
+
+  public static final String PARSER_CACHE_DIRECTORY_KEY = "sonar.pitest.parser.cache.directory";
+
+  /**
+   * Relative to the SonarQube user home.
+   */
+  public static final String PARSER_CACHE_DIRECTORY_DEF = "pitest-cache";
+
+  public static final String SONAR_USER_HOME_KEY = "sonar.userHome";
+
+  public static final String PARSER_SHARED_KEY = "sonar.pitest.parser.shared";
+
+  public static final boolean PARSER_SHARED_DEF = false;
+
+  public static final String PIPELINE_KEY = "sonar.pitest.pipeline";
+
+  public static final boolean PIPELINE_DEF = false;
+
+  public static final String PIPELINE_WINDOW_KEY = "sonar.pitest.pipeline.window";
+
+  public static final int PIPELINE_WINDOW_DEF = 64;
+
+  public static final String SURVIVED_MUTANT_GROUPING_KEY = "sonar.pitest.survivedMutants.grouping";
+
+  public static final String SURVIVED_MUTANT_GROUPING_NONE = "none";
+
+  public static final String SURVIVED_MUTANT_GROUPING_LINE = "line";
+
+  public static final String SURVIVED_MUTANT_GROUPING_METHOD = "method";
+
+  public static final String SURVIVED_MUTANT_GROUPING_DEF = SURVIVED_MUTANT_GROUPING_NONE;
+
+  public static final String MUTATIONS_DATA_KEY = "sonar.pitest.mutationsData";
+
+  public static final String MUTATIONS_DATA_FULL = "full";
+
+  public static final String MUTATIONS_DATA_SURVIVED = "survived";
+
+  public static final String MUTATIONS_DATA_LINES = "lines";
+
+  public static final String MUTATIONS_DATA_NONE = "none";
+
+  public static final String MUTATIONS_DATA_DEF = MUTATIONS_DATA_FULL;
+
+  public static final String MUTATIONS_DATA_FORMAT_KEY = "sonar.pitest.mutationsData.format";
+
+  public static final String MUTATIONS_DATA_FORMAT_JSON = "json";
+
+  public static final String MUTATIONS_DATA_FORMAT_COMPACT = "compact";
+
+  public static final String MUTATIONS_DATA_FORMAT_DEFLATE = "deflate";
+
+  public static final String MUTATIONS_DATA_FORMAT_DEF = MUTATIONS_DATA_FORMAT_JSON;
+
 }
@@ -21,17 +21,53 @@ package org.sonar.plugins.pitest;
 
 import com.google.common.collect.ImmutableList;
 import org.sonar.api.Plugin;
+import org.sonar.api.PropertyType;
 import org.sonar.api.config.PropertyDefinition;
 import org.sonar.api.resources.Qualifiers;
 import org.sonar.plugins.pitest.scanner.PitestSensor;
 import org.sonar.plugins.pitest.scanner.ProjectReport;
+import org.sonar.plugins.pitest.scanner.SharedProjectReports;
 import org.sonar.plugins.pitest.scanner.XmlReportFinder;
 import org.sonar.plugins.pitest.scanner.XmlReportParser;
 
 import static org.sonar.plugins.pitest.PitestConstants.MODE_KEY;
 import static org.sonar.plugins.pitest.PitestConstants.MODE_REUSE_REPORT;
+import static org.sonar.plugins.pitest.PitestConstants.MUTATIONS_DATA_DEF;
+import static org.sonar.plugins.pitest.PitestConstants.MUTATIONS_DATA_FORMAT_COMPACT;
+import static org.sonar.plugins.pitest.PitestConstants.MUTATIONS_DATA_FORMAT_DEF;
+import static org.sonar.plugins.pitest.PitestConstants.MUTATIONS_DATA_FORMAT_DEFLATE;
+import static org.sonar.plugins.pitest.PitestConstants.MUTATIONS_DATA_FORMAT_JSON;
+import static org.sonar.plugins.pitest.PitestConstants.MUTATIONS_DATA_FORMAT_KEY;
+import static org.sonar.plugins.pitest.PitestConstants.MUTATIONS_DATA_FULL;
+import static org.sonar.plugins.pitest.PitestConstants.MUTATIONS_DATA_KEY;
+import static org.sonar.plugins.pitest.PitestConstants.MUTATIONS_DATA_LINES;
+import static org.sonar.plugins.pitest.PitestConstants.MUTATIONS_DATA_NONE;
+import static org.sonar.plugins.pitest.PitestConstants.MUTATIONS_DATA_SURVIVED;
+import static org.sonar.plugins.pitest.PitestConstants.PARSER_CACHE_DEF;
+import static org.sonar.plugins.pitest.PitestConstants.PARSER_CACHE_DIRECTORY_DEF;
+import static org.sonar.plugins.pitest.PitestConstants.PARSER_CACHE_DIRECTORY_KEY;
+import static org.sonar.plugins.pitest.PitestConstants.PARSER_CACHE_KEY;
+import static org.sonar.plugins.pitest.PitestConstants.PARSER_ENGINE_BYTES;
+import static org.sonar.plugins.pitest.PitestConstants.PARSER_ENGINE_DEF;
+import static org.sonar.plugins.pitest.PitestConstants.PARSER_ENGINE_KEY;
+import static org.sonar.plugins.pitest.PitestConstants.PARSER_ENGINE_STAX;
+import static org.sonar.plugins.pitest.PitestConstants.PARSER_PARALLELISM_DEF;
+import static org.sonar.plugins.pitest.PitestConstants.PARSER_PARALLELISM_KEY;
+import static org.sonar.plugins.pitest.PitestConstants.PARSER_PARALLEL_THRESHOLD_DEF;
+import static org.sonar.plugins.pitest.PitestConstants.PARSER_PARALLEL_THRESHOLD_KEY;
+import static org.sonar.plugins.pitest.PitestConstants.PARSER_SHARED_DEF;
+import static org.sonar.plugins.pitest.PitestConstants.PARSER_SHARED_KEY;
+import static org.sonar.plugins.pitest.PitestConstants.PIPELINE_DEF;
+import static org.sonar.plugins.pitest.PitestConstants.PIPELINE_KEY;
+import static org.sonar.plugins.pitest.PitestConstants.PIPELINE_WINDOW_DEF;
+import static org.sonar.plugins.pitest.PitestConstants.PIPELINE_WINDOW_KEY;
 import static org.sonar.plugins.pitest.PitestConstants.REPORT_DIRECTORY_DEF;
 import static org.sonar.plugins.pitest.PitestConstants.REPORT_DIRECTORY_KEY;
+import static org.sonar.plugins.pitest.PitestConstants.SURVIVED_MUTANT_GROUPING_DEF;
+import static org.sonar.plugins.pitest.PitestConstants.SURVIVED_MUTANT_GROUPING_KEY;
+import static org.sonar.plugins.pitest.PitestConstants.SURVIVED_MUTANT_GROUPING_LINE;
+import static org.sonar.plugins.pitest.PitestConstants.SURVIVED_MUTANT_GROUPING_METHOD;
+import static org.sonar.plugins.pitest.PitestConstants.SURVIVED_MUTANT_GROUPING_NONE;
 
 /**
  * This class is the entry point for all PIT extensions
@@ -54,7 +90,97 @@ public final class PitestPlugin implements Plugin {
         .defaultValue(REPORT_DIRECTORY_DEF)
         .name("Output directory for the PIT reports")
         .description("This property is needed when the 'reuseReport' mode is activated and the reports are not " +
-          "located in the default directory (i.e. target/pit-reports)")
+          "located in the default directory (i.e. target/pit-reports). Several directories and glob patterns, relative to the " +
+          "module directory, can be given: every report found is parsed and the same mutant found in several reports is counted once.")
+        .multiValues(true)
+        .onQualifiers(Qualifiers.PROJECT)
+        .build(),
+      PropertyDefinition.builder(PARSER_PARALLELISM_KEY)
+        .defaultValue(String.valueOf(PARSER_PARALLELISM_DEF))
+        .name("PIT report parsing threads")
+        .description("Number of threads used to parse a large PIT XML report. The value 1 disables parallel parsing.")
+        .type(PropertyType.INTEGER)
+        .onQualifiers(Qualifiers.PROJECT)
+        .build(),
+      PropertyDefinition.builder(PARSER_PARALLEL_THRESHOLD_KEY)
+        .defaultValue(String.valueOf(PARSER_PARALLEL_THRESHOLD_DEF))
+        .name("PIT report parallel parsing threshold")
+        .description("Size in MB from which a PIT XML report is parsed in parallel. Smaller reports are parsed on a single thread.")
+        .type(PropertyType.INTEGER)
+        .onQualifiers(Qualifiers.PROJECT)
+        .build(),
+      PropertyDefinition.builder(PARSER_ENGINE_KEY)
+        .defaultValue(PARSER_ENGINE_DEF)
+        .name("PIT report parser engine")
+        .description("'stax' uses a generic XML parser. 'bytes' reads the raw bytes of the report and falls back to 'stax' " +
+          "on content it does not recognize.")
+        .type(PropertyType.SINGLE_SELECT_LIST)
+        .options(PARSER_ENGINE_STAX, PARSER_ENGINE_BYTES)
+        .onQualifiers(Qualifiers.PROJECT)
+        .build(),
+      PropertyDefinition.builder(PARSER_CACHE_KEY)
+        .defaultValue(String.valueOf(PARSER_CACHE_DEF))
+        .name("PIT report parse cache")
+        .description("Keeps a binary copy of the parsed report in the parse cache directory, reused by later analyses of the same, unchanged report.")
+        .type(PropertyType.BOOLEAN)
+        .onQualifiers(Qualifiers.PROJECT)
+        .build(),
+      PropertyDefinition.builder(PARSER_CACHE_DIRECTORY_KEY)
+        .name("PIT report parse cache directory")
+        .description("Directory holding the binary copies of parsed reports, relative to the project base directory when not absolute. " +
+          "Defaults to " + PARSER_CACHE_DIRECTORY_DEF + " in the SonarQube user home (~/.sonar).")
+        .onQualifiers(Qualifiers.PROJECT)
+        .build(),
+      PropertyDefinition.builder(PARSER_SHARED_KEY)
+        .defaultValue(String.valueOf(PARSER_SHARED_DEF))
+        .name("Share PIT report across modules")
+        .description("Parses each distinct report once per analysis and shares it between modules, each one only using the " +
+          "source files it contains. Meant for multi-module projects pointing every module to one aggregated report.")
+        .type(PropertyType.BOOLEAN)
+        .onQualifiers(Qualifiers.PROJECT)
+        .build(),
+      PropertyDefinition.builder(PIPELINE_KEY)
+        .defaultValue(String.valueOf(PIPELINE_DEF))
+        .name("Pipelined report processing")
+        .description("Parses the report on a separate thread and saves the measures, coverage and issues of each source file " +
+          "while the parse goes on. Does not apply to shared, cached or merged reports.")
+        .type(PropertyType.BOOLEAN)
+        .onQualifiers(Qualifiers.PROJECT)
+        .build(),
+      PropertyDefinition.builder(PIPELINE_WINDOW_KEY)
+        .defaultValue(String.valueOf(PIPELINE_WINDOW_DEF))
+        .name("Pipeline window")
+        .description("Number of source files the pipeline keeps open, and queues, before saving them. A source file is saved once " +
+          "this many others were met after its last mutant. A report spreading the mutants of a file further apart is not pipelined " +
+          "but read as a whole: raise the window to avoid it.")
+        .type(PropertyType.INTEGER)
+        .onQualifiers(Qualifiers.PROJECT)
+        .build(),
+      PropertyDefinition.builder(SURVIVED_MUTANT_GROUPING_KEY)
+        .defaultValue(SURVIVED_MUTANT_GROUPING_DEF)
+        .name("Survived mutant issue grouping")
+        .description("'none' raises one issue per survived mutant. 'line' and 'method' raise one issue per line or per mutated method, " +
+          "listing every survived mutant in the message and as secondary locations.")
+        .type(PropertyType.SINGLE_SELECT_LIST)
+        .options(SURVIVED_MUTANT_GROUPING_NONE, SURVIVED_MUTANT_GROUPING_LINE, SURVIVED_MUTANT_GROUPING_METHOD)
+        .onQualifiers(Qualifiers.PROJECT)
+        .build(),
+      PropertyDefinition.builder(MUTATIONS_DATA_KEY)
+        .defaultValue(MUTATIONS_DATA_DEF)
+        .name("Mutations data measure")
+        .description("What the pitest_mutations_data measure stores per file: 'full' for every mutant, 'survived' for the survived mutants only, " +
+          "'lines' for the number of mutants of each line by status, 'none' for nothing, which also spares reading the mutant details the rules do not need.")
+        .type(PropertyType.SINGLE_SELECT_LIST)
+        .options(MUTATIONS_DATA_FULL, MUTATIONS_DATA_SURVIVED, MUTATIONS_DATA_LINES, MUTATIONS_DATA_NONE)
+        .onQualifiers(Qualifiers.PROJECT)
+        .build(),
+      PropertyDefinition.builder(MUTATIONS_DATA_FORMAT_KEY)
+        .defaultValue(MUTATIONS_DATA_FORMAT_DEF)
+        .name("Mutations data format")
+        .description("'json' keeps the original verbose JSON. 'compact' writes each string once in a dictionary and statuses as numbers, " +
+          "with a format version. 'deflate' also compresses the compact form, stored in base64.")
+        .type(PropertyType.SINGLE_SELECT_LIST)
+        .options(MUTATIONS_DATA_FORMAT_JSON, MUTATIONS_DATA_FORMAT_COMPACT, MUTATIONS_DATA_FORMAT_DEFLATE)
         .onQualifiers(Qualifiers.PROJECT)
         .build(),
 
@@ -63,6 +189,7 @@ public final class PitestPlugin implements Plugin {
       PitestSensor.class,
       PitestComputer.class,
       ProjectReport.class,
+      SharedProjectReports.class,
       XmlReportParser.class,
       XmlReportFinder.class);
 
@@ -32,14 +32,19 @@ public final class Mutant {
   public final MutantLocation mutantLocation;
   public final Mutator mutator;
   public final int index;
+  @Nullable
   public final String description;
   public final String killingTest;
 
-  public Mutant(boolean detected, MutantStatus mutantStatus, MutantLocation mutantLocation, String mutatorKey, int index, String description, @Nullable String killingTest) {
+  public Mutant(boolean detected, MutantStatus mutantStatus, MutantLocation mutantLocation, String mutatorKey, int index, @Nullable String description, @Nullable String killingTest) {
+    this(detected, mutantStatus, mutantLocation, Mutator.parse(mutatorKey), index, description, killingTest);
+  }
+
+  public Mutant(boolean detected, MutantStatus mutantStatus, MutantLocation mutantLocation, Mutator mutator, int index, @Nullable String description, @Nullable String killingTest) {
     this.detected = detected;
     this.mutantStatus = mutantStatus;
     this.mutantLocation = mutantLocation;
-    this.mutator = Mutator.parse(mutatorKey);
+    this.mutator = mutator;
     this.index = index;
     this.description = description;
     this.killingTest = killingTest;
@@ -50,9 +55,15 @@ public final class Mutant {
   }
 
   public String violationDescription() {
+    return violationDescription(mutator, description);
+  }
+
+  public static String violationDescription(Mutator mutator, @Nullable String description) {
     StringBuilder builder = new StringBuilder(mutator.getDescription());
     builder.append(" without breaking the tests");
-    builder.append(" [").append(description).append("]");
+    if (description != null) {
+      builder.append(" [").append(description).append("]");
+    }
     return builder.toString();
   }
 
@@ -19,7 +19,7 @@
  */
 package org.sonar.plugins.pitest.domain;
 
-import java.util.StringTokenizer;
+import javax.annotation.Nullable;
 
 public final class MutantLocation {
 
@@ -31,20 +31,20 @@ public final class MutantLocation {
   public final String relativePath;
 
   public MutantLocation(String className, String sourceFile, String mutatedMethod, String methodDescription, int lineNumber) {
+    this(className, sourceFile, mutatedMethod, methodDescription, lineNumber, calculateRelativePath(className, sourceFile));
+  }
+
+  /**
+   * For callers that already know the relative path, typically because they have computed it for a
+   * previous mutant of the same class.
+   */
+  public MutantLocation(String className, String sourceFile, String mutatedMethod, String methodDescription, int lineNumber, String relativePath) {
     this.className = className;
     this.sourceFile = sourceFile;
     this.mutatedMethod = mutatedMethod;
     this.methodDescription = methodDescription;
     this.lineNumber = lineNumber;
-    String extension = sourceFile.substring(sourceFile.indexOf('.') + 1);
-    if ("kt".equals(extension)) {
-      this.relativePath = sourceFile;
-    } else if ("java".equals(extension)) {
-      this.relativePath = calculateJavaRelativePath(className);
-    } else {
-      throw new IllegalStateException("unrecognized extension: " + extension);
-    }
-
+    this.relativePath = relativePath;
   }
 
   public String getClassName() {
@@ -71,9 +71,27 @@ public final class MutantLocation {
     return relativePath;
   }
 
+  /**
+   * Path of the source file holding the class, relative to a source directory. Without a source file, which
+   * PIT leaves out for classes compiled without debug information, the class is taken as a Java one.
+   */
+  public static String calculateRelativePath(String className, @Nullable String sourceFile) {
+    if (sourceFile == null) {
+      return calculateJavaRelativePath(className);
+    }
+    String extension = sourceFile.substring(sourceFile.indexOf('.') + 1);
+    if ("kt".equals(extension)) {
+      return sourceFile;
+    } else if ("java".equals(extension)) {
+      return calculateJavaRelativePath(className);
+    } else {
+      throw new IllegalStateException("unrecognized extension: " + extension);
+    }
+  }
+
   private static String calculateJavaRelativePath(String javaClassName) {
-    final StringTokenizer tok = new StringTokenizer(javaClassName, "$");
-    final String classNameFiltered = tok.nextToken();
-    return classNameFiltered.replace('.', '/') + ".java";
+    int innerClassSeparator = javaClassName.indexOf('$');
+    String outerClassName = innerClassSeparator < 0 ? javaClassName : javaClassName.substring(0, innerClassSeparator);
+    return outerClassName.replace('.', '/') + ".java";
   }
 }
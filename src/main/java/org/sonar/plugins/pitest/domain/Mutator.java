@@ -106,15 +106,15 @@ public enum Mutator {
     this.description = description;
   }
 
-  String getKey() {
+  public String getKey() {
     return key;
   }
 
-  String getName() {
+  public String getName() {
     return name;
   }
 
-  String getDescription() {
+  public String getDescription() {
     return description;
   }
 
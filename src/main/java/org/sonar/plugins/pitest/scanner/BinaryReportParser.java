@@ -0,0 +1,121 @@
+/*
+ * Sonar Pitest Plugin
+ * Copyright (C) 2009-2018 Vinod Anandan
+ * vinod@owasp.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.pitest.scanner;
+
+import com.google.common.base.Charsets;
+import java.io.File;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import javax.annotation.CheckForNull;
+import org.sonar.plugins.pitest.domain.Mutant;
+import org.sonar.plugins.pitest.domain.MutantLocation;
+import org.sonar.plugins.pitest.domain.MutantStatus;
+
+/**
+ * Reader of the binary report written by the PIT listener of the <code>pitest-binary-report</code> module, in
+ * big-endian order:
+ * <ul>
+ * <li>the magic number <code>PITB</code> and the format version</li>
+ * <li>the string table: its size, then every string as its UTF-8 length and bytes</li>
+ * <li>the number of mutants, then one record of {@link #RECORD_FIELDS} <code>int</code>s per mutant, the strings
+ * being ids in the table and <code>-1</code> standing for <code>null</code></li>
+ * </ul>
+ * The report is memory-mapped and the records are read in place: the distinct strings, decoded once, are the only
+ * copies made, so loading it costs about a read of the file.
+ */
+final class BinaryReportParser {
+
+  static final int MAGIC = 0x50495442;
+  static final int VERSION = 1;
+
+  static final int SOURCE_FILE = 0;
+  static final int MUTATED_CLASS = 1;
+  static final int MUTATED_METHOD = 2;
+  static final int METHOD_DESCRIPTION = 3;
+  static final int LINE_NUMBER = 4;
+  static final int MUTATOR = 5;
+  static final int INDEX = 6;
+  static final int DESCRIPTION = 7;
+  static final int KILLING_TEST = 8;
+  static final int STATUS = 9;
+  static final int DETECTED = 10;
+  static final int RECORD_FIELDS = 11;
+
+  private static final int NULL_ID = -1;
+
+  /**
+   * Same contract as {@link XmlReportParser#parse(File, Predicate, Set, Consumer)}.
+   */
+  void parse(File report, Predicate<String> relativePathFilter, Set<MutantField> fields, Consumer<Mutant> consumer) {
+    ByteBuffer content = ReportFiles.map(report);
+    try {
+      if (content.getInt() != MAGIC || content.getInt() != VERSION) {
+        throw new IllegalStateException("Binary report is not valid: unknown format in " + report);
+      }
+      String[] strings = new String[content.getInt()];
+      StringDictionary dictionary = new StringDictionary();
+      for (int i = 0; i < strings.length; i++) {
+        int length = content.getInt();
+        ByteBuffer bytes = content.slice();
+        bytes.limit(length);
+        content.position(content.position() + length);
+        strings[i] = dictionary.intern(Charsets.UTF_8.decode(bytes).toString());
+      }
+
+      int mutants = content.getInt();
+      int recordSize = RECORD_FIELDS * Integer.BYTES;
+      if (content.remaining() < (long) mutants * recordSize) {
+        throw new IllegalStateException("Binary report is not valid: truncated in " + report);
+      }
+      for (int record = content.position(); mutants > 0; mutants--, record += recordSize) {
+        String sourceFile = string(strings, content, record, SOURCE_FILE);
+        String mutatedClass = string(strings, content, record, MUTATED_CLASS);
+        String relativePath = dictionary.relativePath(mutatedClass, sourceFile);
+        if (relativePathFilter.test(relativePath)) {
+          String mutatedMethod = fields.contains(MutantField.MUTATED_METHOD) ? string(strings, content, record, MUTATED_METHOD) : null;
+          String methodDescription = fields.contains(MutantField.METHOD_DESCRIPTION) ? string(strings, content, record, METHOD_DESCRIPTION) : null;
+          MutantLocation location = new MutantLocation(mutatedClass, sourceFile, mutatedMethod, methodDescription, field(content, record, LINE_NUMBER), relativePath);
+          consumer.accept(new Mutant(field(content, record, DETECTED) != 0,
+            MutantStatus.fromPitestDetectionStatus(string(strings, content, record, STATUS)),
+            location,
+            string(strings, content, record, MUTATOR),
+            field(content, record, INDEX),
+            fields.contains(MutantField.DESCRIPTION) ? string(strings, content, record, DESCRIPTION) : null,
+            fields.contains(MutantField.KILLING_TEST) ? string(strings, content, record, KILLING_TEST) : null));
+        }
+      }
+    } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+      throw new IllegalStateException("Binary report is not valid: " + report, e);
+    }
+  }
+
+  private static int field(ByteBuffer content, int record, int field) {
+    return content.getInt(record + field * Integer.BYTES);
+  }
+
+  @CheckForNull
+  private static String string(String[] strings, ByteBuffer content, int record, int field) {
+    int id = field(content, record, field);
+    return id == NULL_ID ? null : strings[id];
+  }
+}
@@ -0,0 +1,195 @@
+/*
+ * Sonar Pitest Plugin
+ * Copyright (C) 2009-2018 Vinod Anandan
+ * vinod@owasp.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.pitest.scanner;
+
+import com.google.common.base.Charsets;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.plugins.pitest.domain.Mutant;
+import org.sonar.plugins.pitest.domain.MutantLocation;
+import org.sonar.plugins.pitest.domain.MutantStatus;
+
+/**
+ * Reader of the report PIT writes with the <code>CSV</code> output format: one mutation per line, as
+ * <code>sourceFile,mutatedClass,mutator,mutatedMethod,lineNumber,status,killingTest</code>, the killing test being
+ * <code>none</code> when there is none. It builds the same mutants as the XML report, but for what the CSV does not
+ * hold: the method description and the description are left <code>null</code>, and the index is 0.
+ * <p>
+ * Lines being independent, large plain reports are memory-mapped, cut on line boundaries and parsed in parallel.
+ */
+final class CsvReportParser {
+
+  private static final Logger LOG = Loggers.get(CsvReportParser.class);
+
+  private static final int SEPARATORS = 6;
+  private static final String NO_KILLING_TEST = "none";
+
+  private final int parallelism;
+  private final long parallelThreshold;
+
+  CsvReportParser(int parallelism, long parallelThreshold) {
+    this.parallelism = parallelism;
+    this.parallelThreshold = parallelThreshold;
+  }
+
+  /**
+   * Same contract as {@link XmlReportParser#parse(File, Predicate, Set, Consumer)}.
+   */
+  void parse(File report, Predicate<String> relativePathFilter, Set<MutantField> fields, Consumer<Mutant> consumer) {
+    LineParser parser = new LineParser(new StringDictionary(), relativePathFilter, fields);
+    boolean mappable = !ReportFiles.isCompressed(report) && report.length() <= Integer.MAX_VALUE;
+    if (parallelism > 1 && report.length() >= parallelThreshold && mappable) {
+      parseInParallel(report, parser, consumer);
+      return;
+    }
+    try (BufferedReader reader = new BufferedReader(new InputStreamReader(ReportFiles.open(report), Charsets.UTF_8))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        parser.parse(line, consumer);
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to read PIT report " + report, e);
+    }
+  }
+
+  /**
+   * Memory-maps the report, cuts it into shards after line breaks and parses them on a fork-join pool, see
+   * {@link ShardedParse}.
+   */
+  private void parseInParallel(File report, LineParser parser, Consumer<Mutant> consumer) {
+    MappedByteBuffer content = ReportFiles.map(report);
+    int[] boundaries = shardBoundaries(content, ShardedParse.shardCount(content.limit(), parallelism));
+    LOG.debug("Parsing {} in {} shards", report, boundaries.length - 1);
+
+    List<Supplier<List<Mutant>>> shards = new ArrayList<>(boundaries.length - 1);
+    for (int i = 0; i < boundaries.length - 1; i++) {
+      ByteBuffer shard = content.duplicate();
+      shard.limit(boundaries[i + 1]).position(boundaries[i]);
+      ByteBuffer slice = shard.slice();
+      shards.add(() -> parseShard(slice, parser));
+    }
+    ShardedParse.inOrder(parallelism, shards, consumer);
+  }
+
+  private static List<Mutant> parseShard(ByteBuffer shard, LineParser parser) {
+    List<Mutant> mutants = new ArrayList<>();
+    CharBuffer text = Charsets.UTF_8.decode(shard);
+    int start = 0;
+    for (int i = 0; i < text.length(); i++) {
+      if (text.charAt(i) == '\n') {
+        parser.parse(text.subSequence(start, i).toString(), mutants::add);
+        start = i + 1;
+      }
+    }
+    parser.parse(text.subSequence(start, text.length()).toString(), mutants::add);
+    return mutants;
+  }
+
+  /**
+   * Offsets cutting the content into about <code>shards</code> parts, each one starting at the beginning of a line.
+   * The first offset is 0 and the last one is the end of the content.
+   */
+  static int[] shardBoundaries(ByteBuffer content, int shards) {
+    int length = content.limit();
+    List<Integer> boundaries = new ArrayList<>();
+    boundaries.add(0);
+    for (int i = 1; i < shards; i++) {
+      int offset = Math.max((int) ((long) length * i / shards), boundaries.get(boundaries.size() - 1));
+      while (offset < length && content.get(offset) != '\n') {
+        offset++;
+      }
+      if (offset + 1 < length && offset + 1 > boundaries.get(boundaries.size() - 1)) {
+        boundaries.add(offset + 1);
+      }
+    }
+    boundaries.add(length);
+    return boundaries.stream().mapToInt(Integer::intValue).toArray();
+  }
+
+  /**
+   * Turns lines into mutants. Safe to share between the threads parsing shards of the same report.
+   */
+  private static final class LineParser {
+    private final StringDictionary dictionary;
+    private final Predicate<String> relativePathFilter;
+    private final Set<MutantField> fields;
+
+    LineParser(StringDictionary dictionary, Predicate<String> relativePathFilter, Set<MutantField> fields) {
+      this.dictionary = dictionary;
+      this.relativePathFilter = relativePathFilter;
+      this.fields = fields;
+    }
+
+    void parse(String line, Consumer<Mutant> consumer) {
+      int end = line.endsWith("\r") ? line.length() - 1 : line.length();
+      if (end == 0) {
+        return;
+      }
+      int[] separators = new int[SEPARATORS];
+      int from = 0;
+      for (int i = 0; i < SEPARATORS; i++) {
+        separators[i] = line.indexOf(',', from);
+        if (separators[i] < 0 || separators[i] >= end) {
+          throw new IllegalStateException("CSV is not valid, expecting 7 fields in: " + line);
+        }
+        from = separators[i] + 1;
+      }
+
+      String sourceFile = dictionary.intern(line.substring(0, separators[0]));
+      String mutatedClass = dictionary.intern(line.substring(separators[0] + 1, separators[1]));
+      String relativePath = dictionary.relativePath(mutatedClass, sourceFile);
+      if (!relativePathFilter.test(relativePath)) {
+        return;
+      }
+      String mutator = line.substring(separators[1] + 1, separators[2]);
+      String mutatedMethod = fields.contains(MutantField.MUTATED_METHOD) ? dictionary.intern(line.substring(separators[2] + 1, separators[3])) : null;
+      int lineNumber = 0;
+      try {
+        lineNumber = Integer.parseInt(line.substring(separators[3] + 1, separators[4]).trim());
+      } catch (NumberFormatException e) {
+        LOG.warn("caught {} {}.. ignoring ", e.getClass().getSimpleName(), "processing field lineNumber");
+      }
+      MutantStatus mutantStatus = MutantStatus.fromPitestDetectionStatus(line.substring(separators[4] + 1, separators[5]));
+      boolean detected = mutantStatus == MutantStatus.KILLED || mutantStatus == MutantStatus.OTHER;
+      String killingTest = null;
+      if (fields.contains(MutantField.KILLING_TEST)) {
+        // the XML report has an empty element when there is no killing test
+        String test = line.substring(separators[5] + 1, end);
+        killingTest = NO_KILLING_TEST.equals(test) ? "" : dictionary.intern(test);
+      }
+
+      MutantLocation location = new MutantLocation(mutatedClass, sourceFile, mutatedMethod, null, lineNumber, relativePath);
+      consumer.accept(new Mutant(detected, mutantStatus, location, mutator, 0, null, killingTest));
+    }
+  }
+}
@@ -0,0 +1,198 @@
+/*
+ * Sonar Pitest Plugin
+ * Copyright (C) 2009-2018 Vinod Anandan
+ * vinod@owasp.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.pitest.scanner;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.sensor.SensorContext;
+import org.sonar.api.batch.sensor.coverage.NewCoverage;
+import org.sonar.api.batch.sensor.issue.NewIssue;
+import org.sonar.api.batch.sensor.issue.NewIssueLocation;
+import org.sonar.api.measures.Metric;
+import org.sonar.api.rule.RuleKey;
+
+/**
+ * Everything the sensor saves for one source file: measures, lines covered by killed mutants and issues. Plans
+ * are computed without the {@link SensorContext}, so that the ones of all source files can be computed in
+ * parallel, then replayed one after the other as the context is not thread-safe.
+ */
+final class EmissionPlan {
+
+  private final InputFile inputFile;
+  private final List<MeasureValue<?>> measures;
+  private final int[] coveredLines;
+  private final List<IssuePlan> issues;
+
+  private EmissionPlan(Builder builder) {
+    this.inputFile = builder.inputFile;
+    this.measures = Collections.unmodifiableList(new ArrayList<>(builder.measures));
+    this.coveredLines = builder.coveredLines;
+    this.issues = Collections.unmodifiableList(new ArrayList<>(builder.issues));
+  }
+
+  static Builder builder(InputFile inputFile) {
+    return new Builder(inputFile);
+  }
+
+  InputFile inputFile() {
+    return inputFile;
+  }
+
+  List<IssuePlan> issues() {
+    return issues;
+  }
+
+  int coveredLineCount() {
+    return coveredLines.length;
+  }
+
+  /**
+   * Saves the plan into the context. Must be called from the sensor thread.
+   */
+  void replay(SensorContext context) {
+    if (coveredLines.length > 0) {
+      NewCoverage coverage = context.newCoverage().onFile(inputFile);
+      for (int line : coveredLines) {
+        coverage.lineHits(line, 1);
+      }
+      coverage.save();
+    }
+
+    for (MeasureValue<?> measure : measures) {
+      measure.save(context, inputFile);
+    }
+
+    for (IssuePlan issue : issues) {
+      NewIssue newIssue = context.newIssue().forRule(issue.ruleKey);
+      List<IssueLocation> locations = issue.locations;
+      newIssue.at(locations.get(0).toNewIssueLocation(newIssue, inputFile));
+      for (IssueLocation location : locations.subList(1, locations.size())) {
+        newIssue.addLocation(location.toNewIssueLocation(newIssue, inputFile));
+      }
+      newIssue.save();
+    }
+  }
+
+  static final class Builder {
+    private final InputFile inputFile;
+    private final List<MeasureValue<?>> measures = new ArrayList<>();
+    private int[] coveredLines = new int[0];
+    private final List<IssuePlan> issues = new ArrayList<>();
+
+    private Builder(InputFile inputFile) {
+      this.inputFile = inputFile;
+    }
+
+    <T extends Serializable> Builder measure(Metric<T> metric, T value) {
+      measures.add(new MeasureValue<>(metric, value));
+      return this;
+    }
+
+    /**
+     * @param lines the lines to save one hit on, in increasing order
+     */
+    Builder coveredLines(int[] lines) {
+      this.coveredLines = lines;
+      return this;
+    }
+
+    Builder issue(IssuePlan issue) {
+      issues.add(issue);
+      return this;
+    }
+
+    EmissionPlan build() {
+      return new EmissionPlan(this);
+    }
+  }
+
+  private static final class MeasureValue<T extends Serializable> {
+    private final Metric<T> metric;
+    private final T value;
+
+    private MeasureValue(Metric<T> metric, T value) {
+      this.metric = metric;
+      this.value = value;
+    }
+
+    private void save(SensorContext context, InputFile inputFile) {
+      context.<T>newMeasure()
+        .withValue(value)
+        .forMetric(metric)
+        .on(inputFile)
+        .save();
+    }
+  }
+
+  /**
+   * An issue: its primary location, then its secondary ones.
+   */
+  static final class IssuePlan {
+    private final RuleKey ruleKey;
+    private final List<IssueLocation> locations;
+
+    IssuePlan(RuleKey ruleKey, List<IssueLocation> locations) {
+      this.ruleKey = ruleKey;
+      this.locations = Collections.unmodifiableList(new ArrayList<>(locations));
+    }
+
+    RuleKey ruleKey() {
+      return ruleKey;
+    }
+
+    List<IssueLocation> locations() {
+      return locations;
+    }
+  }
+
+  static final class IssueLocation {
+    static final int WHOLE_FILE = -1;
+
+    private final int line;
+    private final String message;
+
+    /**
+     * @param line the line of the location, or {@link #WHOLE_FILE}
+     */
+    IssueLocation(int line, String message) {
+      this.line = line;
+      this.message = message;
+    }
+
+    int line() {
+      return line;
+    }
+
+    String message() {
+      return message;
+    }
+
+    private NewIssueLocation toNewIssueLocation(NewIssue newIssue, InputFile inputFile) {
+      NewIssueLocation location = newIssue.newLocation().on(inputFile);
+      if (line != WHOLE_FILE) {
+        location.at(inputFile.selectLine(line));
+      }
+      return location.message(message);
+    }
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Sonar Pitest Plugin
+ * Copyright (C) 2009-2018 Vinod Anandan
+ * vinod@owasp.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.pitest.scanner;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.CheckForNull;
+import org.sonar.api.batch.fs.FileSystem;
+import org.sonar.api.batch.fs.InputFile;
+
+/**
+ * Index of the MAIN {@link InputFile}s of a module by every '/'-separated suffix of their relative path,
+ * built once per analysis so that resolving a {@link SourceFileReport} is a single map lookup instead of
+ * a <code>**&#47;path</code> glob evaluated against every file.
+ */
+final class InputFileIndex {
+
+  private final Map<String, InputFile> filesBySuffix = new HashMap<>();
+  private final Map<String, List<InputFile>> ambiguousSuffixes = new HashMap<>();
+
+  InputFileIndex(FileSystem fileSystem) {
+    Path baseDir = fileSystem.baseDir().toPath().toAbsolutePath().normalize();
+    for (InputFile inputFile : fileSystem.inputFiles(fileSystem.predicates().hasType(InputFile.Type.MAIN))) {
+      Path path = Paths.get(inputFile.uri()).normalize();
+      if (path.startsWith(baseDir)) {
+        path = baseDir.relativize(path);
+      }
+      add(path.toString().replace(File.separatorChar, '/'), inputFile);
+    }
+  }
+
+  private void add(String relativePath, InputFile inputFile) {
+    int start = 0;
+    while (start >= 0) {
+      String suffix = relativePath.substring(start);
+      if (!suffix.isEmpty()) {
+        put(suffix, inputFile);
+      }
+      int slash = relativePath.indexOf('/', start);
+      start = slash < 0 ? -1 : slash + 1;
+    }
+  }
+
+  private void put(String suffix, InputFile inputFile) {
+    List<InputFile> candidates = ambiguousSuffixes.get(suffix);
+    if (candidates != null) {
+      candidates.add(inputFile);
+      return;
+    }
+    InputFile previous = filesBySuffix.putIfAbsent(suffix, inputFile);
+    if (previous != null) {
+      filesBySuffix.remove(suffix);
+      candidates = new ArrayList<>(2);
+      candidates.add(previous);
+      candidates.add(inputFile);
+      ambiguousSuffixes.put(suffix, candidates);
+    }
+  }
+
+  /**
+   * @return the only MAIN file whose relative path ends with <code>sourceFileRelativePath</code>, or
+   * <code>null</code> if there is none or more than one (see {@link #candidates(String)})
+   */
+  @CheckForNull
+  InputFile get(String sourceFileRelativePath) {
+    return filesBySuffix.get(sourceFileRelativePath);
+  }
+
+  /**
+   * @return whether at least one MAIN file of the module has a relative path ending with
+   * <code>sourceFileRelativePath</code>
+   */
+  boolean contains(String sourceFileRelativePath) {
+    return filesBySuffix.containsKey(sourceFileRelativePath) || ambiguousSuffixes.containsKey(sourceFileRelativePath);
+  }
+
+  /**
+   * @return all the MAIN files matching an ambiguous <code>sourceFileRelativePath</code>, empty otherwise
+   */
+  List<InputFile> candidates(String sourceFileRelativePath) {
+    List<InputFile> candidates = ambiguousSuffixes.get(sourceFileRelativePath);
+    return candidates == null ? Collections.<InputFile>emptyList() : Collections.unmodifiableList(candidates);
+  }
+}
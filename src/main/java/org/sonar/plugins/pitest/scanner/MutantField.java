@@ -0,0 +1,39 @@
+/*
+ * Sonar Pitest Plugin
+ * Copyright (C) 2009-2018 Vinod Anandan
+ * vinod@owasp.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.pitest.scanner;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * The optional text fields of a PIT mutant. {@link XmlReportParser} only decodes the ones it is asked for;
+ * the others are left <code>null</code> in the {@link org.sonar.plugins.pitest.domain.Mutant}s it builds.
+ * Status, line number, mutator, index, source file and class are always read.
+ */
+public enum MutantField {
+  MUTATED_METHOD,
+  METHOD_DESCRIPTION,
+  DESCRIPTION,
+  KILLING_TEST;
+
+  public static Set<MutantField> all() {
+    return EnumSet.allOf(MutantField.class);
+  }
+}
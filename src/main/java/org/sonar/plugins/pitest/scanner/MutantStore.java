@@ -0,0 +1,222 @@
+/*
+ * Sonar Pitest Plugin
+ * Copyright (C) 2009-2018 Vinod Anandan
+ * vinod@owasp.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.pitest.scanner;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import javax.annotation.CheckForNull;
+import org.sonar.plugins.pitest.domain.Mutant;
+import org.sonar.plugins.pitest.domain.MutantLocation;
+import org.sonar.plugins.pitest.domain.MutantStatus;
+import org.sonar.plugins.pitest.domain.Mutator;
+
+/**
+ * Column-oriented storage of the mutants of one source file: one primitive array per attribute, enums as
+ * ordinals and strings as ids of a {@link StringTable} shared by the whole project report.
+ * Rows are read back attribute by attribute; {@link #mutant(int)} rebuilds a {@link Mutant} only for
+ * the callers that really need one.
+ */
+final class MutantStore {
+
+  private static final MutantStatus[] STATUSES = MutantStatus.values();
+  private static final Mutator[] MUTATORS = Mutator.values();
+  private static final int INITIAL_CAPACITY = 8;
+
+  private final StringTable strings;
+  private int size;
+
+  private boolean[] detected = new boolean[INITIAL_CAPACITY];
+  private byte[] statuses = new byte[INITIAL_CAPACITY];
+  private byte[] mutators = new byte[INITIAL_CAPACITY];
+  private int[] lineNumbers = new int[INITIAL_CAPACITY];
+  private int[] indexes = new int[INITIAL_CAPACITY];
+  private int[] classNames = new int[INITIAL_CAPACITY];
+  private int[] sourceFiles = new int[INITIAL_CAPACITY];
+  private int[] mutatedMethods = new int[INITIAL_CAPACITY];
+  private int[] methodDescriptions = new int[INITIAL_CAPACITY];
+  private int[] descriptions = new int[INITIAL_CAPACITY];
+  private int[] killingTests = new int[INITIAL_CAPACITY];
+
+  MutantStore(StringTable strings) {
+    this.strings = strings;
+  }
+
+  void add(Mutant mutant) {
+    if (size == lineNumbers.length) {
+      grow();
+    }
+    MutantLocation location = mutant.mutantLocation;
+    detected[size] = mutant.detected;
+    statuses[size] = (byte) mutant.mutantStatus.ordinal();
+    mutators[size] = (byte) mutant.mutator.ordinal();
+    lineNumbers[size] = location.lineNumber;
+    indexes[size] = mutant.index;
+    classNames[size] = strings.id(location.className);
+    sourceFiles[size] = strings.id(location.sourceFile);
+    mutatedMethods[size] = strings.id(location.mutatedMethod);
+    methodDescriptions[size] = strings.id(location.methodDescription);
+    descriptions[size] = strings.id(mutant.description);
+    killingTests[size] = strings.id(mutant.killingTest);
+    size++;
+  }
+
+  /**
+   * Appends a row of another store, whose strings may belong to another {@link StringTable}.
+   */
+  void add(MutantStore other, int row) {
+    if (size == lineNumbers.length) {
+      grow();
+    }
+    detected[size] = other.detected[row];
+    statuses[size] = other.statuses[row];
+    mutators[size] = other.mutators[row];
+    lineNumbers[size] = other.lineNumbers[row];
+    indexes[size] = other.indexes[row];
+    classNames[size] = strings.id(other.className(row));
+    sourceFiles[size] = strings.id(other.sourceFile(row));
+    mutatedMethods[size] = strings.id(other.mutatedMethod(row));
+    methodDescriptions[size] = strings.id(other.methodDescription(row));
+    descriptions[size] = strings.id(other.description(row));
+    killingTests[size] = strings.id(other.killingTest(row));
+    size++;
+  }
+
+  private void grow() {
+    int capacity = lineNumbers.length * 2;
+    detected = Arrays.copyOf(detected, capacity);
+    statuses = Arrays.copyOf(statuses, capacity);
+    mutators = Arrays.copyOf(mutators, capacity);
+    lineNumbers = Arrays.copyOf(lineNumbers, capacity);
+    indexes = Arrays.copyOf(indexes, capacity);
+    classNames = Arrays.copyOf(classNames, capacity);
+    sourceFiles = Arrays.copyOf(sourceFiles, capacity);
+    mutatedMethods = Arrays.copyOf(mutatedMethods, capacity);
+    methodDescriptions = Arrays.copyOf(methodDescriptions, capacity);
+    descriptions = Arrays.copyOf(descriptions, capacity);
+    killingTests = Arrays.copyOf(killingTests, capacity);
+  }
+
+  /**
+   * Writes the rows as they are stored, string ids included: they stay valid as long as the rows are
+   * read back with {@link #readRows(DataInput)} into a store sharing an identical {@link StringTable}.
+   */
+  void writeRows(DataOutput out) throws IOException {
+    out.writeInt(size);
+    for (int row = 0; row < size; row++) {
+      out.writeBoolean(detected[row]);
+      out.writeByte(statuses[row]);
+      out.writeByte(mutators[row]);
+      out.writeInt(lineNumbers[row]);
+      out.writeInt(indexes[row]);
+      out.writeInt(classNames[row]);
+      out.writeInt(sourceFiles[row]);
+      out.writeInt(mutatedMethods[row]);
+      out.writeInt(methodDescriptions[row]);
+      out.writeInt(descriptions[row]);
+      out.writeInt(killingTests[row]);
+    }
+  }
+
+  void readRows(DataInput in) throws IOException {
+    int count = in.readInt();
+    for (int i = 0; i < count; i++) {
+      if (size == lineNumbers.length) {
+        grow();
+      }
+      detected[size] = in.readBoolean();
+      statuses[size] = in.readByte();
+      mutators[size] = in.readByte();
+      lineNumbers[size] = in.readInt();
+      indexes[size] = in.readInt();
+      classNames[size] = in.readInt();
+      sourceFiles[size] = in.readInt();
+      mutatedMethods[size] = in.readInt();
+      methodDescriptions[size] = in.readInt();
+      descriptions[size] = in.readInt();
+      killingTests[size] = in.readInt();
+      size++;
+    }
+  }
+
+  int size() {
+    return size;
+  }
+
+  boolean detected(int row) {
+    return detected[row];
+  }
+
+  MutantStatus status(int row) {
+    return STATUSES[statuses[row]];
+  }
+
+  Mutator mutator(int row) {
+    return MUTATORS[mutators[row]];
+  }
+
+  int lineNumber(int row) {
+    return lineNumbers[row];
+  }
+
+  int index(int row) {
+    return indexes[row];
+  }
+
+  @CheckForNull
+  String className(int row) {
+    return strings.get(classNames[row]);
+  }
+
+  @CheckForNull
+  String sourceFile(int row) {
+    return strings.get(sourceFiles[row]);
+  }
+
+  @CheckForNull
+  String mutatedMethod(int row) {
+    return strings.get(mutatedMethods[row]);
+  }
+
+  @CheckForNull
+  String methodDescription(int row) {
+    return strings.get(methodDescriptions[row]);
+  }
+
+  @CheckForNull
+  String description(int row) {
+    return strings.get(descriptions[row]);
+  }
+
+  @CheckForNull
+  String killingTest(int row) {
+    return strings.get(killingTests[row]);
+  }
+
+  String violationDescription(int row) {
+    return Mutant.violationDescription(mutator(row), description(row));
+  }
+
+  Mutant mutant(int row, String relativePath) {
+    MutantLocation location = new MutantLocation(className(row), sourceFile(row), mutatedMethod(row), methodDescription(row), lineNumber(row), relativePath);
+    return new Mutant(detected(row), status(row), location, mutator(row), index(row), description(row), killingTest(row));
+  }
+}
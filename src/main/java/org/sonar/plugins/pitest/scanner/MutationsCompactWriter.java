@@ -0,0 +1,147 @@
+/*
+ * Sonar Pitest Plugin
+ * Copyright (C) 2009-2018 Vinod Anandan
+ * vinod@owasp.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.pitest.scanner;
+
+import java.util.HashMap;
+import java.util.Map;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonar.plugins.pitest.domain.MutantStatus;
+import org.sonar.plugins.pitest.domain.Mutator;
+
+import static org.sonar.plugins.pitest.scanner.MutationsJsonWriter.line;
+import static org.sonar.plugins.pitest.scanner.MutationsJsonWriter.row;
+import static org.sonar.plugins.pitest.scanner.MutationsJsonWriter.rowsByLine;
+
+/**
+ * Writes the mutants of one source file in the compact form of the mutations data measure, format version
+ * {@value #VERSION}. Every string is written once in a dictionary and referred to by its index, <code>-1</code>
+ * standing for a missing value:
+ * <pre>
+ * {"v":1,"d":["com.foo.Bar","Bar.java","doIt",...],"m":[[line,status,detected,class,sourceFile,method,mutatorName,mutatorDescription,killingTest],...]}
+ * </pre>
+ * Mutants are sorted by line, in report order within a line, and <code>detected</code> is <code>0</code> or
+ * <code>1</code>. The per-line summary counts the mutants of each line by status code:
+ * <pre>
+ * {"v":1,"l":[[line,noCoverage,killed,survived,other,unknown],...]}
+ * </pre>
+ */
+final class MutationsCompactWriter {
+
+  static final int VERSION = 1;
+
+  /**
+   * Status codes of format version 1, independent of the declaration order of {@link MutantStatus}.
+   */
+  private static final MutantStatus[] STATUS_CODES = {MutantStatus.NO_COVERAGE, MutantStatus.KILLED, MutantStatus.SURVIVED, MutantStatus.OTHER,
+    MutantStatus.UNKNOWN};
+  private static final int[] CODES_BY_ORDINAL = new int[MutantStatus.values().length];
+
+  static {
+    for (int code = 0; code < STATUS_CODES.length; code++) {
+      CODES_BY_ORDINAL[STATUS_CODES[code].ordinal()] = code;
+    }
+  }
+
+  private MutationsCompactWriter() {
+  }
+
+  static int statusCode(MutantStatus status) {
+    return CODES_BY_ORDINAL[status.ordinal()];
+  }
+
+  /**
+   * @param survivedOnly whether to leave out the mutants that did not survive
+   * @return <code>null</code> if there is no mutant to write
+   */
+  @CheckForNull
+  static String write(MutantStore mutants, boolean survivedOnly) {
+    long[] rowsByLine = rowsByLine(mutants, survivedOnly);
+    if (rowsByLine.length == 0) {
+      return null;
+    }
+    Map<String, Integer> indexes = new HashMap<>();
+    StringBuilder dictionary = new StringBuilder(rowsByLine.length * 8);
+    StringBuilder rows = new StringBuilder(rowsByLine.length * 40);
+    for (long rowByLine : rowsByLine) {
+      int row = row(rowByLine);
+      Mutator mutator = mutants.mutator(row);
+      rows.append(rows.length() == 0 ? "[" : ",[")
+        .append(line(rowByLine)).append(',')
+        .append(statusCode(mutants.status(row))).append(',')
+        .append(mutants.detected(row) ? 1 : 0).append(',')
+        .append(index(indexes, dictionary, mutants.className(row))).append(',')
+        .append(index(indexes, dictionary, mutants.sourceFile(row))).append(',')
+        .append(index(indexes, dictionary, mutants.mutatedMethod(row))).append(',')
+        .append(index(indexes, dictionary, mutator.getName())).append(',')
+        .append(index(indexes, dictionary, mutator.getDescription())).append(',')
+        .append(index(indexes, dictionary, mutants.killingTest(row))).append(']');
+    }
+    return new StringBuilder(dictionary.length() + rows.length() + 20)
+      .append("{\"v\":").append(VERSION)
+      .append(",\"d\":[").append(dictionary)
+      .append("],\"m\":[").append(rows)
+      .append("]}").toString();
+  }
+
+  @CheckForNull
+  static String writeLines(MutantStore mutants) {
+    long[] rowsByLine = rowsByLine(mutants, false);
+    if (rowsByLine.length == 0) {
+      return null;
+    }
+    StringBuilder builder = new StringBuilder(rowsByLine.length * 16);
+    builder.append("{\"v\":").append(VERSION).append(",\"l\":[");
+    int[] counts = new int[STATUS_CODES.length];
+    boolean first = true;
+    for (int i = 0; i < rowsByLine.length; i++) {
+      counts[statusCode(mutants.status(row(rowsByLine[i])))]++;
+      int line = line(rowsByLine[i]);
+      if (i + 1 == rowsByLine.length || line != line(rowsByLine[i + 1])) {
+        builder.append(first ? "[" : ",[").append(line);
+        for (int code = 0; code < counts.length; code++) {
+          builder.append(',').append(counts[code]);
+          counts[code] = 0;
+        }
+        builder.append(']');
+        first = false;
+      }
+    }
+    return builder.append("]}").toString();
+  }
+
+  private static int index(Map<String, Integer> indexes, StringBuilder dictionary, @Nullable String value) {
+    if (value == null) {
+      return -1;
+    }
+    Integer index = indexes.get(value);
+    if (index == null) {
+      index = indexes.size();
+      indexes.put(value, index);
+      if (index > 0) {
+        dictionary.append(',');
+      }
+      dictionary.append('"');
+      MutationsJsonWriter.appendEscaped(dictionary, value);
+      dictionary.append('"');
+    }
+    return index;
+  }
+}
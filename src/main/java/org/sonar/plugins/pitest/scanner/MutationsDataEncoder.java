@@ -0,0 +1,136 @@
+/*
+ * Sonar Pitest Plugin
+ * Copyright (C) 2009-2018 Vinod Anandan
+ * vinod@owasp.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.pitest.scanner;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import javax.annotation.CheckForNull;
+
+import static org.sonar.plugins.pitest.PitestConstants.MUTATIONS_DATA_FORMAT_COMPACT;
+import static org.sonar.plugins.pitest.PitestConstants.MUTATIONS_DATA_FORMAT_DEFLATE;
+import static org.sonar.plugins.pitest.PitestConstants.MUTATIONS_DATA_FULL;
+import static org.sonar.plugins.pitest.PitestConstants.MUTATIONS_DATA_LINES;
+import static org.sonar.plugins.pitest.PitestConstants.MUTATIONS_DATA_NONE;
+import static org.sonar.plugins.pitest.PitestConstants.MUTATIONS_DATA_SURVIVED;
+
+/**
+ * Value of the mutations data measure of a source file, for the configured detail level and format:
+ * <ul>
+ * <li>'json': the original JSON, see {@link MutationsJsonWriter}, which always starts with <code>{"</code>
+ * followed by a line number. The original JSON has no per-line summary, so the 'lines' level is written in the
+ * compact form whatever the format</li>
+ * <li>'compact': see {@link MutationsCompactWriter}, which always starts with <code>{"v":</code> and the format
+ * version</li>
+ * <li>'deflate': the compact form, deflated and encoded in base64 after a {@value #DEFLATED_PREFIX} prefix,
+ * see {@link #decode(String)}</li>
+ * </ul>
+ */
+final class MutationsDataEncoder {
+
+  static final String DEFLATED_PREFIX = "z:";
+
+  private final String level;
+  private final String format;
+
+  MutationsDataEncoder(String level, String format) {
+    this.level = level;
+    this.format = format;
+  }
+
+  boolean isEnabled() {
+    return !MUTATIONS_DATA_NONE.equals(level);
+  }
+
+  /**
+   * Whether the mutants themselves are written, and not only a per-line summary.
+   */
+  boolean needsMutants() {
+    return MUTATIONS_DATA_FULL.equals(level) || MUTATIONS_DATA_SURVIVED.equals(level);
+  }
+
+  /**
+   * @return <code>null</code> if there is nothing to store for this level
+   */
+  @CheckForNull
+  String encode(MutantStore mutants) {
+    if (!isEnabled()) {
+      return null;
+    }
+    boolean survivedOnly = MUTATIONS_DATA_SURVIVED.equals(level);
+    boolean lines = MUTATIONS_DATA_LINES.equals(level);
+    if (!lines && !MUTATIONS_DATA_FORMAT_COMPACT.equals(format) && !MUTATIONS_DATA_FORMAT_DEFLATE.equals(format)) {
+      return MutationsJsonWriter.write(mutants, survivedOnly);
+    }
+    String compact = lines ? MutationsCompactWriter.writeLines(mutants) : MutationsCompactWriter.write(mutants, survivedOnly);
+    return compact != null && MUTATIONS_DATA_FORMAT_DEFLATE.equals(format) ? deflate(compact) : compact;
+  }
+
+  static String deflate(String value) {
+    Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+    try {
+      deflater.setInput(value.getBytes(StandardCharsets.UTF_8));
+      deflater.finish();
+      ByteArrayOutputStream out = new ByteArrayOutputStream(value.length() / 4 + 16);
+      byte[] buffer = new byte[8192];
+      while (!deflater.finished()) {
+        out.write(buffer, 0, deflater.deflate(buffer));
+      }
+      return DEFLATED_PREFIX + Base64.getEncoder().encodeToString(out.toByteArray());
+    } finally {
+      deflater.end();
+    }
+  }
+
+  /**
+   * Reverses the 'deflate' format. Values in the other formats are returned unchanged, so that a reader can
+   * decode any stored value, then tell the original JSON from the compact form by the <code>v</code> key.
+   */
+  static String decode(String value) {
+    if (!value.startsWith(DEFLATED_PREFIX)) {
+      return value;
+    }
+    Inflater inflater = new Inflater();
+    try {
+      inflater.setInput(Base64.getDecoder().decode(value.substring(DEFLATED_PREFIX.length())));
+      byte[] buffer = new byte[Math.max(64, value.length() * 4)];
+      int length = 0;
+      while (!inflater.finished()) {
+        if (length == buffer.length) {
+          buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        int inflated = inflater.inflate(buffer, length, buffer.length - length);
+        if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+          throw new IllegalArgumentException("Truncated mutations data");
+        }
+        length += inflated;
+      }
+      return new String(buffer, 0, length, StandardCharsets.UTF_8);
+    } catch (DataFormatException e) {
+      throw new IllegalArgumentException("Invalid mutations data", e);
+    } finally {
+      inflater.end();
+    }
+  }
+}
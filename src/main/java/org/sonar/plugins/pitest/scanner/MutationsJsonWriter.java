@@ -0,0 +1,171 @@
+/*
+ * Sonar Pitest Plugin
+ * Copyright (C) 2009-2018 Vinod Anandan
+ * vinod@owasp.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.pitest.scanner;
+
+import java.util.Arrays;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonar.plugins.pitest.domain.MutantStatus;
+import org.sonar.plugins.pitest.domain.Mutator;
+
+/**
+ * Writes the mutants of one source file as the JSON value of the mutations data measure: an object keyed by
+ * line number, in ascending order, whose values are the mutants of the line in report order.
+ * <p>
+ * Values are read straight from the {@link MutantStore} columns into a single buffer sized up front, so
+ * no intermediate {@link org.sonar.plugins.pitest.domain.Mutant} or per-mutant string is built.
+ */
+final class MutationsJsonWriter {
+
+  /**
+   * Keys, punctuation, booleans and numbers of one mutant, on top of its string values.
+   */
+  private static final int MUTANT_OVERHEAD = 160;
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+  private MutationsJsonWriter() {
+  }
+
+  @CheckForNull
+  static String write(MutantStore mutants) {
+    return write(mutants, false);
+  }
+
+  /**
+   * @param survivedOnly whether to leave out the mutants that did not survive
+   * @return <code>null</code> if there is no mutant to write
+   */
+  @CheckForNull
+  static String write(MutantStore mutants, boolean survivedOnly) {
+    long[] rowsByLine = rowsByLine(mutants, survivedOnly);
+    if (rowsByLine.length == 0) {
+      return null;
+    }
+    int capacity = 2;
+    for (long rowByLine : rowsByLine) {
+      int row = row(rowByLine);
+      Mutator mutator = mutants.mutator(row);
+      capacity += MUTANT_OVERHEAD + length(mutants.className(row)) + mutator.getName().length() + mutator.getDescription().length()
+        + length(mutants.sourceFile(row)) + length(mutants.mutatedMethod(row)) + length(mutants.killingTest(row));
+    }
+
+    StringBuilder builder = new StringBuilder(capacity);
+    builder.append('{');
+    for (int i = 0; i < rowsByLine.length; i++) {
+      int line = line(rowsByLine[i]);
+      if (i == 0) {
+        builder.append('"').append(line).append("\":[");
+      } else if (line != line(rowsByLine[i - 1])) {
+        builder.append("],\"").append(line).append("\":[");
+      } else {
+        builder.append(',');
+      }
+      appendMutant(builder, mutants, row(rowsByLine[i]));
+    }
+    return builder.append("]}").toString();
+  }
+
+  /**
+   * @return the selected rows, each one with its line number in the high bits and the row in the low ones, so
+   * that once sorted they are grouped by ascending line and keep the report order within a line
+   */
+  static long[] rowsByLine(MutantStore mutants, boolean survivedOnly) {
+    long[] rowsByLine = new long[mutants.size()];
+    int count = 0;
+    for (int row = 0; row < mutants.size(); row++) {
+      if (!survivedOnly || mutants.status(row) == MutantStatus.SURVIVED) {
+        rowsByLine[count++] = ((long) mutants.lineNumber(row) << 32) | row;
+      }
+    }
+    long[] selected = count == rowsByLine.length ? rowsByLine : Arrays.copyOf(rowsByLine, count);
+    Arrays.sort(selected);
+    return selected;
+  }
+
+  static int line(long rowByLine) {
+    return (int) (rowByLine >> 32);
+  }
+
+  static int row(long rowByLine) {
+    return (int) rowByLine;
+  }
+
+  private static void appendMutant(StringBuilder builder, MutantStore mutants, int row) {
+    Mutator mutator = mutants.mutator(row);
+    builder.append("{ \"d\" : ").append(mutants.detected(row));
+    appendField(builder, "s", mutants.status(row).name());
+    appendField(builder, "c", mutants.className(row));
+    appendField(builder, "mname", mutator.getName());
+    appendField(builder, "mdesc", mutator.getDescription());
+    appendField(builder, "sourceFile", mutants.sourceFile(row));
+    appendField(builder, "mmethod", mutants.mutatedMethod(row));
+    builder.append(", \"l\" : \"").append(mutants.lineNumber(row)).append('"');
+    String killingTest = mutants.killingTest(row);
+    if (killingTest != null) {
+      appendField(builder, "killtest", killingTest);
+    }
+    builder.append(" }");
+  }
+
+  private static void appendField(StringBuilder builder, String key, @Nullable String value) {
+    builder.append(", \"").append(key).append("\" : \"");
+    appendEscaped(builder, String.valueOf(value));
+    builder.append('"');
+  }
+
+  static void appendEscaped(StringBuilder builder, String value) {
+    int start = 0;
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == '"' || c == '\\' || c < 0x20) {
+        builder.append(value, start, i);
+        escape(builder, c);
+        start = i + 1;
+      }
+    }
+    builder.append(value, start, value.length());
+  }
+
+  private static void escape(StringBuilder builder, char c) {
+    switch (c) {
+      case '"':
+        builder.append("\\\"");
+        break;
+      case '\\':
+        builder.append("\\\\");
+        break;
+      case '\n':
+        builder.append("\\n");
+        break;
+      case '\r':
+        builder.append("\\r");
+        break;
+      case '\t':
+        builder.append("\\t");
+        break;
+      default:
+        builder.append("\\u00").append(HEX_DIGITS[c >> 4]).append(HEX_DIGITS[c & 0xF]);
+    }
+  }
+
+  static int length(@Nullable String value) {
+    return value == null ? 4 : value.length();
+  }
+}
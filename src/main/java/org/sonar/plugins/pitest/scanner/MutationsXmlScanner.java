@@ -0,0 +1,557 @@
+/*
+ * Sonar Pitest Plugin
+ * Copyright (C) 2009-2018 Vinod Anandan
+ * vinod@owasp.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.pitest.scanner;
+
+import com.google.common.base.Charsets;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import org.sonar.plugins.pitest.domain.Mutant;
+import org.sonar.plugins.pitest.domain.MutantLocation;
+import org.sonar.plugins.pitest.domain.MutantStatus;
+
+/**
+ * Parser engine specialized for the flat layout of PIT's <code>mutations.xml</code>. It works on the raw
+ * UTF-8 bytes: known tags are recognized by their bytes, numbers are read without allocating and strings
+ * are only decoded for the values that end up in a {@link Mutant}. Values already seen recently are served
+ * from a small cache keyed by their bytes, so that repeated values are not decoded again.
+ * <p>
+ * Unknown children of a mutation holding only text are stepped over. Anything else outside of what PIT writes
+ * (nested unknown elements, CDATA, attributes on known child elements...) stops the scan with an
+ * {@link UnsupportedContentException}, so that the caller can fall back to the StAX parser.
+ * <p>
+ * Mutants whose source file is rejected by the relative path filter are skipped as soon as their
+ * <code>sourceFile</code> and <code>mutatedClass</code> are known, without reading the other children.
+ * Likewise, the text of the optional {@link MutantField}s that were not asked for is stepped over undecoded.
+ */
+final class MutationsXmlScanner {
+
+  private static final int SOURCE_FILE = 0;
+  private static final int MUTATED_CLASS = 1;
+  private static final int MUTATED_METHOD = 2;
+  private static final int METHOD_DESCRIPTION = 3;
+  private static final int LINE_NUMBER = 4;
+  private static final int MUTATOR = 5;
+  private static final int INDEX = 6;
+  private static final int KILLING_TEST = 7;
+  private static final int DESCRIPTION = 8;
+
+  private static final byte[][] TAGS = {
+    bytes("sourceFile"),
+    bytes("mutatedClass"),
+    bytes("mutatedMethod"),
+    bytes("methodDescription"),
+    bytes("lineNumber"),
+    bytes("mutator"),
+    bytes("index"),
+    bytes("killingTest"),
+    bytes("description")
+  };
+
+  private static final byte[] MUTATION = bytes("mutation");
+  private static final byte[] MUTATIONS = bytes("mutations");
+  private static final byte[] DETECTED = bytes("detected");
+  private static final byte[] STATUS = bytes("status");
+  private static final byte[] TRUE = bytes("true");
+
+  private static final byte[][] STATUS_NAMES = {
+    bytes("KILLED"),
+    bytes("SURVIVED"),
+    bytes("NO_COVERAGE"),
+    bytes("TIMED_OUT"),
+    bytes("NON_VIABLE"),
+    bytes("MEMORY_ERROR"),
+    bytes("RUN_ERROR")
+  };
+  private static final MutantStatus[] STATUS_VALUES = new MutantStatus[STATUS_NAMES.length];
+
+  static {
+    for (int i = 0; i < STATUS_NAMES.length; i++) {
+      STATUS_VALUES[i] = MutantStatus.fromPitestDetectionStatus(new String(STATUS_NAMES[i], Charsets.UTF_8));
+    }
+  }
+
+  private static final int CACHE_SIZE = 1024;
+
+  private final ByteBuffer content;
+  private final int limit;
+  private final Consumer<Mutant> consumer;
+  private final StringDictionary dictionary;
+  private final Predicate<String> relativePathFilter;
+  private final boolean[] decoded = new boolean[TAGS.length];
+  private final byte[][] cachedBytes = new byte[CACHE_SIZE][];
+  private final String[] cachedStrings = new String[CACHE_SIZE];
+  private int processed;
+
+  private boolean detected;
+  private MutantStatus mutantStatus;
+  private final String[] texts = new String[TAGS.length];
+  private int lineNumber;
+  private int index;
+
+  MutationsXmlScanner(ByteBuffer content, Consumer<Mutant> consumer) {
+    this(content, consumer, new StringDictionary());
+  }
+
+  MutationsXmlScanner(ByteBuffer content, Consumer<Mutant> consumer, StringDictionary dictionary) {
+    this(content, consumer, dictionary, relativePath -> true, MutantField.all());
+  }
+
+  MutationsXmlScanner(ByteBuffer content, Consumer<Mutant> consumer, StringDictionary dictionary, Predicate<String> relativePathFilter,
+    Set<MutantField> fields) {
+    this.content = content;
+    this.limit = content.limit();
+    this.consumer = consumer;
+    this.dictionary = dictionary;
+    this.relativePathFilter = relativePathFilter;
+    Arrays.fill(decoded, true);
+    decoded[MUTATED_METHOD] = fields.contains(MutantField.MUTATED_METHOD);
+    decoded[METHOD_DESCRIPTION] = fields.contains(MutantField.METHOD_DESCRIPTION);
+    decoded[DESCRIPTION] = fields.contains(MutantField.DESCRIPTION);
+    decoded[KILLING_TEST] = fields.contains(MutantField.KILLING_TEST);
+  }
+
+  /**
+   * Number of <code>mutation</code> elements done with so far, handed to the consumer or filtered out,
+   * including when the scan has been interrupted.
+   */
+  int processed() {
+    return processed;
+  }
+
+  void scan() {
+    int depth = 0;
+    int pos = skipWhitespace(0);
+    while (pos < limit) {
+      expect(pos, '<');
+      if (at(pos + 1) == '?') {
+        pos = indexOf(pos, '?', '>') + 2;
+      } else if (at(pos + 1) == '!') {
+        pos = skipComment(pos);
+      } else if (at(pos + 1) == '/') {
+        expectName(pos + 2, MUTATIONS);
+        expect(pos + 2 + MUTATIONS.length, '>');
+        if (--depth < 0) {
+          throw unsupported();
+        }
+        pos += MUTATIONS.length + 3;
+      } else if (matches(pos + 1, MUTATIONS) && isNameEnd(pos + 1 + MUTATIONS.length)) {
+        int end = indexOf(pos, '>');
+        if (at(end - 1) != '/') {
+          depth++;
+        }
+        pos = end + 1;
+      } else {
+        expectName(pos + 1, MUTATION);
+        pos = scanMutation(pos + 1 + MUTATION.length);
+      }
+      pos = skipWhitespace(pos);
+    }
+    if (depth != 0) {
+      throw unsupported();
+    }
+  }
+
+  private int scanMutation(int from) {
+    detected = false;
+    mutantStatus = MutantStatus.UNKNOWN;
+    for (int i = 0; i < texts.length; i++) {
+      texts[i] = null;
+    }
+    lineNumber = 0;
+    index = 0;
+
+    int pos = scanMutationAttributes(from);
+    boolean filtered = false;
+    while (true) {
+      pos = skipWhitespace(pos);
+      expect(pos, '<');
+      if (at(pos + 1) == '/') {
+        expectName(pos + 2, MUTATION);
+        expect(pos + 2 + MUTATION.length, '>');
+        emit();
+        return pos + MUTATION.length + 3;
+      }
+      pos = scanChild(pos + 1);
+      if (!filtered && texts[SOURCE_FILE] != null && texts[MUTATED_CLASS] != null) {
+        filtered = true;
+        if (!relativePathFilter.test(dictionary.relativePath(texts[MUTATED_CLASS], texts[SOURCE_FILE]))) {
+          processed++;
+          return skipMutation(pos);
+        }
+      }
+    }
+  }
+
+  private int skipMutation(int from) {
+    int pos = indexOf(from, '<', '/');
+    while (!matches(pos + 2, MUTATION) || at(pos + 2 + MUTATION.length) != '>') {
+      pos = indexOf(pos + 1, '<', '/');
+    }
+    return pos + MUTATION.length + 3;
+  }
+
+  private int scanMutationAttributes(int from) {
+    int pos = skipWhitespace(from);
+    while (at(pos) != '>') {
+      int nameStart = pos;
+      while (at(pos) != '=' && !isWhitespace(at(pos))) {
+        pos++;
+      }
+      int nameEnd = pos;
+      pos = skipWhitespace(pos);
+      expect(pos, '=');
+      pos = skipWhitespace(pos + 1);
+      byte quote = at(pos);
+      if (quote != '\'' && quote != '"') {
+        throw unsupported();
+      }
+      int valueStart = pos + 1;
+      int valueEnd = indexOf(valueStart, quote);
+      if (nameEnd - nameStart == DETECTED.length && matches(nameStart, DETECTED)) {
+        detected = valueEnd - valueStart == TRUE.length && matchesIgnoreCase(valueStart, TRUE);
+      } else if (nameEnd - nameStart == STATUS.length && matches(nameStart, STATUS)) {
+        mutantStatus = status(valueStart, valueEnd);
+      }
+      pos = skipWhitespace(valueEnd + 1);
+    }
+    return pos + 1;
+  }
+
+  private MutantStatus status(int start, int end) {
+    for (int i = 0; i < STATUS_NAMES.length; i++) {
+      if (end - start == STATUS_NAMES[i].length && matches(start, STATUS_NAMES[i])) {
+        return STATUS_VALUES[i];
+      }
+    }
+    return MutantStatus.fromPitestDetectionStatus(decode(start, end));
+  }
+
+  private int scanChild(int nameStart) {
+    int tag = tagAt(nameStart);
+    if (tag < 0) {
+      return skipUnknownChild(nameStart);
+    }
+    int pos = skipWhitespace(nameStart + TAGS[tag].length);
+    if (at(pos) == '/') {
+      // empty element, as for <killingTest/>
+      expect(pos + 1, '>');
+      setEmpty(tag);
+      return pos + 2;
+    }
+    expect(pos, '>');
+    int textStart = pos + 1;
+    int textEnd = indexOf(textStart, '<');
+    expect(textEnd + 1, '/');
+    expectName(textEnd + 2, TAGS[tag]);
+    expect(textEnd + 2 + TAGS[tag].length, '>');
+    if (tag == LINE_NUMBER) {
+      lineNumber = parseInt(textStart, textEnd);
+    } else if (tag == INDEX) {
+      index = parseInt(textStart, textEnd);
+    } else if (decoded[tag]) {
+      texts[tag] = decode(textStart, textEnd);
+    }
+    return textEnd + TAGS[tag].length + 3;
+  }
+
+  /**
+   * Steps over an element the plugin does not read, such as the <code>block</code> written by PIT 1.4, as the StAX
+   * parser ignores it. Only elements holding text are stepped over.
+   */
+  private int skipUnknownChild(int nameStart) {
+    int nameEnd = nameStart;
+    while (!isNameEnd(nameEnd)) {
+      nameEnd++;
+    }
+    if (nameEnd == nameStart) {
+      throw unsupported();
+    }
+    int end = indexOf(nameEnd, '>');
+    if (at(end - 1) == '/') {
+      return end + 1;
+    }
+    int textEnd = indexOf(end + 1, '<');
+    expect(textEnd + 1, '/');
+    int closingName = textEnd + 2;
+    for (int i = nameStart; i < nameEnd; i++) {
+      if (at(closingName + i - nameStart) != at(i)) {
+        throw unsupported();
+      }
+    }
+    expect(closingName + nameEnd - nameStart, '>');
+    return closingName + nameEnd - nameStart + 1;
+  }
+
+  private void setEmpty(int tag) {
+    if (tag == LINE_NUMBER || tag == INDEX) {
+      // the StAX parser logs and ignores such values, let it do so
+      throw unsupported();
+    }
+    if (decoded[tag]) {
+      texts[tag] = "";
+    }
+  }
+
+  private void emit() {
+    String relativePath = dictionary.relativePath(texts[MUTATED_CLASS], texts[SOURCE_FILE]);
+    MutantLocation location = new MutantLocation(texts[MUTATED_CLASS], texts[SOURCE_FILE], texts[MUTATED_METHOD], texts[METHOD_DESCRIPTION], lineNumber, relativePath);
+    consumer.accept(new Mutant(detected, mutantStatus, location, texts[MUTATOR], index, texts[DESCRIPTION], texts[KILLING_TEST]));
+    processed++;
+  }
+
+  private int tagAt(int nameStart) {
+    for (int tag = 0; tag < TAGS.length; tag++) {
+      if (matches(nameStart, TAGS[tag]) && isNameEnd(nameStart + TAGS[tag].length)) {
+        return tag;
+      }
+    }
+    return -1;
+  }
+
+  private int parseInt(int start, int end) {
+    int from = start;
+    int to = end;
+    while (from < to && at(from) <= ' ') {
+      from++;
+    }
+    while (to > from && at(to - 1) <= ' ') {
+      to--;
+    }
+    boolean negative = from < to && at(from) == '-';
+    if (negative || (from < to && at(from) == '+')) {
+      from++;
+    }
+    if (from == to || to - from > 9) {
+      throw unsupported();
+    }
+    int value = 0;
+    for (int i = from; i < to; i++) {
+      byte digit = at(i);
+      if (digit < '0' || digit > '9') {
+        throw unsupported();
+      }
+      value = value * 10 + (digit - '0');
+    }
+    return negative ? -value : value;
+  }
+
+  private String decode(int start, int end) {
+    int length = end - start;
+    int hash = length;
+    boolean plain = true;
+    for (int i = start; i < end; i++) {
+      byte b = content.get(i);
+      hash = 31 * hash + b;
+      plain &= b != '&' && b != '\r';
+    }
+    int slot = (hash ^ (hash >>> 16)) & (CACHE_SIZE - 1);
+    byte[] cached = cachedBytes[slot];
+    if (cached != null && cached.length == length && matches(start, cached)) {
+      return cachedStrings[slot];
+    }
+
+    byte[] bytes = new byte[length];
+    for (int i = 0; i < length; i++) {
+      bytes[i] = content.get(start + i);
+    }
+    String text = new String(bytes, Charsets.UTF_8);
+    String value = dictionary.intern(plain ? text : unescape(text));
+    cachedBytes[slot] = bytes;
+    cachedStrings[slot] = value;
+    return value;
+  }
+
+  /**
+   * Resolves predefined and numeric entities and normalizes line breaks, as an XML parser does.
+   */
+  private String unescape(String text) {
+    StringBuilder builder = new StringBuilder(text.length());
+    int i = 0;
+    while (i < text.length()) {
+      char c = text.charAt(i);
+      if (c == '\r') {
+        builder.append('\n');
+        i += i + 1 < text.length() && text.charAt(i + 1) == '\n' ? 2 : 1;
+      } else if (c == '&') {
+        int semicolon = text.indexOf(';', i);
+        if (semicolon < 0) {
+          throw unsupported();
+        }
+        appendEntity(builder, text.substring(i + 1, semicolon));
+        i = semicolon + 1;
+      } else {
+        builder.append(c);
+        i++;
+      }
+    }
+    return builder.toString();
+  }
+
+  private void appendEntity(StringBuilder builder, String entity) {
+    switch (entity) {
+      case "lt":
+        builder.append('<');
+        break;
+      case "gt":
+        builder.append('>');
+        break;
+      case "amp":
+        builder.append('&');
+        break;
+      case "quot":
+        builder.append('"');
+        break;
+      case "apos":
+        builder.append('\'');
+        break;
+      default:
+        appendCharacterReference(builder, entity);
+    }
+  }
+
+  private void appendCharacterReference(StringBuilder builder, String entity) {
+    if (entity.length() < 2 || entity.charAt(0) != '#') {
+      throw unsupported();
+    }
+    try {
+      int codePoint = entity.charAt(1) == 'x'
+        ? Integer.parseInt(entity.substring(2), 16)
+        : Integer.parseInt(entity.substring(1));
+      builder.appendCodePoint(codePoint);
+    } catch (IllegalArgumentException e) {
+      throw unsupported();
+    }
+  }
+
+  private int skipComment(int pos) {
+    if (at(pos + 2) != '-' || at(pos + 3) != '-') {
+      // DOCTYPE, CDATA
+      throw unsupported();
+    }
+    int end = pos + 4;
+    while (at(end) != '-' || at(end + 1) != '-' || at(end + 2) != '>') {
+      end++;
+    }
+    return end + 3;
+  }
+
+  private int skipWhitespace(int from) {
+    int pos = from;
+    while (pos < limit && isWhitespace(content.get(pos))) {
+      pos++;
+    }
+    return pos;
+  }
+
+  private int indexOf(int from, int b) {
+    for (int pos = from; pos < limit; pos++) {
+      if (content.get(pos) == b) {
+        return pos;
+      }
+    }
+    throw unsupported();
+  }
+
+  private int indexOf(int from, char first, char second) {
+    int pos = indexOf(from, first);
+    while (at(pos + 1) != second) {
+      pos = indexOf(pos + 1, first);
+    }
+    return pos;
+  }
+
+  private void expect(int pos, char expected) {
+    if (at(pos) != expected) {
+      throw unsupported();
+    }
+  }
+
+  private void expectName(int pos, byte[] name) {
+    if (!matches(pos, name) || !isNameEnd(pos + name.length)) {
+      throw unsupported();
+    }
+  }
+
+  private boolean isNameEnd(int pos) {
+    byte b = at(pos);
+    return b == '>' || b == '/' || isWhitespace(b);
+  }
+
+  private boolean matches(int pos, byte[] pattern) {
+    if (pos + pattern.length > limit) {
+      return false;
+    }
+    for (int i = 0; i < pattern.length; i++) {
+      if (content.get(pos + i) != pattern[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean matchesIgnoreCase(int pos, byte[] pattern) {
+    for (int i = 0; i < pattern.length; i++) {
+      if (Character.toLowerCase(content.get(pos + i)) != pattern[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private byte at(int pos) {
+    if (pos >= limit) {
+      throw unsupported();
+    }
+    return content.get(pos);
+  }
+
+  private static boolean isWhitespace(byte b) {
+    return b == ' ' || b == '\n' || b == '\t' || b == '\r';
+  }
+
+  private UnsupportedContentException unsupported() {
+    return new UnsupportedContentException(processed);
+  }
+
+  private static byte[] bytes(String value) {
+    return value.getBytes(Charsets.UTF_8);
+  }
+
+  /**
+   * Raised when the content is not laid out the way PIT writes it.
+   */
+  static final class UnsupportedContentException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final int processed;
+
+    UnsupportedContentException(int processed) {
+      super(null, null, false, false);
+      this.processed = processed;
+    }
+
+    int processed() {
+      return processed;
+    }
+  }
+}
@@ -19,33 +19,68 @@
  */
 package org.sonar.plugins.pitest.scanner;
 
-import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Predicate;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 import org.sonar.api.batch.fs.FilePredicate;
 import org.sonar.api.batch.fs.FileSystem;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.sensor.Sensor;
 import org.sonar.api.batch.sensor.SensorContext;
 import org.sonar.api.batch.sensor.SensorDescriptor;
-import org.sonar.api.batch.sensor.issue.NewIssue;
-import org.sonar.api.batch.sensor.issue.NewIssueLocation;
 import org.sonar.api.config.Configuration;
-import org.sonar.api.measures.Metric;
 import org.sonar.api.profiles.RulesProfile;
 import org.sonar.api.rule.RuleKey;
 import org.sonar.api.rules.ActiveRule;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.plugins.pitest.PitestMetrics;
-import org.sonar.plugins.pitest.domain.Mutant;
 import org.sonar.plugins.pitest.domain.MutantStatus;
+import org.sonar.plugins.pitest.scanner.EmissionPlan.IssueLocation;
+import org.sonar.plugins.pitest.scanner.EmissionPlan.IssuePlan;
 
 import static org.sonar.plugins.pitest.PitestConstants.COVERAGE_RATIO_PARAM;
 import static org.sonar.plugins.pitest.PitestConstants.INSUFFICIENT_MUTATION_COVERAGE_RULE_KEY;
 import static org.sonar.plugins.pitest.PitestConstants.MODE_KEY;
 import static org.sonar.plugins.pitest.PitestConstants.MODE_SKIP;
+import static org.sonar.plugins.pitest.PitestConstants.MUTATIONS_DATA_DEF;
+import static org.sonar.plugins.pitest.PitestConstants.MUTATIONS_DATA_FORMAT_DEF;
+import static org.sonar.plugins.pitest.PitestConstants.MUTATIONS_DATA_FORMAT_KEY;
+import static org.sonar.plugins.pitest.PitestConstants.MUTATIONS_DATA_KEY;
+import static org.sonar.plugins.pitest.PitestConstants.PARSER_CACHE_DEF;
+import static org.sonar.plugins.pitest.PitestConstants.PARSER_CACHE_DIRECTORY_DEF;
+import static org.sonar.plugins.pitest.PitestConstants.PARSER_CACHE_DIRECTORY_KEY;
+import static org.sonar.plugins.pitest.PitestConstants.PARSER_CACHE_KEY;
+import static org.sonar.plugins.pitest.PitestConstants.PARSER_SHARED_DEF;
+import static org.sonar.plugins.pitest.PitestConstants.PARSER_SHARED_KEY;
+import static org.sonar.plugins.pitest.PitestConstants.PIPELINE_DEF;
+import static org.sonar.plugins.pitest.PitestConstants.PIPELINE_KEY;
+import static org.sonar.plugins.pitest.PitestConstants.PIPELINE_WINDOW_DEF;
+import static org.sonar.plugins.pitest.PitestConstants.PIPELINE_WINDOW_KEY;
+import static org.sonar.plugins.pitest.PitestConstants.REPORT_DIRECTORY_DEF;
 import static org.sonar.plugins.pitest.PitestConstants.REPORT_DIRECTORY_KEY;
 import static org.sonar.plugins.pitest.PitestConstants.REPOSITORY_KEY;
+import static org.sonar.plugins.pitest.PitestConstants.SONAR_USER_HOME_KEY;
+import static org.sonar.plugins.pitest.PitestConstants.SURVIVED_MUTANT_GROUPING_DEF;
+import static org.sonar.plugins.pitest.PitestConstants.SURVIVED_MUTANT_GROUPING_KEY;
+import static org.sonar.plugins.pitest.PitestConstants.SURVIVED_MUTANT_GROUPING_LINE;
+import static org.sonar.plugins.pitest.PitestConstants.SURVIVED_MUTANT_GROUPING_METHOD;
 import static org.sonar.plugins.pitest.PitestConstants.SURVIVED_MUTANT_RULE_KEY;
 
 /**
@@ -55,6 +90,8 @@ public class PitestSensor implements Sensor {
 
   private static final Logger LOGGER = Loggers.get(PitestSensor.class);
   static final String SENSOR_NAME = "Pitest Sensor";
+  private static final RuleKey SURVIVED_MUTANT_RULE = RuleKey.of(REPOSITORY_KEY, SURVIVED_MUTANT_RULE_KEY);
+  private static final RuleKey INSUFFICIENT_MUTATION_COVERAGE_RULE = RuleKey.of(REPOSITORY_KEY, INSUFFICIENT_MUTATION_COVERAGE_RULE_KEY);
 
   private final Configuration configuration;
   private final XmlReportParser parser;
@@ -62,20 +99,55 @@ public class PitestSensor implements Sensor {
   private final XmlReportFinder xmlReportFinder;
   private final FileSystem fileSystem;
   private final String executionMode;
+  private final String survivedMutantGrouping;
+  private final boolean parserCache;
+  @Nullable
+  private final ReportCache reportCache;
+  private final boolean sharedReport;
+  private final boolean pipeline;
+  private final int pipelineWindow;
+  private final int planParallelism;
+  private final SharedProjectReports sharedProjectReports;
+  private final MutationsDataEncoder mutationsData;
   private final FilePredicate fileSystemExecutionPredicate;
 
   public PitestSensor(Configuration configuration, XmlReportParser parser, RulesProfile rulesProfile, XmlReportFinder xmlReportFinder, FileSystem fileSystem) {
+    this(configuration, parser, rulesProfile, xmlReportFinder, fileSystem, new SharedProjectReports());
+  }
+
+  public PitestSensor(Configuration configuration, XmlReportParser parser, RulesProfile rulesProfile, XmlReportFinder xmlReportFinder, FileSystem fileSystem,
+    SharedProjectReports sharedProjectReports) {
     this.configuration = configuration;
     this.parser = parser;
     this.rulesProfile = rulesProfile;
     this.xmlReportFinder = xmlReportFinder;
     this.fileSystem = fileSystem;
     this.executionMode = configuration.get(MODE_KEY).orElse(null);
+    this.survivedMutantGrouping = configuration.get(SURVIVED_MUTANT_GROUPING_KEY).orElse(SURVIVED_MUTANT_GROUPING_DEF);
+    this.parserCache = configuration.getBoolean(PARSER_CACHE_KEY).orElse(PARSER_CACHE_DEF);
+    this.reportCache = parserCache ? new ReportCache(cacheDirectory(configuration, fileSystem)) : null;
+    this.sharedReport = configuration.getBoolean(PARSER_SHARED_KEY).orElse(PARSER_SHARED_DEF);
+    this.pipeline = configuration.getBoolean(PIPELINE_KEY).orElse(PIPELINE_DEF);
+    this.pipelineWindow = configuration.getInt(PIPELINE_WINDOW_KEY).orElse(PIPELINE_WINDOW_DEF);
+    this.planParallelism = Runtime.getRuntime().availableProcessors();
+    this.sharedProjectReports = sharedProjectReports;
+    this.mutationsData = new MutationsDataEncoder(configuration.get(MUTATIONS_DATA_KEY).orElse(MUTATIONS_DATA_DEF),
+      configuration.get(MUTATIONS_DATA_FORMAT_KEY).orElse(MUTATIONS_DATA_FORMAT_DEF));
     this.fileSystemExecutionPredicate = fileSystem.predicates().and(
       fileSystem.predicates().hasType(InputFile.Type.MAIN),
       fileSystem.predicates().hasLanguages("java"));
   }
 
+  private static java.io.File cacheDirectory(Configuration configuration, FileSystem fileSystem) {
+    Optional<String> directory = configuration.get(PARSER_CACHE_DIRECTORY_KEY);
+    if (directory.isPresent()) {
+      java.io.File cacheDirectory = new java.io.File(directory.get());
+      return cacheDirectory.isAbsolute() ? cacheDirectory : new java.io.File(fileSystem.baseDir(), directory.get());
+    }
+    String userHome = configuration.get(SONAR_USER_HOME_KEY).orElse(System.getProperty("user.home") + java.io.File.separator + ".sonar");
+    return new java.io.File(userHome, PARSER_CACHE_DIRECTORY_DEF);
+  }
+
   @Override
   public void describe(SensorDescriptor descriptor) {
     descriptor.name(SENSOR_NAME);
@@ -96,138 +168,343 @@ public class PitestSensor implements Sensor {
       return;
     }
 
-    java.io.File projectDirectory = fileSystem.baseDir();
-    String reportDirectoryPath = configuration.get(REPORT_DIRECTORY_KEY).orElse(null);
-
-    java.io.File reportDirectory = new java.io.File(projectDirectory, reportDirectoryPath);
-    java.io.File xmlReport = xmlReportFinder.findReport(reportDirectory);
-    if (xmlReport == null) {
-      LOGGER.warn("No XML PIT report found in directory {} !", reportDirectory);
+    SensorStats stats = new SensorStats();
+    List<java.io.File> xmlReports = stats.time("find", this::findReports);
+    if (xmlReports.isEmpty()) {
+      LOGGER.warn("No XML PIT report found in {} !", String.join(", ", reportPaths()));
       LOGGER.warn("Checkout plugin documentation for more detailed explanations: https://github.com/SonarQubeCommunity/sonar-pitest");
       return;
     }
 
-    Collection<Mutant> mutants = parser.parse(xmlReport);
-    processProjectReport(new ProjectReport(mutants), context);
+    InputFileIndex inputFileIndex = stats.time("index", () -> new InputFileIndex(fileSystem));
+    if (xmlReports.size() == 1) {
+      // shared and cached reports are needed as a whole, so is the merge of several reports
+      boolean pipelined = pipeline && !sharedReport && !parserCache && pipeline(xmlReports.get(0), inputFileIndex, context, stats);
+      if (!pipelined) {
+        processProjectReport(stats.time("parse", () -> loadProjectReport(xmlReports.get(0), inputFileIndex, stats)), inputFileIndex, context, stats);
+      }
+    } else {
+      LOGGER.info("Merging {} PIT reports", xmlReports.size());
+      xmlReports.forEach(stats::reportRead);
+      processProjectReport(stats.time("parse", () -> new ReportMerger(parser).merge(xmlReports, inputFileIndex::contains, requiredFields())), inputFileIndex, context,
+        stats);
+    }
+    stats.log();
+    stats.write(fileSystem);
   }
 
-  private void processProjectReport(ProjectReport projectReport, SensorContext context) {
-    Collection<SourceFileReport> sourceFileReports = projectReport.getSourceFileReports();
+  /**
+   * Saves the measures, coverage and issues of each source file while the report is parsed, once it was checked that
+   * the report is grouped by source file within the pipeline window.
+   *
+   * @return <code>false</code> when the report is not, nothing being saved
+   */
+  private boolean pipeline(java.io.File xmlReport, InputFileIndex inputFileIndex, SensorContext context, SensorStats stats) {
+    ReportPipeline reportPipeline = new ReportPipeline(parser, pipelineWindow);
+    stats.reportRead(xmlReport);
+    if (!stats.time("pipeline", () -> reportPipeline.isGrouped(xmlReport, inputFileIndex::contains))) {
+      return false;
+    }
+    ActiveRules activeRules = new ActiveRules(rulesProfile);
+    stats.reportRead(xmlReport);
+    stats.run("pipeline", () -> reportPipeline.run(xmlReport, inputFileIndex::contains, requiredFields(), sourceFileReport -> {
+      EmissionPlan plan = stats.time("plan", () -> plan(sourceFileReport, inputFileIndex, activeRules));
+      stats.sourceFileReport(sourceFileReport, plan);
+      if (plan != null) {
+        stats.run("emit", () -> plan.replay(context));
+      }
+    }));
+    return true;
+  }
 
-    for (SourceFileReport sourceFileReport : sourceFileReports) {
-      InputFile inputFile = locateFile(sourceFileReport.getRelativePath());
-      if (inputFile == null) {
-        LOGGER.warn("Mutation in an unknown resource: {}", sourceFileReport.getRelativePath());
-        continue;
+  private String[] reportPaths() {
+    String[] reportPaths = configuration.getStringArray(REPORT_DIRECTORY_KEY);
+    return reportPaths == null || reportPaths.length == 0 ? new String[] {REPORT_DIRECTORY_DEF} : XmlReportFinder.joinBraceGroups(reportPaths);
+  }
+
+  /**
+   * The newest report of every configured directory, and every report matching the configured glob patterns,
+   * each one only once.
+   */
+  private List<java.io.File> findReports() {
+    java.io.File projectDirectory = fileSystem.baseDir();
+    Map<java.io.File, java.io.File> reports = new LinkedHashMap<>();
+    for (String reportPath : reportPaths()) {
+      List<java.io.File> found;
+      if (XmlReportFinder.isGlob(reportPath)) {
+        found = xmlReportFinder.findReports(projectDirectory, reportPath);
+      } else {
+        java.io.File report = xmlReportFinder.findReport(new java.io.File(projectDirectory, reportPath));
+        found = report == null ? Collections.<java.io.File>emptyList() : Collections.singletonList(report);
       }
+      for (java.io.File report : found) {
+        reports.putIfAbsent(report.getAbsoluteFile().toPath().normalize().toFile(), report);
+      }
+    }
+    return new ArrayList<>(reports.values());
+  }
+
+  private ProjectReport loadProjectReport(java.io.File xmlReport, InputFileIndex inputFileIndex, SensorStats stats) {
+    if (sharedReport) {
+      // other modules will need the mutants of their own source files
+      boolean[] loaded = {false};
+      ProjectReport projectReport = sharedProjectReports.get(xmlReport, report -> {
+        loaded[0] = true;
+        return readProjectReport(report, relativePath -> true, MutantField.all(), stats);
+      });
+      if (!loaded[0]) {
+        stats.reportReused();
+      }
+      return projectReport;
+    }
+    if (parserCache) {
+      // the cached report is reused as a whole, so it must be complete
+      return readProjectReport(xmlReport, relativePath -> true, MutantField.all(), stats);
+    }
+    return readProjectReport(xmlReport, inputFileIndex::contains, requiredFields(), stats);
+  }
 
-      /*
-       * report Coverage and Measures regardless of whether rules are active
-       * FIXME: investigate further whether anything should be reported if rules are inactive
-       */
-      if (sourceFileReport.getMutationsKilled() > 0) {
-        addCoverageForKilledMutants(context, inputFile, sourceFileReport);
+  private ProjectReport readProjectReport(java.io.File xmlReport, Predicate<String> relativePathFilter, Set<MutantField> fields, SensorStats stats) {
+    ReportCache.Entry cached = reportCache == null ? null : reportCache.entry(xmlReport);
+    ProjectReport projectReport = cached == null ? null : cached.read();
+    if (projectReport != null) {
+      stats.reportReused();
+    } else {
+      stats.reportRead(xmlReport);
+      projectReport = new ProjectReport();
+      parser.parse(xmlReport, relativePathFilter, fields, projectReport::addMutant);
+      if (cached != null) {
+        cached.write(projectReport);
       }
+    }
+    return projectReport;
+  }
+
+  /**
+   * The optional mutant fields read by the active rules and by the mutations data measure.
+   */
+  private Set<MutantField> requiredFields() {
+    Set<MutantField> fields = EnumSet.noneOf(MutantField.class);
+    if (mutationsData.needsMutants()) {
+      fields.add(MutantField.MUTATED_METHOD);
+      fields.add(MutantField.KILLING_TEST);
+    }
+    if (new ActiveRules(rulesProfile).survivedMutant) {
+      fields.add(MutantField.DESCRIPTION);
+      if (SURVIVED_MUTANT_GROUPING_METHOD.equals(survivedMutantGrouping)) {
+        fields.add(MutantField.MUTATED_METHOD);
+        fields.add(MutantField.METHOD_DESCRIPTION);
+      }
+    }
+    return fields;
+  }
 
-      saveMeasureOnFile(context, inputFile, PitestMetrics.MUTATIONS_NOT_COVERED, sourceFileReport.getMutationsNoCoverage());
-      saveMeasureOnFile(context, inputFile, PitestMetrics.MUTATIONS_GENERATED, sourceFileReport.getMutationsTotal());
-      saveMeasureOnFile(context, inputFile, PitestMetrics.MUTATIONS_KILLED, sourceFileReport.getMutationsKilled());
-      saveMeasureOnFile(context, inputFile, PitestMetrics.MUTATIONS_SURVIVED, sourceFileReport.getMutationsSurvived());
-      saveMeasureOnFile(context, inputFile, PitestMetrics.MUTATIONS_ERROR, sourceFileReport.getMutationsOther());
-      saveMeasureOnFile(context, inputFile, PitestMetrics.MUTATIONS_UNKNOWN, sourceFileReport.getMutationsUnknown());
-      saveMeasureOnFile(context, inputFile, PitestMetrics.MUTATIONS_DATA, sourceFileReport.toJSON());
-
-      /*
-       * Rules-sensitive reporting
-       */
-      if (isSurvivedMutantRuleActive(rulesProfile)) {
-        addIssueForSurvivingMutants(context, inputFile, sourceFileReport);
+  private void processProjectReport(ProjectReport projectReport, InputFileIndex inputFileIndex, SensorContext context, SensorStats stats) {
+    Collection<SourceFileReport> sourceFileReports = projectReport.getSourceFileReports();
+    List<EmissionPlan> plans = stats.time("plan", () -> plan(sourceFileReports, inputFileIndex, new ActiveRules(rulesProfile)));
+    int resolved = 0;
+    Iterator<EmissionPlan> plansInReportOrder = plans.iterator();
+    for (SourceFileReport sourceFileReport : sourceFileReports) {
+      EmissionPlan plan = plansInReportOrder.next();
+      if (plan != null) {
+        resolved++;
       }
+      stats.sourceFileReport(sourceFileReport, plan);
+    }
+    // the context is not thread-safe
+    stats.run("emit", () -> plans.stream().filter(Objects::nonNull).forEach(plan -> plan.replay(context)));
+    if (sharedReport) {
+      LOGGER.debug("{} of the {} source files of the shared report are outside of this module", sourceFileReports.size() - resolved, sourceFileReports.size());
+    }
+  }
 
-      if (isInsufficientMutationCoverageRuleActive(rulesProfile)) {
-        ActiveRule coverageRule = rulesProfile.getActiveRule(REPOSITORY_KEY, INSUFFICIENT_MUTATION_COVERAGE_RULE_KEY);
-        if (!isMutantCoverageThresholdReached(sourceFileReport, coverageRule)) {
-          addIssueForMutantKilledThresholdNotReached(context, inputFile, coverageRule.getParameter(COVERAGE_RATIO_PARAM));
-        }
+  /**
+   * Computes the plans of the source files on a fork-join pool.
+   *
+   * @return the plans in report order, <code>null</code> for the source files that are not of this module
+   */
+  private List<EmissionPlan> plan(Collection<SourceFileReport> sourceFileReports, InputFileIndex inputFileIndex, ActiveRules activeRules) {
+    List<EmissionPlan> plans = new ArrayList<>(sourceFileReports.size());
+    ForkJoinPool pool = new ForkJoinPool(Math.max(1, Math.min(planParallelism, sourceFileReports.size())));
+    try {
+      List<ForkJoinTask<EmissionPlan>> tasks = new ArrayList<>(sourceFileReports.size());
+      for (SourceFileReport sourceFileReport : sourceFileReports) {
+        tasks.add(pool.submit(() -> plan(sourceFileReport, inputFileIndex, activeRules)));
+      }
+      for (ForkJoinTask<EmissionPlan> task : tasks) {
+        plans.add(task.join());
       }
+    } finally {
+      pool.shutdownNow();
     }
+    return plans;
   }
 
-  private <T extends Serializable> void saveMeasureOnFile(SensorContext context, InputFile inputFile, Metric<T> metric, T value) {
-    context.<T>newMeasure()
-      .withValue(value)
-      .forMetric(metric)
-      .on(inputFile)
-      .save();
+  /**
+   * Computes the measures, coverage and issues of a source file, without touching the context.
+   *
+   * @return <code>null</code> if the source file is not one of this module
+   */
+  @CheckForNull
+  private EmissionPlan plan(SourceFileReport sourceFileReport, InputFileIndex inputFileIndex, ActiveRules activeRules) {
+    InputFile inputFile = locateFile(inputFileIndex, sourceFileReport.getRelativePath());
+    if (inputFile == null) {
+      return null;
+    }
+    EmissionPlan.Builder plan = EmissionPlan.builder(inputFile);
+
+    /*
+     * report Coverage and Measures regardless of whether rules are active
+     * FIXME: investigate further whether anything should be reported if rules are inactive
+     */
+    if (sourceFileReport.getMutationsKilled() > 0) {
+      plan.coveredLines(killedLines(sourceFileReport.getStore()));
+    }
+
+    plan.measure(PitestMetrics.MUTATIONS_NOT_COVERED, sourceFileReport.getMutationsNoCoverage())
+      .measure(PitestMetrics.MUTATIONS_GENERATED, sourceFileReport.getMutationsTotal())
+      .measure(PitestMetrics.MUTATIONS_KILLED, sourceFileReport.getMutationsKilled())
+      .measure(PitestMetrics.MUTATIONS_SURVIVED, sourceFileReport.getMutationsSurvived())
+      .measure(PitestMetrics.MUTATIONS_ERROR, sourceFileReport.getMutationsOther())
+      .measure(PitestMetrics.MUTATIONS_UNKNOWN, sourceFileReport.getMutationsUnknown());
+    String data = mutationsData.encode(sourceFileReport.getStore());
+    if (data != null) {
+      plan.measure(PitestMetrics.MUTATIONS_DATA, data);
+    }
+
+    /*
+     * Rules-sensitive reporting
+     */
+    if (activeRules.survivedMutant) {
+      planIssuesForSurvivingMutants(plan, sourceFileReport.getStore());
+    }
+
+    if (activeRules.coverageThreshold != null && !isMutantCoverageThresholdReached(sourceFileReport, activeRules.coverageThreshold)) {
+      planIssueForMutantKilledThresholdNotReached(plan, activeRules.coverageThreshold);
+    }
+    return plan.build();
   }
 
-  private boolean isMutantCoverageThresholdReached(SourceFileReport sourceFileReport, ActiveRule coverageRule) {
+  private boolean isMutantCoverageThresholdReached(SourceFileReport sourceFileReport, String coverageThreshold) {
     int killed = sourceFileReport.getMutationsKilled();
     int total = sourceFileReport.getMutationsTotal();
-    int threshold = Integer.parseInt(coverageRule.getParameter(COVERAGE_RATIO_PARAM));
+    int threshold = Integer.parseInt(coverageThreshold);
 
     return (killed * 100d / total) >= threshold;
   }
 
-  private void addIssueForMutantKilledThresholdNotReached(SensorContext context, InputFile inputFile, String threshold) {
+  private void planIssueForMutantKilledThresholdNotReached(EmissionPlan.Builder plan, String threshold) {
     String issueMsg = "More mutants need to be covered by unit tests to reach the minimum threshold of " + threshold + "% mutant coverage";
 
-    NewIssue newIssue = context.newIssue();
-
-    NewIssueLocation location = newIssue.newLocation()
-      .on(inputFile)
-      .message(issueMsg);
-
-    newIssue.at(location);
-
-    newIssue.forRule(RuleKey.of(REPOSITORY_KEY, INSUFFICIENT_MUTATION_COVERAGE_RULE_KEY));
-    newIssue.save();
+    plan.issue(new IssuePlan(INSUFFICIENT_MUTATION_COVERAGE_RULE, Collections.singletonList(new IssueLocation(IssueLocation.WHOLE_FILE, issueMsg))));
   }
 
-  private void addIssueForSurvivingMutants(SensorContext context, InputFile inputFile, SourceFileReport sourceFileReport) {
-    Collection<Mutant> mutants = sourceFileReport.getMutants();
-    for (Mutant mutant : mutants) {
+  private void planIssuesForSurvivingMutants(EmissionPlan.Builder plan, MutantStore mutants) {
+    if (SURVIVED_MUTANT_GROUPING_LINE.equals(survivedMutantGrouping) || SURVIVED_MUTANT_GROUPING_METHOD.equals(survivedMutantGrouping)) {
+      planGroupedIssuesForSurvivingMutants(plan, mutants);
+      return;
+    }
+    for (int row = 0; row < mutants.size(); row++) {
 
-      if (MutantStatus.SURVIVED.equals(mutant.mutantStatus)) {
-        NewIssue newIssue = context.newIssue()
-          .forRule(RuleKey.of(REPOSITORY_KEY, SURVIVED_MUTANT_RULE_KEY));
+      if (MutantStatus.SURVIVED == mutants.status(row)) {
+        plan.issue(new IssuePlan(SURVIVED_MUTANT_RULE, Collections.singletonList(new IssueLocation(mutants.lineNumber(row), mutants.violationDescription(row)))));
+      }
+    }
+  }
 
-        NewIssueLocation location = newIssue.newLocation()
-          .on(inputFile)
-          .at(inputFile.selectLine(mutant.lineNumber()))
-          .message(mutant.violationDescription());
+  /**
+   * One issue per line or per mutated method: the first survivor is the primary location and the
+   * others are secondary locations, each with its own description.
+   */
+  private void planGroupedIssuesForSurvivingMutants(EmissionPlan.Builder plan, MutantStore mutants) {
+    boolean byMethod = SURVIVED_MUTANT_GROUPING_METHOD.equals(survivedMutantGrouping);
+    Map<Object, List<Integer>> survivorsByGroup = new LinkedHashMap<>();
+    for (int row = 0; row < mutants.size(); row++) {
+      if (MutantStatus.SURVIVED == mutants.status(row)) {
+        Object group = byMethod
+          ? (mutants.className(row) + "." + mutants.mutatedMethod(row) + mutants.methodDescription(row))
+          : Integer.valueOf(mutants.lineNumber(row));
+        survivorsByGroup.computeIfAbsent(group, k -> new ArrayList<>()).add(row);
+      }
+    }
 
-        newIssue.at(location);
-        newIssue.save();
+    for (List<Integer> rows : survivorsByGroup.values()) {
+      rows.sort(Comparator.comparingInt(mutants::lineNumber));
+      int first = rows.get(0);
+      List<IssueLocation> locations = new ArrayList<>(rows.size());
+      locations.add(new IssueLocation(mutants.lineNumber(first), groupedViolationDescription(mutants, rows, byMethod)));
+      for (int row : rows.subList(1, rows.size())) {
+        locations.add(new IssueLocation(mutants.lineNumber(row), mutants.violationDescription(row)));
       }
+      plan.issue(new IssuePlan(SURVIVED_MUTANT_RULE, locations));
     }
   }
 
-  private void addCoverageForKilledMutants(SensorContext context, InputFile inputFile, SourceFileReport sourceFileReport) {
-    Collection<Mutant> mutants = sourceFileReport.getMutants();
-    for (Mutant mutant : mutants) {
-      if (MutantStatus.KILLED.equals(mutant.mutantStatus)) {
-        context.newCoverage()
-          .onFile(inputFile)
-          .lineHits(mutant.lineNumber(), 1)
-          .save();
-      }
+  private static String groupedViolationDescription(MutantStore mutants, List<Integer> rows, boolean byMethod) {
+    if (rows.size() == 1) {
+      return mutants.violationDescription(rows.get(0));
+    }
+    StringBuilder builder = new StringBuilder();
+    builder.append(rows.size()).append(" mutants survived ");
+    if (byMethod) {
+      builder.append("in method ").append(mutants.mutatedMethod(rows.get(0)));
+    } else {
+      builder.append("on this line");
     }
+    builder.append(" without breaking the tests:");
+    Set<String> mutatorDescriptions = new LinkedHashSet<>();
+    for (int row : rows) {
+      mutatorDescriptions.add(mutants.mutator(row).getDescription());
+    }
+    for (String mutatorDescription : mutatorDescriptions) {
+      builder.append(" [").append(mutatorDescription).append("]");
+    }
+    return builder.toString();
   }
 
-  private InputFile locateFile(String sourceFileRelativePath) {
-    FilePredicate filePredicate = fileSystem.predicates().and(
-      fileSystem.predicates().hasType(InputFile.Type.MAIN),
-      fileSystem.predicates().matchesPathPattern("**/" + sourceFileRelativePath));
-    return fileSystem.inputFile(filePredicate);
+  /**
+   * @return the lines of the killed mutants, in increasing order
+   */
+  private static int[] killedLines(MutantStore mutants) {
+    BitSet killedLines = new BitSet();
+    for (int row = 0; row < mutants.size(); row++) {
+      if (MutantStatus.KILLED == mutants.status(row)) {
+        killedLines.set(mutants.lineNumber(row));
+      }
+    }
+    return killedLines.stream().toArray();
   }
 
-  private boolean isSurvivedMutantRuleActive(RulesProfile qualityProfile) {
-    return (qualityProfile.getActiveRule(REPOSITORY_KEY, SURVIVED_MUTANT_RULE_KEY) != null);
+  @CheckForNull
+  private InputFile locateFile(InputFileIndex inputFileIndex, String sourceFileRelativePath) {
+    InputFile inputFile = inputFileIndex.get(sourceFileRelativePath);
+    if (inputFile == null) {
+      List<InputFile> candidates = inputFileIndex.candidates(sourceFileRelativePath);
+      if (candidates.isEmpty() && sharedReport) {
+        // the shared report covers the other modules too
+        LOGGER.debug("Mutation outside of this module: {}", sourceFileRelativePath);
+      } else if (candidates.isEmpty()) {
+        LOGGER.warn("Mutation in an unknown resource: {}", sourceFileRelativePath);
+      } else {
+        LOGGER.warn("Mutation in an ambiguous resource: {} matches {}, skipping it", sourceFileRelativePath, candidates);
+      }
+    }
+    return inputFile;
   }
 
-  private boolean isInsufficientMutationCoverageRuleActive(RulesProfile qualityProfile) {
-    return (qualityProfile.getActiveRule(REPOSITORY_KEY, INSUFFICIENT_MUTATION_COVERAGE_RULE_KEY) != null);
+  /**
+   * The active rules of the quality profile, read once before planning in parallel.
+   */
+  private static final class ActiveRules {
+    private final boolean survivedMutant;
+    @Nullable
+    private final String coverageThreshold;
+
+    ActiveRules(RulesProfile qualityProfile) {
+      this.survivedMutant = qualityProfile.getActiveRule(REPOSITORY_KEY, SURVIVED_MUTANT_RULE_KEY) != null;
+      ActiveRule coverageRule = qualityProfile.getActiveRule(REPOSITORY_KEY, INSUFFICIENT_MUTATION_COVERAGE_RULE_KEY);
+      this.coverageThreshold = coverageRule == null ? null : coverageRule.getParameter(COVERAGE_RATIO_PARAM);
+    }
   }
 
   @Override
@@ -29,21 +29,44 @@ import org.sonar.plugins.pitest.domain.Mutant;
 public class ProjectReport {
 
   private final Map<String, SourceFileReport> sourceFileReports = new HashMap<>();
+  private final StringTable strings;
+
+  public ProjectReport() {
+    this(new StringTable());
+  }
+
+  ProjectReport(StringTable strings) {
+    this.strings = strings;
+  }
 
   public ProjectReport(Collection<Mutant> mutants) {
+    this();
     for (Mutant mutant : mutants) {
-      String relativePath = mutant.sourceRelativePath();
-      final SourceFileReport sourceFileReport;
-      if (sourceFileReports.containsKey(relativePath)) {
-        sourceFileReport = sourceFileReports.get(relativePath);
-      } else {
-        sourceFileReport = new SourceFileReport(relativePath);
-        sourceFileReports.put(relativePath, sourceFileReport);
-      }
-      sourceFileReport.addMutant(mutant);
+      addMutant(mutant);
     }
   }
 
+  /**
+   * Folds a single mutant into the report of its source file. Used as the consumer of
+   * {@link XmlReportParser#parse(java.io.File, java.util.function.Consumer)}.
+   */
+  public void addMutant(Mutant mutant) {
+    sourceFileReport(mutant.sourceRelativePath()).addMutant(mutant);
+  }
+
+  SourceFileReport sourceFileReport(String relativePath) {
+    SourceFileReport sourceFileReport = sourceFileReports.get(relativePath);
+    if (sourceFileReport == null) {
+      sourceFileReport = new SourceFileReport(relativePath, strings);
+      sourceFileReports.put(relativePath, sourceFileReport);
+    }
+    return sourceFileReport;
+  }
+
+  StringTable getStrings() {
+    return strings;
+  }
+
   public Collection<SourceFileReport> getSourceFileReports() {
     return sourceFileReports.values();
   }
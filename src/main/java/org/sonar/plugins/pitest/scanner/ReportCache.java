@@ -0,0 +1,221 @@
+/*
+ * Sonar Pitest Plugin
+ * Copyright (C) 2009-2018 Vinod Anandan
+ * vinod@owasp.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.pitest.scanner;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import javax.annotation.CheckForNull;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.plugins.pitest.domain.MutantStatus;
+import org.sonar.plugins.pitest.domain.Mutator;
+
+/**
+ * Binary copy of the {@link ProjectReport} parsed from a PIT report, so that analysing the same report again
+ * is a sequential read of the string table and mutant columns instead of an XML parse.
+ * <p>
+ * Copies are written into a cache directory of the plugin, never into the build output holding the report:
+ * the scanner wipes its own working directory at the start of every analysis. A copy is named after the canonical
+ * path of its report, and keyed by the size, last modification time and CRC32 of the report, and by the layout of
+ * this version of the plugin; any mismatch, or any problem reading or writing it, means a parse of the report.
+ * <p>
+ * PIT writes each run into a new timestamped directory, so most copies are never read again once a newer report
+ * exists. Every write prunes the copies not written nor reused for {@value #MAX_AGE_DAYS} days, and the least
+ * recently used copies beyond the {@value #MAX_ENTRIES} most recent ones.
+ */
+final class ReportCache {
+
+  private static final Logger LOGGER = Loggers.get(ReportCache.class);
+
+  static final String SUFFIX = ".sonar-pitest.cache";
+
+  private static final int MAGIC = 0x50495443;
+  private static final int VERSION = 1;
+  private static final int BUFFER_SIZE = 1 << 16;
+  static final int MAX_ENTRIES = 100;
+  static final long MAX_AGE_DAYS = 30;
+
+  private final File directory;
+
+  ReportCache(File directory) {
+    this.directory = directory;
+  }
+
+  Entry entry(File report) {
+    return new Entry(report, cacheFile(report));
+  }
+
+  File cacheFile(File report) {
+    String path;
+    try {
+      path = report.getCanonicalPath();
+    } catch (IOException e) {
+      path = report.getAbsolutePath();
+    }
+    return new File(directory, report.getName() + "-" + UUID.nameUUIDFromBytes(path.getBytes(StandardCharsets.UTF_8)) + SUFFIX);
+  }
+
+  /**
+   * The cached copy of one report. The checksum of the report is computed at most once, when a read gets that far
+   * or on write, so a cache miss reads the report once for the parse and once for the checksum.
+   */
+  static final class Entry {
+    private final File report;
+    private final File cacheFile;
+    private final long length;
+    private final long lastModified;
+    private long checksum;
+    private boolean checksummed;
+
+    private Entry(File report, File cacheFile) {
+      this.report = report;
+      this.cacheFile = cacheFile;
+      this.length = report.length();
+      this.lastModified = report.lastModified();
+    }
+
+    @CheckForNull
+    ProjectReport read() {
+      if (!cacheFile.isFile()) {
+        return null;
+      }
+      try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(cacheFile.toPath()), BUFFER_SIZE))) {
+        if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readInt() != MutantStatus.values().length || in.readInt() != Mutator.values().length
+          || in.readLong() != length || in.readLong() != lastModified || in.readLong() != checksum()) {
+          LOGGER.debug("Cached copy of {} is out of date", report);
+          return null;
+        }
+        StringTable strings = new StringTable();
+        strings.readFrom(in);
+        ProjectReport projectReport = new ProjectReport(strings);
+        int sourceFiles = in.readInt();
+        for (int i = 0; i < sourceFiles; i++) {
+          projectReport.sourceFileReport(in.readUTF()).readRows(in);
+        }
+        // keeps the copy from being pruned as long as it is reused
+        cacheFile.setLastModified(System.currentTimeMillis());
+        LOGGER.info("Reusing cached copy of {}", report);
+        return projectReport;
+      } catch (IOException | RuntimeException e) {
+        LOGGER.warn("Unable to read cached copy of {}, parsing the report", report, e);
+        return null;
+      }
+    }
+
+    void write(ProjectReport projectReport) {
+      Path temporaryFile = null;
+      try {
+        Path cacheDirectory = Files.createDirectories(cacheFile.getParentFile().toPath());
+        // unique, as analyses of other projects may share the directory
+        temporaryFile = Files.createTempFile(cacheDirectory, cacheFile.getName(), ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile), BUFFER_SIZE))) {
+          out.writeInt(MAGIC);
+          out.writeInt(VERSION);
+          out.writeInt(MutantStatus.values().length);
+          out.writeInt(Mutator.values().length);
+          out.writeLong(length);
+          out.writeLong(lastModified);
+          out.writeLong(checksum());
+          projectReport.getStrings().writeTo(out);
+          Collection<SourceFileReport> sourceFileReports = projectReport.getSourceFileReports();
+          out.writeInt(sourceFileReports.size());
+          for (SourceFileReport sourceFileReport : sourceFileReports) {
+            out.writeUTF(sourceFileReport.getRelativePath());
+            sourceFileReport.getStore().writeRows(out);
+          }
+        }
+        Files.move(temporaryFile, cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        prune(cacheDirectory.toFile(), cacheFile);
+      } catch (IOException e) {
+        LOGGER.warn("Unable to write cached copy of {}", report, e);
+        try {
+          if (temporaryFile != null) {
+            Files.deleteIfExists(temporaryFile);
+          }
+        } catch (IOException ignored) {
+          // nothing left to do, the next analysis parses the report again
+        }
+      }
+    }
+
+    File cacheFile() {
+      return cacheFile;
+    }
+
+    private long checksum() throws IOException {
+      if (!checksummed) {
+        checksum = ReportCache.checksum(report);
+        checksummed = true;
+      }
+      return checksum;
+    }
+  }
+
+  /**
+   * Deletes the copies of the directory older than {@value #MAX_AGE_DAYS} days or beyond the {@value #MAX_ENTRIES}
+   * most recent ones, except the copy just written. Copies in use by another analysis are at worst written again.
+   */
+  static void prune(File directory, File written) {
+    File[] copies = directory.listFiles((dir, name) -> name.endsWith(SUFFIX));
+    if (copies == null) {
+      return;
+    }
+    long oldest = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(MAX_AGE_DAYS);
+    Arrays.sort(copies, Comparator.comparingLong(File::lastModified).reversed());
+    for (int i = 0; i < copies.length; i++) {
+      File copy = copies[i];
+      if (!copy.equals(written) && (i >= MAX_ENTRIES || copy.lastModified() < oldest)) {
+        try {
+          Files.deleteIfExists(copy.toPath());
+          LOGGER.debug("Pruned cached copy {}", copy);
+        } catch (IOException e) {
+          LOGGER.debug("Unable to prune cached copy {}", copy, e);
+        }
+      }
+    }
+  }
+
+  static long checksum(File report) throws IOException {
+    CRC32 crc = new CRC32();
+    byte[] buffer = new byte[BUFFER_SIZE];
+    try (InputStream in = Files.newInputStream(report.toPath())) {
+      int read;
+      while ((read = in.read(buffer)) >= 0) {
+        crc.update(buffer, 0, read);
+      }
+    }
+    return crc.getValue();
+  }
+}
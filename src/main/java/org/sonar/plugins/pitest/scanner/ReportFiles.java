@@ -0,0 +1,175 @@
+/*
+ * Sonar Pitest Plugin
+ * Copyright (C) 2009-2018 Vinod Anandan
+ * vinod@owasp.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.pitest.scanner;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Enumeration;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import javax.annotation.CheckForNull;
+
+/**
+ * The forms a PIT report can be found in: the plain <code>mutations.xml</code> or <code>mutations.csv</code>,
+ * the same gzipped (<code>mutations.xml.gz</code>), or a zip archive of the report directory holding one of them.
+ * Compressed reports are read as a stream, nothing is extracted to disk. The binary <code>mutations.bin</code>,
+ * see {@link BinaryReportParser}, is only read memory-mapped, so it is never compressed.
+ */
+final class ReportFiles {
+
+  static final String REPORT_NAME = "mutations.xml";
+  static final String CSV_REPORT_NAME = "mutations.csv";
+  static final String BINARY_REPORT_NAME = "mutations.bin";
+  private static final String GZIP_SUFFIX = ".gz";
+  private static final String ZIP_SUFFIX = ".zip";
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private ReportFiles() {
+  }
+
+  /**
+   * Whether a file name is the one of a plain or gzipped report. Zip archives are only reports if they hold
+   * one, see {@link #isZip(String)} and {@link #reportEntry(ZipFile)}.
+   */
+  static boolean isReportName(String name) {
+    return name.endsWith(REPORT_NAME) || name.endsWith(REPORT_NAME + GZIP_SUFFIX)
+      || name.endsWith(CSV_REPORT_NAME) || name.endsWith(CSV_REPORT_NAME + GZIP_SUFFIX) || name.endsWith(BINARY_REPORT_NAME);
+  }
+
+  static boolean isBinary(File report) {
+    return report.getName().endsWith(BINARY_REPORT_NAME);
+  }
+
+  /**
+   * @return whether the report is in PIT's CSV format, the content of a zip archive being that of its report entry
+   */
+  static boolean isCsv(File report) {
+    String name = report.getName();
+    if (isZip(name)) {
+      try (ZipFile zip = new ZipFile(report)) {
+        ZipEntry entry = reportEntry(zip);
+        return entry != null && entry.getName().endsWith(CSV_REPORT_NAME);
+      } catch (IOException e) {
+        return false;
+      }
+    }
+    return name.endsWith(CSV_REPORT_NAME) || name.endsWith(CSV_REPORT_NAME + GZIP_SUFFIX);
+  }
+
+  static boolean isZip(String name) {
+    return name.endsWith(ZIP_SUFFIX);
+  }
+
+  static boolean isCompressed(File report) {
+    String name = report.getName();
+    return name.endsWith(GZIP_SUFFIX) || isZip(name);
+  }
+
+  /**
+   * @return whether the file is a zip archive holding a report
+   */
+  static boolean isZippedReport(File file) {
+    try (ZipFile zip = new ZipFile(file)) {
+      return reportEntry(zip) != null;
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
+  /**
+   * @return the report entry in the greatest directory, which for timestamped report directories is the newest
+   * one, preferring the CSV report when PIT wrote both formats, or <code>null</code> if there is none
+   */
+  @CheckForNull
+  static ZipEntry reportEntry(ZipFile zip) {
+    ZipEntry report = null;
+    Enumeration<? extends ZipEntry> entries = zip.entries();
+    while (entries.hasMoreElements()) {
+      ZipEntry entry = entries.nextElement();
+      if (!entry.isDirectory() && reportFormat(entry.getName()) != null && (report == null || isNewerEntry(entry.getName(), report.getName()))) {
+        report = entry;
+      }
+    }
+    return report;
+  }
+
+  @CheckForNull
+  private static String reportFormat(String entryName) {
+    for (String reportName : new String[] {CSV_REPORT_NAME, REPORT_NAME}) {
+      if (reportName.equals(entryName) || entryName.endsWith("/" + reportName)) {
+        return reportName;
+      }
+    }
+    return null;
+  }
+
+  private static boolean isNewerEntry(String entryName, String reportName) {
+    String directory = entryName.substring(0, entryName.length() - reportFormat(entryName).length());
+    int order = directory.compareTo(reportName.substring(0, reportName.length() - reportFormat(reportName).length()));
+    return order > 0 || (order == 0 && entryName.endsWith(CSV_REPORT_NAME));
+  }
+
+  /**
+   * Maps a plain report read-only, for the parsers reading its bytes in place.
+   */
+  static MappedByteBuffer map(File report) {
+    try (FileChannel channel = FileChannel.open(report.toPath(), StandardOpenOption.READ)) {
+      return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to read PIT report " + report, e);
+    }
+  }
+
+  /**
+   * Opens the uncompressed content of a report, in any of its forms.
+   */
+  static InputStream open(File report) throws IOException {
+    String name = report.getName();
+    if (name.endsWith(GZIP_SUFFIX)) {
+      return new GZIPInputStream(new FileInputStream(report), BUFFER_SIZE);
+    }
+    if (isZip(name)) {
+      ZipFile zip = new ZipFile(report);
+      ZipEntry entry = reportEntry(zip);
+      if (entry == null) {
+        zip.close();
+        throw new IOException("No PIT report in " + report);
+      }
+      return new FilterInputStream(zip.getInputStream(entry)) {
+        @Override
+        public void close() throws IOException {
+          try {
+            super.close();
+          } finally {
+            zip.close();
+          }
+        }
+      };
+    }
+    return new FileInputStream(report);
+  }
+}
@@ -0,0 +1,200 @@
+/*
+ * Sonar Pitest Plugin
+ * Copyright (C) 2009-2018 Vinod Anandan
+ * vinod@owasp.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.pitest.scanner;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Predicate;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.plugins.pitest.domain.MutantStatus;
+import org.sonar.plugins.pitest.domain.Mutator;
+
+/**
+ * Parses several PIT reports concurrently, on a pool bounded by the number of processors, and merges them
+ * into one {@link ProjectReport}.
+ * <p>
+ * The same mutant can be found in several reports, for instance when the tests are split in shards that each
+ * run PIT on the same classes. It is identified by the fields every report format holds: class, method, line
+ * number and mutator. Mutants sharing them within one report are told apart by their order, the n-th one of a
+ * report being the n-th one of the others. A mutant is counted once, with the most conclusive status: a mutant
+ * killed by the tests of one shard is killed, whatever the other shards say.
+ * <p>
+ * Each report is parsed into its own columnar {@link ProjectReport}, then the rows are merged source file by
+ * source file, without building a {@link org.sonar.plugins.pitest.domain.Mutant} for them.
+ */
+final class ReportMerger {
+
+  private static final Logger LOG = Loggers.get(ReportMerger.class);
+
+  /**
+   * Fields needed to tell mutants apart, on top of the ones the caller asks for.
+   */
+  private static final Set<MutantField> IDENTITY_FIELDS = EnumSet.of(MutantField.MUTATED_METHOD);
+
+  private final XmlReportParser parser;
+  private final int parallelism;
+
+  ReportMerger(XmlReportParser parser) {
+    this(parser, Runtime.getRuntime().availableProcessors());
+  }
+
+  ReportMerger(XmlReportParser parser, int parallelism) {
+    this.parser = parser;
+    this.parallelism = parallelism;
+  }
+
+  ProjectReport merge(List<File> reports, Predicate<String> relativePathFilter, Set<MutantField> fields) {
+    Set<MutantField> parsedFields = EnumSet.copyOf(IDENTITY_FIELDS);
+    parsedFields.addAll(fields);
+
+    // the stores of every source file, in report order, whatever order the reports are parsed in
+    Map<String, List<MutantStore>> storesByPath = new LinkedHashMap<>();
+    ForkJoinPool pool = new ForkJoinPool(Math.max(1, Math.min(parallelism, reports.size())));
+    try {
+      List<ForkJoinTask<ProjectReport>> tasks = new ArrayList<>();
+      for (File report : reports) {
+        tasks.add(pool.submit(() -> {
+          ProjectReport projectReport = new ProjectReport();
+          parser.parse(report, relativePathFilter, parsedFields, projectReport::addMutant);
+          return projectReport;
+        }));
+      }
+      for (ForkJoinTask<ProjectReport> task : tasks) {
+        for (SourceFileReport sourceFileReport : task.join().getSourceFileReports()) {
+          storesByPath.computeIfAbsent(sourceFileReport.getRelativePath(), path -> new ArrayList<>()).add(sourceFileReport.getStore());
+        }
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+
+    ProjectReport projectReport = new ProjectReport();
+    int parsed = 0;
+    int merged = 0;
+    for (Map.Entry<String, List<MutantStore>> entry : storesByPath.entrySet()) {
+      SourceFileReport sourceFileReport = projectReport.sourceFileReport(entry.getKey());
+      merge(entry.getValue(), sourceFileReport);
+      for (MutantStore store : entry.getValue()) {
+        parsed += store.size();
+      }
+      merged += sourceFileReport.getMutationsTotal();
+    }
+    LOG.debug("Merged {} reports: {} mutants, {} of them duplicates", reports.size(), parsed, parsed - merged);
+    return projectReport;
+  }
+
+  /**
+   * Appends to the report the most conclusive row of every mutant of the stores of one source file.
+   */
+  private static void merge(List<MutantStore> stores, SourceFileReport sourceFileReport) {
+    // store index in the high bits, row in the low bits
+    long[] chosen = new long[stores.get(0).size()];
+    int count = 0;
+    Map<MutantKey, List<Integer>> positionsByKey = new HashMap<>();
+    for (int storeIndex = 0; storeIndex < stores.size(); storeIndex++) {
+      MutantStore store = stores.get(storeIndex);
+      Map<MutantKey, Integer> occurrences = new HashMap<>();
+      for (int row = 0; row < store.size(); row++) {
+        MutantKey key = new MutantKey(store, row);
+        int occurrence = occurrences.merge(key, 1, Integer::sum) - 1;
+        List<Integer> positions = positionsByKey.computeIfAbsent(key, k -> new ArrayList<>(1));
+        if (occurrence < positions.size()) {
+          int position = positions.get(occurrence);
+          MutantStore current = stores.get((int) (chosen[position] >>> 32));
+          if (rank(store.status(row)) > rank(current.status((int) chosen[position]))) {
+            chosen[position] = ((long) storeIndex << 32) | row;
+          }
+        } else {
+          if (count == chosen.length) {
+            chosen = Arrays.copyOf(chosen, Math.max(8, count * 2));
+          }
+          positions.add(count);
+          chosen[count++] = ((long) storeIndex << 32) | row;
+        }
+      }
+    }
+    for (int i = 0; i < count; i++) {
+      sourceFileReport.addRow(stores.get((int) (chosen[i] >>> 32)), (int) chosen[i]);
+    }
+  }
+
+  private static int rank(MutantStatus status) {
+    switch (status) {
+      case KILLED:
+        return 4;
+      case OTHER:
+        return 3;
+      case SURVIVED:
+        return 2;
+      case NO_COVERAGE:
+        return 1;
+      default:
+        return 0;
+    }
+  }
+
+  private static final class MutantKey {
+    private final String className;
+    private final String mutatedMethod;
+    private final int lineNumber;
+    private final Mutator mutator;
+    private final int hash;
+
+    MutantKey(MutantStore store, int row) {
+      this.className = store.className(row);
+      this.mutatedMethod = store.mutatedMethod(row);
+      this.lineNumber = store.lineNumber(row);
+      this.mutator = store.mutator(row);
+      this.hash = Objects.hash(className, mutatedMethod, lineNumber, mutator);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof MutantKey)) {
+        return false;
+      }
+      MutantKey other = (MutantKey) o;
+      return hash == other.hash
+        && lineNumber == other.lineNumber
+        && mutator == other.mutator
+        && Objects.equals(className, other.className)
+        && Objects.equals(mutatedMethod, other.mutatedMethod);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+}
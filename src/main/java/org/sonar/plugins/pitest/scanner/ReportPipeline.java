@@ -0,0 +1,235 @@
+/*
+ * Sonar Pitest Plugin
+ * Copyright (C) 2009-2018 Vinod Anandan
+ * vinod@owasp.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.pitest.scanner;
+
+import java.io.File;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.plugins.pitest.domain.Mutant;
+
+import static org.sonar.plugins.pitest.PitestConstants.PIPELINE_WINDOW_KEY;
+
+/**
+ * Parses a report on a separate thread and hands the report of each source file to the calling thread as soon
+ * as it is complete, so that saving measures, coverage and issues overlaps the parse.
+ * <p>
+ * PIT does not group its report by source file: the mutants of a class come together, but inner classes are
+ * analysed on their own. A source file is taken as complete once <code>window</code> other source files have
+ * been met after its last mutant; at most <code>window</code> files are open and as many queued, which caps the
+ * memory used. As the measures of a file can only be saved once, {@link #isGrouped} first tells whether the
+ * report fits the window, reading only the source file of each mutant; reports that do not are to be read as a
+ * whole.
+ */
+final class ReportPipeline {
+
+  private static final Logger LOGGER = Loggers.get(ReportPipeline.class);
+
+  /**
+   * Marks the end of the parse in the queue.
+   */
+  private static final SourceFileReport END = new SourceFileReport("");
+
+  private final XmlReportParser parser;
+  private final int window;
+
+  ReportPipeline(XmlReportParser parser, int window) {
+    this.parser = parser;
+    this.window = Math.max(1, window);
+  }
+
+  /**
+   * @return whether no source file passing the filter is met again once <code>window</code> other source files
+   * were met after its last mutant. Stops at the first one that is.
+   */
+  boolean isGrouped(File report, Predicate<String> relativePathFilter) {
+    OrderCheck check = new OrderCheck();
+    try {
+      parser.parse(report, relativePathFilter, EnumSet.noneOf(MutantField.class), check);
+      return true;
+    } catch (ReopenedSourceFile e) {
+      LOGGER.info("The mutants of {} are spread over more than {} source files of {}, the report is read as a whole: raise {} to pipeline it",
+        e.relativePath, window, report, PIPELINE_WINDOW_KEY);
+      return false;
+    }
+  }
+
+  void run(File report, Predicate<String> relativePathFilter, Set<MutantField> fields, Consumer<SourceFileReport> consumer) {
+    BlockingQueue<SourceFileReport> queue = new ArrayBlockingQueue<>(window + 1);
+    Producer producer = new Producer(queue);
+    ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "pitest-report-parser");
+      thread.setDaemon(true);
+      return thread;
+    });
+    try {
+      Future<?> parse = executor.submit(() -> {
+        try {
+          parser.parse(report, relativePathFilter, fields, producer);
+          producer.flush();
+        } finally {
+          producer.end();
+        }
+        return null;
+      });
+      for (SourceFileReport sourceFileReport = queue.take(); sourceFileReport != END; sourceFileReport = queue.take()) {
+        consumer.accept(sourceFileReport);
+      }
+      parse.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while processing " + report, e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof ReopenedSourceFile) {
+        // the report changed since it was checked, or was not
+        throw new IllegalStateException("Mutants of " + ((ReopenedSourceFile) e.getCause()).relativePath + " met after its measures were saved, "
+          + report + " is not grouped by source file within " + window + " files");
+      }
+      throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new IllegalStateException(e.getCause());
+    } finally {
+      // stops the parse if the consumer failed
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * The source files open in the window, most recently met last, and those that left it.
+   */
+  private abstract class Window<T> implements Consumer<Mutant> {
+    final Map<String, T> open = new LinkedHashMap<>(16, 0.75f, true);
+    private final Set<String> handedOver = new HashSet<>();
+
+    @Override
+    public void accept(Mutant mutant) {
+      String relativePath = mutant.sourceRelativePath();
+      T file = open.get(relativePath);
+      if (file == null) {
+        if (handedOver.contains(relativePath)) {
+          throw new ReopenedSourceFile(relativePath);
+        }
+        file = open(relativePath);
+        open.put(relativePath, file);
+        if (open.size() > window) {
+          Iterator<Map.Entry<String, T>> eldest = open.entrySet().iterator();
+          Map.Entry<String, T> entry = eldest.next();
+          handedOver.add(entry.getKey());
+          handOver(entry.getValue());
+          eldest.remove();
+        }
+      }
+      add(file, mutant);
+    }
+
+    abstract T open(String relativePath);
+
+    abstract void add(T file, Mutant mutant);
+
+    abstract void handOver(T file);
+  }
+
+  /**
+   * Only follows the source files.
+   */
+  private final class OrderCheck extends Window<Boolean> {
+    @Override
+    Boolean open(String relativePath) {
+      return Boolean.TRUE;
+    }
+
+    @Override
+    void add(Boolean file, Mutant mutant) {
+      // only the order matters
+    }
+
+    @Override
+    void handOver(Boolean file) {
+      // nothing to hand over
+    }
+  }
+
+  /**
+   * Runs on the parser thread.
+   */
+  private final class Producer extends Window<SourceFileReport> {
+    private final BlockingQueue<SourceFileReport> queue;
+
+    Producer(BlockingQueue<SourceFileReport> queue) {
+      this.queue = queue;
+    }
+
+    @Override
+    SourceFileReport open(String relativePath) {
+      return new SourceFileReport(relativePath);
+    }
+
+    @Override
+    void add(SourceFileReport file, Mutant mutant) {
+      file.addMutant(mutant);
+    }
+
+    void flush() {
+      for (SourceFileReport sourceFileReport : open.values()) {
+        handOver(sourceFileReport);
+      }
+      open.clear();
+    }
+
+    void end() throws InterruptedException {
+      queue.put(END);
+    }
+
+    @Override
+    void handOver(SourceFileReport sourceFileReport) {
+      try {
+        queue.put(sourceFileReport);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Parse of the report interrupted", e);
+      }
+    }
+  }
+
+  /**
+   * Stops the parse when a source file already handed over is met again.
+   */
+  private static final class ReopenedSourceFile extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final String relativePath;
+
+    ReopenedSourceFile(String relativePath) {
+      super(relativePath, null, false, false);
+      this.relativePath = relativePath;
+    }
+  }
+}
@@ -0,0 +1,165 @@
+/*
+ * Sonar Pitest Plugin
+ * Copyright (C) 2009-2018 Vinod Anandan
+ * vinod@owasp.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.pitest.scanner;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+import org.sonar.api.batch.fs.FileSystem;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+/**
+ * Wall time of the phases of one execution of the {@link PitestSensor}, and counters of what they did: size of
+ * the reports actually parsed, reports reused from the parse cache or from another module, mutants of the source
+ * files of the module, source files resolved or not, issues raised and lines covered. Logged as one line at INFO level, and written as JSON into the scanner working directory so that
+ * CI can track them across analyses.
+ * <p>
+ * Phases run one after the other, except when the report is pipelined: then the 'pipeline' phase includes the
+ * 'plan' and 'emit' ones. The peak retained heap is an estimate, the highest used heap seen at the end of a phase.
+ * Not thread-safe: only the sensor thread records into it.
+ */
+final class SensorStats {
+
+  private static final Logger LOGGER = Loggers.get(SensorStats.class);
+
+  static final String FILE_NAME = "pitest-sensor-stats.json";
+
+  private final Map<String, Long> phaseNanos = new LinkedHashMap<>();
+  private long bytesRead;
+  private int reportsReused;
+  private long moduleMutants;
+  private int filesResolved;
+  private int filesUnresolved;
+  private int issues;
+  private int coveredLines;
+  private long peakHeapBytes;
+
+  <T> T time(String phase, Supplier<T> work) {
+    long start = System.nanoTime();
+    try {
+      return work.get();
+    } finally {
+      phaseNanos.merge(phase, System.nanoTime() - start, Long::sum);
+      sampleHeap();
+    }
+  }
+
+  void run(String phase, Runnable work) {
+    time(phase, () -> {
+      work.run();
+      return null;
+    });
+  }
+
+  /**
+   * A report parsed from scratch, as many times as it is.
+   */
+  void reportRead(File report) {
+    bytesRead += report.length();
+  }
+
+  /**
+   * A report served by the parse cache, or already parsed by another module: none of its bytes are read.
+   */
+  void reportReused() {
+    reportsReused++;
+  }
+
+  void sourceFileReport(SourceFileReport sourceFileReport, @Nullable EmissionPlan plan) {
+    if (plan == null) {
+      filesUnresolved++;
+    } else {
+      // a shared report holds the mutants of every module, only those of the files of this module count
+      moduleMutants += sourceFileReport.getMutationsTotal();
+      filesResolved++;
+      issues += plan.issues().size();
+      coveredLines += plan.coveredLineCount();
+    }
+  }
+
+  private void sampleHeap() {
+    Runtime runtime = Runtime.getRuntime();
+    peakHeapBytes = Math.max(peakHeapBytes, runtime.totalMemory() - runtime.freeMemory());
+  }
+
+  long millis(String phase) {
+    return TimeUnit.NANOSECONDS.toMillis(phaseNanos.getOrDefault(phase, 0L));
+  }
+
+  /**
+   * @return the mutants of the module per second of the phase reading the report, 0 if it took no measurable time.
+   * Not the parse throughput: the mutants of other modules are scanned too, and reused reports are not parsed.
+   */
+  long moduleMutantsPerSecond() {
+    long nanos = phaseNanos.getOrDefault("parse", 0L) + phaseNanos.getOrDefault("pipeline", 0L);
+    return nanos == 0 ? 0 : moduleMutants * TimeUnit.SECONDS.toNanos(1) / nanos;
+  }
+
+  void log() {
+    StringBuilder phases = new StringBuilder();
+    for (String phase : phaseNanos.keySet()) {
+      phases.append(phase).append(' ').append(millis(phase)).append(" ms, ");
+    }
+    LOGGER.info("Pitest sensor: {}{} bytes read, {} reports reused, {} mutants of the module ({}/s), {} files resolved, {} unresolved, {} issues, "
+      + "{} covered lines, ~{} MB peak heap",
+      phases, bytesRead, reportsReused, moduleMutants, moduleMutantsPerSecond(), filesResolved, filesUnresolved, issues, coveredLines, peakHeapBytes >> 20);
+  }
+
+  /**
+   * Writes the JSON copy into the working directory of the scanner; failing to do so never fails the analysis.
+   */
+  void write(FileSystem fileSystem) {
+    try {
+      File file = new File(fileSystem.workDir(), FILE_NAME);
+      Files.write(file.toPath(), toJson().getBytes(StandardCharsets.UTF_8));
+      LOGGER.debug("Pitest sensor statistics written to {}", file);
+    } catch (IOException | RuntimeException e) {
+      LOGGER.warn("Unable to write the Pitest sensor statistics", e);
+    }
+  }
+
+  String toJson() {
+    StringBuilder builder = new StringBuilder(256);
+    builder.append("{\"phasesMs\":{");
+    String separator = "";
+    for (String phase : phaseNanos.keySet()) {
+      builder.append(separator).append('"').append(phase).append("\":").append(millis(phase));
+      separator = ",";
+    }
+    builder.append("},\"bytesRead\":").append(bytesRead)
+      .append(",\"reportsReused\":").append(reportsReused)
+      .append(",\"moduleMutants\":").append(moduleMutants)
+      .append(",\"moduleMutantsPerSecond\":").append(moduleMutantsPerSecond())
+      .append(",\"filesResolved\":").append(filesResolved)
+      .append(",\"filesUnresolved\":").append(filesUnresolved)
+      .append(",\"issues\":").append(issues)
+      .append(",\"coveredLines\":").append(coveredLines)
+      .append(",\"peakHeapBytes\":").append(peakHeapBytes)
+      .append('}');
+    return builder.toString();
+  }
+}
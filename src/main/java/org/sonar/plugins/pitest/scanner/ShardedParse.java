@@ -0,0 +1,72 @@
+/*
+ * Sonar Pitest Plugin
+ * Copyright (C) 2009-2018 Vinod Anandan
+ * vinod@owasp.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.pitest.scanner;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Parses the shards of a memory-mapped report on a fork-join pool and hands their mutants to the consumer in report
+ * order, on the calling thread. Only <code>parallelism</code> shards are parsed ahead of the one being consumed, so
+ * the mutants held at once are bounded by the size of a few shards rather than by the size of the report.
+ */
+final class ShardedParse {
+
+  /**
+   * Target size of a shard: reports are cut into more shards than threads, so that look-ahead bounds memory.
+   */
+  static final long SHARD_BYTES = 8L * 1024L * 1024L;
+
+  private ShardedParse() {
+  }
+
+  /**
+   * @return how many shards to cut content of the given length into
+   */
+  static int shardCount(long length, int parallelism) {
+    return (int) Math.max(parallelism, Math.min(Integer.MAX_VALUE, length / SHARD_BYTES));
+  }
+
+  static <T> void inOrder(int parallelism, List<Supplier<List<T>>> shards, Consumer<T> consumer) {
+    ForkJoinPool pool = new ForkJoinPool(parallelism);
+    try {
+      Deque<ForkJoinTask<List<T>>> ahead = new ArrayDeque<>(parallelism);
+      int next = 0;
+      while (next < shards.size() && ahead.size() < parallelism) {
+        ahead.add(pool.submit(shards.get(next++)::get));
+      }
+      while (!ahead.isEmpty()) {
+        List<T> parsed = ahead.poll().join();
+        if (next < shards.size()) {
+          // keep the pool busy while this shard is consumed
+          ahead.add(pool.submit(shards.get(next++)::get));
+        }
+        parsed.forEach(consumer);
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+}
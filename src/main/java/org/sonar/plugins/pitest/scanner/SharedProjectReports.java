@@ -0,0 +1,56 @@
+/*
+ * Sonar Pitest Plugin
+ * Copyright (C) 2009-2018 Vinod Anandan
+ * vinod@owasp.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.pitest.scanner;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import org.sonar.api.batch.InstantiationStrategy;
+import org.sonar.api.batch.ScannerSide;
+
+/**
+ * Project reports parsed during the whole analysis, shared by the sensors of all the modules. When every module
+ * points at the same aggregated PIT report, it is parsed by the first module and only looked up by the others.
+ */
+@ScannerSide
+@InstantiationStrategy(InstantiationStrategy.PER_BATCH)
+public class SharedProjectReports {
+
+  private final Map<String, ProjectReport> projectReports = new ConcurrentHashMap<>();
+
+  ProjectReport get(File xmlReport, Function<File, ProjectReport> loader) {
+    return projectReports.computeIfAbsent(canonicalPath(xmlReport), path -> loader.apply(xmlReport));
+  }
+
+  int size() {
+    return projectReports.size();
+  }
+
+  private static String canonicalPath(File xmlReport) {
+    try {
+      return xmlReport.getCanonicalPath();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
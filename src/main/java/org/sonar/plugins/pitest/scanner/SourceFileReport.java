@@ -19,21 +19,20 @@
  */
 package org.sonar.plugins.pitest.scanner;
 
-import java.util.ArrayList;
+import java.io.DataInput;
+import java.io.IOException;
+import java.util.AbstractList;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
+import javax.annotation.CheckForNull;
 import org.sonar.plugins.pitest.domain.Mutant;
+import org.sonar.plugins.pitest.domain.MutantStatus;
 
 /**
- * Mutants for a given java source file
+ * Mutants for a given java source file, kept in a column-oriented {@link MutantStore}
  */
 public class SourceFileReport {
   private final String sourceFileRelativePath;
-  private final List<Mutant> mutants = new ArrayList<>();
+  private final MutantStore mutants;
   private int mutationsNoCoverage = 0;
   private int mutationsKilled = 0;
   private int mutationsSurvived = 0;
@@ -41,41 +40,21 @@ public class SourceFileReport {
   private int mutationsUnknown = 0;
 
   public SourceFileReport(String sourceFileRelativePath) {
+    this(sourceFileRelativePath, new StringTable());
+  }
+
+  SourceFileReport(String sourceFileRelativePath, StringTable strings) {
     this.sourceFileRelativePath = sourceFileRelativePath;
+    this.mutants = new MutantStore(strings);
   }
 
+  /**
+   * @return the value of the mutations data measure, see {@link MutationsJsonWriter}, or <code>null</code> if
+   * there is no mutant
+   */
+  @CheckForNull
   public String toJSON() {
-    if (mutants.isEmpty()) {
-      return null;
-    }
-    Map<Integer, List<String>> mutantsByLine = new HashMap<>();
-
-    for (Mutant mutant : mutants) {
-      if (!mutantsByLine.containsKey(mutant.lineNumber())) {
-        mutantsByLine.put(mutant.lineNumber(), new ArrayList<String>());
-      }
-      mutantsByLine.get(mutant.lineNumber()).add(mutant.toString());
-    }
-
-    StringBuilder builder = new StringBuilder();
-    builder.append("{");
-    boolean first = true;
-    for (Entry<Integer, List<String>> entry : mutantsByLine.entrySet()) {
-      if (!first) {
-        builder.append(",");
-      }
-      first = false;
-      builder.append("\"").append(entry.getKey()).append("\":");
-      builder.append("[");
-      for (String mutant : entry.getValue()) {
-        builder.append(mutant).append(',');
-      }
-      builder.deleteCharAt(builder.length() - 1); // remove last ','
-      builder.append("]");
-    }
-    builder.append("}");
-
-    return builder.toString();
+    return MutationsJsonWriter.write(mutants);
   }
 
   public void addMutant(Mutant mutant) {
@@ -86,7 +65,30 @@ public class SourceFileReport {
         + mutant.sourceRelativePath());
     }
     mutants.add(mutant);
-    switch (mutant.mutantStatus) {
+    count(mutant.mutantStatus);
+  }
+
+  /**
+   * Appends a row of the store of another report of the same source file.
+   */
+  void addRow(MutantStore store, int row) {
+    mutants.add(store, row);
+    count(store.status(row));
+  }
+
+  /**
+   * Appends rows previously written by {@link MutantStore#writeRows(java.io.DataOutput)}.
+   */
+  void readRows(DataInput in) throws IOException {
+    int first = mutants.size();
+    mutants.readRows(in);
+    for (int row = first; row < mutants.size(); row++) {
+      count(mutants.status(row));
+    }
+  }
+
+  private void count(MutantStatus status) {
+    switch (status) {
       case NO_COVERAGE:
         mutationsNoCoverage++;
         break;
@@ -109,8 +111,25 @@ public class SourceFileReport {
     return sourceFileRelativePath;
   }
 
+  /**
+   * Read-only view that rebuilds a {@link Mutant} for each access; hot paths read {@link #getStore()} instead.
+   */
   public Collection<Mutant> getMutants() {
-    return Collections.unmodifiableList(mutants);
+    return new AbstractList<Mutant>() {
+      @Override
+      public Mutant get(int row) {
+        return mutants.mutant(row, sourceFileRelativePath);
+      }
+
+      @Override
+      public int size() {
+        return mutants.size();
+      }
+    };
+  }
+
+  MutantStore getStore() {
+    return mutants;
   }
 
   public Integer getMutationsTotal() {
@@ -139,7 +158,7 @@ public class SourceFileReport {
 
   @Override
   public String toString() {
-    return "SourceFileReport [sourceFileRelativePath=" + sourceFileRelativePath + ", mutants=" + mutants + ", mutationsNoCoverage=" + mutationsNoCoverage + ", mutationsKilled="
+    return "SourceFileReport [sourceFileRelativePath=" + sourceFileRelativePath + ", mutants=" + getMutants() + ", mutationsNoCoverage=" + mutationsNoCoverage + ", mutationsKilled="
       + mutationsKilled + ", mutationsSurvived=" + mutationsSurvived + ", mutationsOther=" + mutationsOther + ", mutationsUnknown=" + mutationsUnknown + "]";
   }
 
@@ -0,0 +1,74 @@
+/*
+ * Sonar Pitest Plugin
+ * Copyright (C) 2009-2018 Vinod Anandan
+ * vinod@owasp.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.pitest.scanner;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonar.plugins.pitest.domain.MutantLocation;
+
+/**
+ * Per-parse dictionary that makes equal strings of a report share a single instance: class names, method
+ * signatures, killing tests and descriptions repeat for thousands of mutants. It also remembers the relative
+ * path computed for each class. Safe to share between the threads parsing shards of the same report.
+ */
+final class StringDictionary {
+
+  private final Map<String, String> strings = new ConcurrentHashMap<>();
+  private final Map<String, RelativePath> relativePaths = new ConcurrentHashMap<>();
+
+  @CheckForNull
+  String intern(@Nullable String value) {
+    if (value == null) {
+      return null;
+    }
+    String existing = strings.putIfAbsent(value, value);
+    return existing == null ? value : existing;
+  }
+
+  String relativePath(@Nullable String className, @Nullable String sourceFile) {
+    if (className == null) {
+      return MutantLocation.calculateRelativePath(className, sourceFile);
+    }
+    RelativePath cached = relativePaths.get(className);
+    if (cached == null || !Objects.equals(cached.sourceFile, sourceFile)) {
+      cached = new RelativePath(sourceFile, intern(MutantLocation.calculateRelativePath(className, sourceFile)));
+      relativePaths.put(className, cached);
+    }
+    return cached.relativePath;
+  }
+
+  int size() {
+    return strings.size();
+  }
+
+  private static final class RelativePath {
+    @Nullable
+    private final String sourceFile;
+    private final String relativePath;
+
+    private RelativePath(@Nullable String sourceFile, String relativePath) {
+      this.sourceFile = sourceFile;
+      this.relativePath = relativePath;
+    }
+  }
+}
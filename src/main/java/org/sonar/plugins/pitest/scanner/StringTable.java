@@ -0,0 +1,88 @@
+/*
+ * Sonar Pitest Plugin
+ * Copyright (C) 2009-2018 Vinod Anandan
+ * vinod@owasp.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.pitest.scanner;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+/**
+ * Numbers the distinct strings of a {@link ProjectReport}, so that the mutant columns can hold an
+ * <code>int</code> instead of a reference. Id <code>-1</code> stands for <code>null</code>.
+ */
+final class StringTable {
+
+  static final int NULL_ID = -1;
+
+  private final Map<String, Integer> ids = new HashMap<>();
+  private String[] strings = new String[64];
+
+  int id(@Nullable String value) {
+    if (value == null) {
+      return NULL_ID;
+    }
+    Integer id = ids.get(value);
+    if (id == null) {
+      id = ids.size();
+      if (id == strings.length) {
+        strings = Arrays.copyOf(strings, strings.length * 2);
+      }
+      strings[id] = value;
+      ids.put(value, id);
+    }
+    return id;
+  }
+
+  @CheckForNull
+  String get(int id) {
+    return id == NULL_ID ? null : strings[id];
+  }
+
+  int size() {
+    return ids.size();
+  }
+
+  void writeTo(DataOutput out) throws IOException {
+    out.writeInt(ids.size());
+    for (int id = 0; id < ids.size(); id++) {
+      byte[] bytes = strings[id].getBytes(StandardCharsets.UTF_8);
+      out.writeInt(bytes.length);
+      out.write(bytes);
+    }
+  }
+
+  /**
+   * Reads strings written by {@link #writeTo(DataOutput)} into an empty table, so that they get back their ids.
+   */
+  void readFrom(DataInput in) throws IOException {
+    int count = in.readInt();
+    for (int i = 0; i < count; i++) {
+      byte[] bytes = new byte[in.readInt()];
+      in.readFully(bytes);
+      id(new String(bytes, StandardCharsets.UTF_8));
+    }
+  }
+}
@@ -21,75 +21,365 @@ package org.sonar.plugins.pitest.scanner;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.DirectoryStream;
 import java.nio.file.FileVisitResult;
-import java.nio.file.FileVisitor;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.NotDirectoryException;
 import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
-import java.util.concurrent.atomic.AtomicReference;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 import org.sonar.api.ExtensionPoint;
 import org.sonar.api.batch.ScannerSide;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 
+/**
+ * Finds the newest <code>mutations.xml</code>, <code>mutations.csv</code> or binary <code>mutations.bin</code> under
+ * the report directory. When PIT wrote several formats side by side, the fastest to ingest is taken.
+ * <p>
+ * The layouts written by PIT are resolved from a single listing of the report directory: the report is either
+ * directly in it, or in the timestamped sub-directory (<code>yyyyMMddHHmm</code>) with the greatest name, and
+ * the other sub-directories only hold the HTML report. Any other layout falls back to a walk of the whole tree
+ * that keeps the most recently modified report.
+ * <p>
+ * Reports can also be gzipped, or in a zip archive of the report directory, see {@link ReportFiles}.
+ */
 @ScannerSide
 @ExtensionPoint
 public class XmlReportFinder {
 
   private static final Logger LOG = Loggers.get(XmlReportFinder.class);
 
+  /**
+   * Names PIT gives to its report, from the fastest to ingest to the slowest: the binary report is read in place,
+   * a CSV line needs no XML parsing and plain files can be memory-mapped and parsed in parallel.
+   */
+  private static final String[] REPORT_NAMES = {ReportFiles.BINARY_REPORT_NAME, ReportFiles.CSV_REPORT_NAME, ReportFiles.REPORT_NAME,
+    ReportFiles.CSV_REPORT_NAME + ".gz", ReportFiles.REPORT_NAME + ".gz"};
+  private static final Pattern TIMESTAMP = Pattern.compile("\\d{12}");
+  private static final String[] HTML_REPORT_EXTENSIONS = {".html", ".css", ".js", ".png", ".gif", ".svg"};
+
+  @CheckForNull
   public File findReport(File reportDirectory) {
     if (!reportDirectory.exists() || !reportDirectory.isDirectory()) {
       LOG.error("reportDirectory does not exist or is not a Directory: " + reportDirectory.getAbsolutePath());
       return null;
     }
 
-    final AtomicReference<Path> latestReport = new AtomicReference<>();
+    Path root = reportDirectory.toPath();
     try {
-      Files.walkFileTree(reportDirectory.toPath(), new FileVisitor<Path>() {
+      PitLayout layout = PitLayout.list(root);
+      if (layout != null) {
+        Path report = layout.newestReport();
+        LOG.debug("Resolved the report of {} from the PIT layout: {}", root, report);
+        return report == null ? null : report.toFile();
+      }
+      LOG.debug("Unknown layout in {}, looking for the most recent report in the whole tree", root);
+      Path report = walk(root);
+      return report == null ? null : report.toFile();
+    } catch (IOException e) {
+      LOG.error("unable to find pitest report file in reportDirectory: " + reportDirectory.getAbsolutePath());
+      return null;
+    }
+  }
 
-        @Override
-        public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs) throws IOException {
+  /**
+   * @return whether a configured report path is a glob pattern rather than a directory
+   */
+  static boolean isGlob(String reportPath) {
+    return reportPath.indexOf('*') >= 0 || reportPath.indexOf('?') >= 0 || reportPath.indexOf('{') >= 0 || reportPath.indexOf('[') >= 0;
+  }
 
-          return FileVisitResult.CONTINUE;
+  /**
+   * Puts back together the glob patterns split on the commas of their brace groups, such as
+   * <code>{core,web}/target/pit-reports</code>, as comma-separated settings are split on every comma.
+   */
+  static String[] joinBraceGroups(String[] reportPaths) {
+    List<String> joined = new ArrayList<>();
+    StringBuilder current = null;
+    int depth = 0;
+    for (String reportPath : reportPaths) {
+      if (current == null) {
+        current = new StringBuilder(reportPath);
+      } else {
+        current.append(',').append(reportPath);
+      }
+      for (int i = 0; i < reportPath.length(); i++) {
+        char c = reportPath.charAt(i);
+        if (c == '{') {
+          depth++;
+        } else if (c == '}' && depth > 0) {
+          depth--;
         }
+      }
+      if (depth == 0) {
+        joined.add(current.toString().trim());
+        current = null;
+      }
+    }
+    if (current != null) {
+      joined.add(current.toString().trim());
+    }
+    return joined.toArray(new String[0]);
+  }
 
+  /**
+   * Every report matching a glob pattern relative to the base directory, using '/' as separator. A matching
+   * file is taken as a report, while a matching directory is a report directory whose newest report is taken,
+   * see {@link #findReport(File)}. A leading <code>**&#47;</code> also matches no directory at all, so that
+   * <code>**&#47;target/pit-reports</code> finds the reports of the base directory too.
+   */
+  public List<File> findReports(File baseDirectory, String glob) {
+    Path base = baseDirectory.toPath().toAbsolutePath().normalize();
+    Path start = base.resolve(literalPrefix(glob)).normalize();
+    if (!Files.isDirectory(start)) {
+      return Collections.emptyList();
+    }
+    PathMatcher matcher = matcher(glob);
+    List<File> reports = new ArrayList<>();
+    try {
+      Files.walkFileTree(start, new SimpleFileVisitor<Path>() {
         @Override
-        public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
-          if (!file.toFile().isFile()) {
-            return FileVisitResult.CONTINUE;
-          }
-          if (!file.toString().endsWith("mutations.xml")) {
-            return FileVisitResult.CONTINUE;
-          }
-
-          if (latestReport.get() == null
-            || Files.getLastModifiedTime(file).compareTo(Files.getLastModifiedTime(latestReport.get())) > 0) {
-            latestReport.set(file);
+        public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+          if (!dir.equals(start) && matcher.matches(base.relativize(dir))) {
+            File report = findReport(dir.toFile());
+            if (report != null) {
+              reports.add(report);
+            }
+            return FileVisitResult.SKIP_SUBTREE;
           }
           return FileVisitResult.CONTINUE;
         }
 
         @Override
-        public FileVisitResult visitFileFailed(final Path file, final IOException exc) throws IOException {
-
+        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+          if (attrs.isRegularFile() && matcher.matches(base.relativize(file))) {
+            reports.add(file.toFile());
+          }
           return FileVisitResult.CONTINUE;
         }
 
         @Override
-        public FileVisitResult postVisitDirectory(final Path dir, final IOException exc) throws IOException {
-
+        public FileVisitResult visitFileFailed(Path file, IOException exc) {
           return FileVisitResult.CONTINUE;
         }
       });
     } catch (IOException e) {
-      LOG.error("unable to find pitest report file in reportDirectory: " + reportDirectory.getAbsolutePath());
-      return null;
+      LOG.error("unable to find pitest report files matching " + glob + " in " + base);
     }
-    if (latestReport.get() != null) {
-      return latestReport.get().toFile();
+    Collections.sort(reports);
+    return reports;
+  }
+
+  private static PathMatcher matcher(String glob) {
+    PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + glob);
+    if (!glob.startsWith("**/")) {
+      return matcher;
     }
-    return null;
+    // the glob syntax needs at least one directory before the slash
+    PathMatcher withoutPrefix = FileSystems.getDefault().getPathMatcher("glob:" + glob.substring(3));
+    return path -> matcher.matches(path) || withoutPrefix.matches(path);
   }
 
+  /**
+   * The leading path elements of a glob pattern that hold no wildcard, where the walk can start.
+   */
+  private static String literalPrefix(String glob) {
+    String[] elements = glob.split("/");
+    StringBuilder prefix = new StringBuilder();
+    for (int i = 0; i < elements.length - 1 && !isGlob(elements[i]); i++) {
+      prefix.append(elements[i]).append('/');
+    }
+    return prefix.toString();
+  }
+
+  /**
+   * Whether a file found in a walk is a report: a binary <code>mutations.bin</code>, a plain or gzipped
+   * <code>mutations.xml</code> or <code>mutations.csv</code>, or a zip archive holding one of the latter.
+   */
+  private static boolean isReport(Path file) {
+    String name = file.getFileName().toString();
+    return ReportFiles.isReportName(name) || (ReportFiles.isZip(name) && ReportFiles.isZippedReport(file.toFile()));
+  }
+
+  /**
+   * Whether a file name is one PIT gives to its report, possibly gzipped.
+   */
+  private static boolean isPitReportName(String name) {
+    for (String reportName : REPORT_NAMES) {
+      if (reportName.equals(name)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Whether a candidate report is better than the current one: the preferred format among reports PIT wrote in the
+   * same directory, otherwise the most recently modified.
+   */
+  private static boolean isBetterReport(Path candidate, FileTime candidateModification, @Nullable Path current, @Nullable FileTime currentModification) {
+    if (current == null) {
+      return true;
+    }
+    int candidateRank = rank(candidate);
+    int currentRank = rank(current);
+    if (candidateRank < REPORT_NAMES.length && currentRank < REPORT_NAMES.length && candidate.getParent().equals(current.getParent())) {
+      return candidateRank < currentRank;
+    }
+    return candidateModification.compareTo(currentModification) > 0;
+  }
+
+  /**
+   * @return the index of the report name in {@link #REPORT_NAMES}, or its length for other files
+   */
+  private static int rank(Path report) {
+    String name = report.getFileName().toString();
+    for (int i = 0; i < REPORT_NAMES.length; i++) {
+      if (name.endsWith(REPORT_NAMES[i])) {
+        return i;
+      }
+    }
+    return REPORT_NAMES.length;
+  }
+
+  @CheckForNull
+  private static Path walk(Path root) throws IOException {
+    LatestReportVisitor visitor = new LatestReportVisitor();
+    Files.walkFileTree(root, visitor);
+    return visitor.latestReport;
+  }
+
+  private static class LatestReportVisitor extends SimpleFileVisitor<Path> {
+    private Path latestReport;
+    private FileTime latestModification;
+
+    @Override
+    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+      if (attrs.isRegularFile() && isBetterReport(file, attrs.lastModifiedTime(), latestReport, latestModification) && isReport(file)) {
+        latestReport = file;
+        latestModification = attrs.lastModifiedTime();
+      }
+      return FileVisitResult.CONTINUE;
+    }
+
+    @Override
+    public FileVisitResult visitFileFailed(Path file, IOException exc) {
+      return FileVisitResult.CONTINUE;
+    }
+  }
+
+  /**
+   * The entries of a report directory laid out by PIT.
+   */
+  private static class PitLayout {
+    private final List<Path> timestampedDirectories = new ArrayList<>();
+    private Path report;
+    private BasicFileAttributes reportAttributes;
+
+    /**
+     * Entries are told apart by name first, and only timestamp directories and report files are stat'ed: the
+     * files of the HTML report are skipped on their extension, other names are taken for HTML package directories.
+     *
+     * @return <code>null</code> if the directory holds anything PIT does not write
+     */
+    @CheckForNull
+    static PitLayout list(Path root) throws IOException {
+      PitLayout layout = new PitLayout();
+      try (DirectoryStream<Path> entries = Files.newDirectoryStream(root)) {
+        for (Path entry : entries) {
+          String name = entry.getFileName().toString();
+          if (TIMESTAMP.matcher(name).matches()) {
+            BasicFileAttributes attributes = readAttributes(entry);
+            if (attributes != null && attributes.isDirectory()) {
+              layout.timestampedDirectories.add(entry);
+            }
+          } else if (isPitReportName(name) || (ReportFiles.isZip(name) && ReportFiles.isZippedReport(entry.toFile()))) {
+            BasicFileAttributes attributes = readAttributes(entry);
+            if (attributes != null && attributes.isRegularFile()) {
+              layout.offer(entry, attributes);
+            }
+          } else if (ReportFiles.isReportName(name)) {
+            return null;
+          } else if (!hasHtmlReportExtension(name) && !isHtmlReport(entry)) {
+            return null;
+          }
+        }
+      }
+      return layout;
+    }
+
+    @CheckForNull
+    Path newestReport() throws IOException {
+      Collections.sort(timestampedDirectories, Collections.reverseOrder());
+      for (Path directory : timestampedDirectories) {
+        boolean found = false;
+        for (String reportName : REPORT_NAMES) {
+          Path candidate = directory.resolve(reportName);
+          BasicFileAttributes attributes = readAttributes(candidate);
+          if (attributes != null && attributes.isRegularFile()) {
+            offer(candidate, attributes);
+            found = true;
+          }
+        }
+        if (found) {
+          break;
+        }
+      }
+      return report;
+    }
+
+    private void offer(Path candidate, BasicFileAttributes attributes) {
+      if (report == null || isBetterReport(candidate, attributes.lastModifiedTime(), report, reportAttributes.lastModifiedTime())) {
+        report = candidate;
+        reportAttributes = attributes;
+      }
+    }
+
+    @CheckForNull
+    private static BasicFileAttributes readAttributes(Path path) throws IOException {
+      try {
+        return Files.readAttributes(path, BasicFileAttributes.class);
+      } catch (NoSuchFileException e) {
+        return null;
+      }
+    }
+
+    /**
+     * Whether the entry is a directory only holding files of the HTML report, as the per-package directories PIT
+     * writes next to <code>index.html</code>, or a file, which is left alone. Decided on names alone, without
+     * reading any attribute.
+     */
+    private static boolean isHtmlReport(Path entry) throws IOException {
+      try (DirectoryStream<Path> entries = Files.newDirectoryStream(entry)) {
+        for (Path child : entries) {
+          if (!hasHtmlReportExtension(child.getFileName().toString())) {
+            return false;
+          }
+        }
+      } catch (NotDirectoryException e) {
+        return true;
+      }
+      return true;
+    }
+
+    private static boolean hasHtmlReportExtension(String name) {
+      for (String extension : HTML_REPORT_EXTENSIONS) {
+        if (name.endsWith(extension)) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
 }
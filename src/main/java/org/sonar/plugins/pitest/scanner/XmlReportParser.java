@@ -21,39 +21,283 @@ package org.sonar.plugins.pitest.scanner;
 
 import com.google.common.base.Charsets;
 import com.google.common.base.Throwables;
+import java.io.ByteArrayInputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
 import org.sonar.api.ExtensionPoint;
 import org.sonar.api.batch.ScannerSide;
+import org.sonar.api.config.Configuration;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.plugins.pitest.domain.Mutant;
 import org.sonar.plugins.pitest.domain.MutantLocation;
 import org.sonar.plugins.pitest.domain.MutantStatus;
 
+import static org.sonar.plugins.pitest.PitestConstants.PARSER_ENGINE_BYTES;
+import static org.sonar.plugins.pitest.PitestConstants.PARSER_ENGINE_DEF;
+import static org.sonar.plugins.pitest.PitestConstants.PARSER_ENGINE_KEY;
+import static org.sonar.plugins.pitest.PitestConstants.PARSER_PARALLELISM_DEF;
+import static org.sonar.plugins.pitest.PitestConstants.PARSER_PARALLELISM_KEY;
+import static org.sonar.plugins.pitest.PitestConstants.PARSER_PARALLEL_THRESHOLD_DEF;
+import static org.sonar.plugins.pitest.PitestConstants.PARSER_PARALLEL_THRESHOLD_KEY;
+
 @ScannerSide
 @ExtensionPoint
 public class XmlReportParser {
 
   private static final Logger LOG = Loggers.get(XmlReportParser.class);
 
+  private static final byte[] MUTATION_START = "<mutation".getBytes(Charsets.UTF_8);
+  private static final byte[] MUTATIONS_END = "</mutations>".getBytes(Charsets.UTF_8);
+  private static final byte[] SHARD_PREFIX = "<mutations>".getBytes(Charsets.UTF_8);
+  private static final long MEGABYTE = 1024L * 1024L;
+
+  private final int parallelism;
+  private final long parallelThreshold;
+  private final boolean byteEngine;
+
+  public XmlReportParser() {
+    this(PARSER_PARALLELISM_DEF, PARSER_PARALLEL_THRESHOLD_DEF * MEGABYTE, PARSER_ENGINE_DEF);
+  }
+
+  public XmlReportParser(Configuration configuration) {
+    this(configuration.getInt(PARSER_PARALLELISM_KEY).orElse(PARSER_PARALLELISM_DEF),
+      configuration.getInt(PARSER_PARALLEL_THRESHOLD_KEY).orElse(PARSER_PARALLEL_THRESHOLD_DEF) * MEGABYTE,
+      configuration.get(PARSER_ENGINE_KEY).orElse(PARSER_ENGINE_DEF));
+  }
+
+  XmlReportParser(int parallelism, long parallelThreshold, String engine) {
+    this.parallelism = parallelism;
+    this.parallelThreshold = parallelThreshold;
+    this.byteEngine = PARSER_ENGINE_BYTES.equals(engine);
+  }
+
   public Collection<Mutant> parse(File report) {
-    return new Parser().parse(report);
+    Collection<Mutant> mutants = new ArrayList<>();
+    parse(report, mutants::add);
+    return mutants;
+  }
+
+  /**
+   * Streaming variant of {@link #parse(File)}: each mutant is pushed to the consumer as soon as its
+   * <code>mutation</code> element is closed, so the report is never materialized as a whole.
+   */
+  public void parse(File report, Consumer<Mutant> consumer) {
+    parse(report, relativePath -> true, consumer);
+  }
+
+  /**
+   * Variant of {@link #parse(File, Consumer)} that only builds the mutants whose source relative path (see
+   * {@link Mutant#sourceRelativePath()}) is accepted by the filter. The others are dropped as soon as their
+   * <code>sourceFile</code> and <code>mutatedClass</code> have been read.
+   */
+  public void parse(File report, Predicate<String> relativePathFilter, Consumer<Mutant> consumer) {
+    parse(report, relativePathFilter, MutantField.all(), consumer);
+  }
+
+  /**
+   * Variant of {@link #parse(File, Predicate, Consumer)} that only decodes the given optional fields. The text
+   * of the other ones is skipped and they are left <code>null</code>.
+   * <p>
+   * Reports in PIT's CSV format are read by {@link CsvReportParser}, binary ones by {@link BinaryReportParser}.
+   */
+  public void parse(File report, Predicate<String> relativePathFilter, Set<MutantField> fields, Consumer<Mutant> consumer) {
+    if (ReportFiles.isBinary(report)) {
+      new BinaryReportParser().parse(report, relativePathFilter, fields, consumer);
+      return;
+    }
+    if (ReportFiles.isCsv(report)) {
+      new CsvReportParser(parallelism, parallelThreshold).parse(report, relativePathFilter, fields, consumer);
+      return;
+    }
+    StringDictionary dictionary = new StringDictionary();
+    // compressed reports are streamed through the StAX parser
+    boolean mappable = !ReportFiles.isCompressed(report) && report.length() <= Integer.MAX_VALUE;
+    if (parallelism > 1 && report.length() >= parallelThreshold && mappable) {
+      parseInParallel(report, consumer, dictionary, relativePathFilter, fields);
+    } else if (byteEngine && mappable) {
+      scan(report, consumer, dictionary, relativePathFilter, fields);
+    } else {
+      new Parser(consumer, 0, dictionary, relativePathFilter, fields).parse(report);
+    }
+  }
+
+  /**
+   * Runs the byte-level engine on the whole report. Should it meet content it does not support, the StAX
+   * parser takes over from the first mutant that was not handed to the consumer yet.
+   */
+  private void scan(File report, Consumer<Mutant> consumer, StringDictionary dictionary, Predicate<String> relativePathFilter, Set<MutantField> fields) {
+    MutationsXmlScanner scanner = new MutationsXmlScanner(ReportFiles.map(report), consumer, dictionary, relativePathFilter, fields);
+    try {
+      scanner.scan();
+    } catch (MutationsXmlScanner.UnsupportedContentException e) {
+      LOG.debug("Unexpected content in {} after {} mutants, falling back to the StAX parser", report, e.processed());
+      new Parser(consumer, e.processed(), dictionary, relativePathFilter, fields).parse(report);
+    } catch (IllegalArgumentException e) {
+      throw new IllegalStateException("XML is not valid", e);
+    }
+  }
+
+  /**
+   * Memory-maps the report, cuts it into shards on <code>&lt;mutation</code> boundaries and parses them on a
+   * fork-join pool, see {@link ShardedParse}.
+   */
+  private void parseInParallel(File report, Consumer<Mutant> consumer, StringDictionary dictionary, Predicate<String> relativePathFilter, Set<MutantField> fields) {
+    MappedByteBuffer content = ReportFiles.map(report);
+    int[] boundaries = shardBoundaries(content, ShardedParse.shardCount(content.limit(), parallelism));
+    if (boundaries.length < 3) {
+      // not worth it, or not a layout we know how to cut
+      new Parser(consumer, 0, dictionary, relativePathFilter, fields).parse(report);
+      return;
+    }
+    LOG.debug("Parsing {} in {} shards", report, boundaries.length - 1);
+
+    List<Supplier<List<Mutant>>> shards = new ArrayList<>(boundaries.length - 1);
+    for (int i = 0; i < boundaries.length - 1; i++) {
+      ByteBuffer shard = slice(content, boundaries[i], boundaries[i + 1]);
+      shards.add(() -> parseShard(shard, dictionary, relativePathFilter, fields));
+    }
+    ShardedParse.inOrder(parallelism, shards, consumer);
+  }
+
+  private List<Mutant> parseShard(ByteBuffer shard, StringDictionary dictionary, Predicate<String> relativePathFilter, Set<MutantField> fields) {
+    List<Mutant> mutants = new ArrayList<>();
+    if (byteEngine) {
+      try {
+        new MutationsXmlScanner(shard, mutants::add, dictionary, relativePathFilter, fields).scan();
+        return mutants;
+      } catch (MutationsXmlScanner.UnsupportedContentException e) {
+        LOG.debug("Unexpected content in shard, falling back to the StAX parser");
+        mutants.clear();
+      } catch (IllegalArgumentException e) {
+        throw new IllegalStateException("XML is not valid", e);
+      }
+    }
+    InputStream document = new SequenceInputStream(Collections.enumeration(Arrays.asList(
+      new ByteArrayInputStream(SHARD_PREFIX),
+      new ByteBufferInputStream(shard),
+      new ByteArrayInputStream(MUTATIONS_END))));
+    new Parser(mutants::add, 0, dictionary, relativePathFilter, fields).parse(document);
+    return mutants;
+  }
+
+  /**
+   * Offsets at which the content can be cut so that every piece holds whole <code>mutation</code> elements.
+   * The first offset is the first mutation, the last one is the closing <code>mutations</code> tag. Returns
+   * an empty array when the content does not have the expected layout.
+   */
+  static int[] shardBoundaries(ByteBuffer content, int shards) {
+    int first = nextMutation(content, 0, content.limit());
+    int end = lastIndexOf(content, MUTATIONS_END);
+    if (first < 0 || end < first) {
+      return new int[0];
+    }
+    int[] boundaries = new int[shards + 1];
+    int count = 0;
+    boundaries[count++] = first;
+    for (int i = 1; i < shards; i++) {
+      long target = first + (long) (end - first) * i / shards;
+      int boundary = nextMutation(content, (int) Math.max(target, boundaries[count - 1] + 1L), end);
+      if (boundary < 0) {
+        break;
+      }
+      if (boundary > boundaries[count - 1]) {
+        boundaries[count++] = boundary;
+      }
+    }
+    boundaries[count++] = end;
+    return Arrays.copyOf(boundaries, count);
+  }
+
+  private static int nextMutation(ByteBuffer content, int from, int to) {
+    for (int i = from; i + MUTATION_START.length < to; i++) {
+      if (matches(content, i, MUTATION_START)) {
+        byte next = content.get(i + MUTATION_START.length);
+        // skip <mutations> and <mutatedClass>/<mutatedMethod>
+        if (next == '>' || next == '/' || next == ' ' || next == '\t' || next == '\r' || next == '\n') {
+          return i;
+        }
+      }
+    }
+    return -1;
+  }
+
+  private static int lastIndexOf(ByteBuffer content, byte[] pattern) {
+    for (int i = content.limit() - pattern.length; i >= 0; i--) {
+      if (matches(content, i, pattern)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static boolean matches(ByteBuffer content, int offset, byte[] pattern) {
+    for (int j = 0; j < pattern.length; j++) {
+      if (content.get(offset + j) != pattern[j]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static ByteBuffer slice(ByteBuffer content, int from, int to) {
+    ByteBuffer duplicate = content.duplicate();
+    duplicate.position(from);
+    duplicate.limit(to);
+    return duplicate.slice();
+  }
+
+  private static class ByteBufferInputStream extends InputStream {
+    private final ByteBuffer buffer;
+
+    ByteBufferInputStream(ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    @Override
+    public int read() {
+      return buffer.hasRemaining() ? (buffer.get() & 0xFF) : -1;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) {
+      if (!buffer.hasRemaining()) {
+        return -1;
+      }
+      int count = Math.min(length, buffer.remaining());
+      buffer.get(bytes, offset, count);
+      return count;
+    }
   }
 
   private class Parser {
 
     private XMLStreamReader stream;
-    private final Collection<Mutant> mutants = new ArrayList<>();
+    private final Consumer<Mutant> consumer;
+    private final StringDictionary dictionary;
+    private final Predicate<String> relativePathFilter;
+    private final Set<MutantField> fields;
+    private int skip;
+    private boolean filtered;
+    private boolean foreign;
 
     private boolean detected;
     private MutantStatus mutantStatus;
@@ -67,7 +311,20 @@ public class XmlReportParser {
     private String description;
     private String killingTest;
 
+    /**
+     * @param skip number of leading mutants that have already been handed to the consumer
+     */
+    Parser(Consumer<Mutant> consumer, int skip, StringDictionary dictionary, Predicate<String> relativePathFilter, Set<MutantField> fields) {
+      this.consumer = consumer;
+      this.skip = skip;
+      this.dictionary = dictionary;
+      this.relativePathFilter = relativePathFilter;
+      this.fields = fields;
+    }
+
     private void reset() {
+      filtered = false;
+      foreign = false;
       detected = false;
       mutantStatus = null;
       sourceFile = null;
@@ -81,12 +338,19 @@ public class XmlReportParser {
       killingTest = null;
     }
 
-    public Collection<Mutant> parse(File file) {
+    public void parse(File file) {
+      try (InputStream is = ReportFiles.open(file)) {
+        parse(is);
+      } catch (IOException e) {
+        throw new IllegalStateException("Unable to read PIT report " + file, e);
+      }
+    }
+
+    public void parse(InputStream is) {
 
       XMLInputFactory xmlFactory = XMLInputFactory.newInstance();
 
-      try (InputStream is = new FileInputStream(file);
-        InputStreamReader reader = new InputStreamReader(is, Charsets.UTF_8)) {
+      try (InputStreamReader reader = new InputStreamReader(is, Charsets.UTF_8)) {
         stream = xmlFactory.createXMLStreamReader(reader);
 
         while (stream.hasNext()) {
@@ -97,13 +361,13 @@ public class XmlReportParser {
             processEndElement();
           }
         }
-      } catch (IOException | XMLStreamException | IllegalArgumentException e) {
+      } catch (IOException e) {
+        throw new IllegalStateException("Unable to read PIT report", e);
+      } catch (XMLStreamException | IllegalArgumentException e) {
         throw new IllegalStateException("XML is not valid", e);
       } finally {
         closeXmlStream();
       }
-
-      return mutants;
     }
 
     private void parseStartElement() {
@@ -112,14 +376,21 @@ public class XmlReportParser {
       if ("mutation".equals(tagName)) {
         reset();
         handleMutationTag();
+      } else if (foreign) {
+        // the rest of a mutant that is filtered out
+        return;
       } else if ("sourceFile".equals(tagName)) {
         handleSourceFileTag();
       } else if ("mutatedClass".equals(tagName)) {
         handleMutatedClassTag();
       } else if ("mutatedMethod".equals(tagName)) {
-        handleMutatedMethod();
+        if (fields.contains(MutantField.MUTATED_METHOD)) {
+          handleMutatedMethod();
+        }
       } else if ("methodDescription".equals(tagName)) {
-        handleMethodDescription();
+        if (fields.contains(MutantField.METHOD_DESCRIPTION)) {
+          handleMethodDescription();
+        }
       } else if ("lineNumber".equals(tagName)) {
         handleLineNumber();
       } else if ("mutator".equals(tagName)) {
@@ -127,15 +398,23 @@ public class XmlReportParser {
       } else if ("index".equals(tagName)) {
         handleIndex();
       } else if ("killingTest".equals(tagName)) {
-        handleKillingTest();
+        if (fields.contains(MutantField.KILLING_TEST)) {
+          handleKillingTest();
+        }
       } else if ("description".equals(tagName)) {
-        handleDescription();
+        if (fields.contains(MutantField.DESCRIPTION)) {
+          handleDescription();
+        }
       } else {
         if (LOG.isDebugEnabled()) {
           // all are processed now, so this is a new element added by pitest
           LOG.debug("Ignoring tag {}", tagName);
         }
       }
+      if (!filtered && sourceFile != null && mutatedClass != null) {
+        filtered = true;
+        foreign = !relativePathFilter.test(dictionary.relativePath(mutatedClass, sourceFile));
+      }
     }
 
     private void handleMutationTag() {
@@ -145,7 +424,7 @@ public class XmlReportParser {
 
     private void handleSourceFileTag() {
       try {
-        sourceFile = stream.getElementText();
+        sourceFile = dictionary.intern(stream.getElementText());
       } catch (Exception e) {
         logException(e.getClass().getSimpleName(), "processing tag sourceFile");
       }
@@ -153,7 +432,7 @@ public class XmlReportParser {
 
     private void handleMutatedClassTag() {
       try {
-        mutatedClass = stream.getElementText();
+        mutatedClass = dictionary.intern(stream.getElementText());
       } catch (Exception e) {
         logException(e.getClass().getSimpleName(), "processing tag MutatedClass");
       }
@@ -161,7 +440,7 @@ public class XmlReportParser {
 
     private void handleMutatedMethod() {
       try {
-        mutatedMethod = stream.getElementText();
+        mutatedMethod = dictionary.intern(stream.getElementText());
       } catch (Exception e) {
         logException(e.getClass().getSimpleName(), "processing tag mutatedMethod");
       }
@@ -169,7 +448,7 @@ public class XmlReportParser {
 
     private void handleMethodDescription() {
       try {
-        methodDescription = stream.getElementText();
+        methodDescription = dictionary.intern(stream.getElementText());
       } catch (Exception e) {
         logException(e.getClass().getSimpleName(), "processing tag methodDescription");
       }
@@ -201,7 +480,7 @@ public class XmlReportParser {
 
     private void handleKillingTest() {
       try {
-        killingTest = stream.getElementText();
+        killingTest = dictionary.intern(stream.getElementText());
       } catch (Exception e) {
         logException(e.getClass().getSimpleName(), "processing tag killingTest");
       }
@@ -209,7 +488,7 @@ public class XmlReportParser {
 
     private void handleDescription() {
       try {
-        description = stream.getElementText();
+        description = dictionary.intern(stream.getElementText());
       } catch (Exception e) {
         logException(e.getClass().getSimpleName(), "processing tag description");
       }
@@ -218,8 +497,16 @@ public class XmlReportParser {
     private void processEndElement() {
       String tagName = stream.getLocalName();
       if ("mutation".equals(tagName)) {
-        MutantLocation location = new MutantLocation(mutatedClass, sourceFile, mutatedMethod, methodDescription, lineNumber);
-        mutants.add(new Mutant(detected, mutantStatus, location, mutator, index, description, killingTest));
+        if (skip > 0) {
+          skip--;
+          return;
+        }
+        if (foreign) {
+          return;
+        }
+        String relativePath = dictionary.relativePath(mutatedClass, sourceFile);
+        MutantLocation location = new MutantLocation(mutatedClass, sourceFile, mutatedMethod, methodDescription, lineNumber, relativePath);
+        consumer.accept(new Mutant(detected, mutantStatus, location, mutator, index, description, killingTest));
       }
     }
 
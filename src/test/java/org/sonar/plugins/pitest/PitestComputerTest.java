@@ -97,4 +97,52 @@ public class PitestComputerTest {
     assertThat(context.getMeasure(PitestMetrics.MUTATIONS_KILLED_PERCENT_KEY).getDoubleValue()).isEqualTo(20);
 
   }
+
+  @Test
+  public void coverage_percent_is_derived_from_children_sums() {
+    // given
+    PitestComputer sut = new PitestComputer();
+    TestMeasureComputerContext context = new TestMeasureComputerContext(null, null, sut.define(new TestMeasureComputerDefinitionContext()));
+    context.addChildrenMeasures(PitestMetrics.MUTATIONS_GENERATED_KEY, 4, 6);
+    context.addChildrenMeasures(PitestMetrics.MUTATIONS_KILLED_KEY, 1, 2);
+
+    // when
+    sut.compute(context);
+
+    // then
+    assertThat(context.getMeasure(PitestMetrics.MUTATIONS_GENERATED_KEY).getIntValue()).isEqualTo(10);
+    assertThat(context.getMeasure(PitestMetrics.MUTATIONS_SURVIVED_KEY).getIntValue()).isZero();
+    assertThat(context.getMeasure(PitestMetrics.MUTATIONS_KILLED_PERCENT_KEY).getDoubleValue()).isEqualTo(30);
+  }
+
+  @Test
+  public void bad_child_measure_does_not_stop_other_metrics() {
+    // given
+    PitestComputer sut = new PitestComputer();
+    TestMeasureComputerContext context = new TestMeasureComputerContext(null, null, sut.define(new TestMeasureComputerDefinitionContext()));
+    context.addChildrenMeasures(PitestMetrics.MUTATIONS_SURVIVED_KEY, "not a number");
+    context.addChildrenMeasures(PitestMetrics.MUTATIONS_GENERATED_KEY, 2);
+    context.addChildrenMeasures(PitestMetrics.MUTATIONS_KILLED_KEY, 1);
+
+    // when
+    sut.compute(context);
+
+    // then
+    assertThat(context.getMeasure(PitestMetrics.MUTATIONS_SURVIVED_KEY).getIntValue()).isZero();
+    assertThat(context.getMeasure(PitestMetrics.MUTATIONS_KILLED_PERCENT_KEY).getDoubleValue()).isEqualTo(50);
+  }
+
+  @Test
+  public void no_coverage_percent_without_mutants() {
+    // given
+    PitestComputer sut = new PitestComputer();
+    TestMeasureComputerContext context = new TestMeasureComputerContext(null, null, sut.define(new TestMeasureComputerDefinitionContext()));
+
+    // when
+    sut.compute(context);
+
+    // then
+    assertThat(context.getMeasure(PitestMetrics.MUTATIONS_GENERATED_KEY).getIntValue()).isZero();
+    assertThat(context.getMeasure(PitestMetrics.MUTATIONS_KILLED_PERCENT_KEY)).isNull();
+  }
 }
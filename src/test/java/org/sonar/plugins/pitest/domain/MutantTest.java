@@ -55,6 +55,16 @@ public class MutantTest {
     assertThat(path).isEqualTo("A constructor call has been removed without breaking the tests [description]");
   }
 
+  @Test
+  public void verify_description_without_mutant_description() {
+    // given
+    Mutant mutant = new TestMutantBuilder().mutator(Mutator.CONSTRUCTOR_CALLS).description(null).build();
+    // when
+    String path = mutant.violationDescription();
+    // then
+    assertThat(path).isEqualTo("A constructor call has been removed without breaking the tests");
+  }
+
   @Test
   public void verify_json() {
     // given
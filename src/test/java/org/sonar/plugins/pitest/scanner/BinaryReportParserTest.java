@@ -0,0 +1,134 @@
+/*
+ * Sonar Pitest Plugin
+ * Copyright (C) 2009-2018 Vinod Anandan
+ * vinod@owasp.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.pitest.scanner;
+
+import com.google.common.io.Resources;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.plugins.pitest.domain.Mutant;
+import org.sonar.plugins.pitest.domain.MutantStatus;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BinaryReportParserTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private final BinaryReportParser parser = new BinaryReportParser();
+
+  @Test
+  public void should_find_the_same_mutants_as_in_the_xml_report() throws IOException {
+    // given
+    Collection<Mutant> expected = new XmlReportParser().parse(new File(Resources.getResource("mutations.xml").getFile()));
+    File report = writeReport(expected);
+
+    // when
+    Collection<Mutant> mutants = new XmlReportParser().parse(report);
+
+    // then
+    assertThat(mutants).usingRecursiveFieldByFieldElementComparator().containsExactlyElementsOf(expected);
+  }
+
+  @Test
+  public void should_only_build_the_mutants_accepted_by_the_filter_with_the_requested_fields() throws IOException {
+    // given
+    File report = writeReport(new XmlReportParser().parse(new File(Resources.getResource("mutations.xml").getFile())));
+    List<Mutant> mutants = new ArrayList<>();
+
+    // when
+    parser.parse(report, "org/sonar/plugins/csharp/gallio/GallioSensor.java"::equals, EnumSet.of(MutantField.KILLING_TEST), mutants::add);
+
+    // then
+    assertThat(mutants).isNotEmpty().allMatch(m -> m.mutantLocation.className.equals("org.sonar.plugins.csharp.gallio.GallioSensor"));
+    assertThat(mutants).allMatch(m -> m.mutantLocation.mutatedMethod == null && m.description == null && m.killingTest != null);
+    assertThat(mutants).extracting(m -> m.mutantStatus).contains(MutantStatus.KILLED);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void should_throw_exception_if_format_is_unknown() throws IOException {
+    // given
+    File report = temporaryFolder.newFile("mutations.bin");
+    Files.write(report.toPath(), "<mutations></mutations>".getBytes(StandardCharsets.UTF_8));
+
+    // when
+    parser.parse(report, relativePath -> true, MutantField.all(), mutant -> {
+    });
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void should_throw_exception_if_report_is_truncated() throws IOException {
+    // given
+    File report = writeReport(new XmlReportParser().parse(new File(Resources.getResource("mutations.xml").getFile())));
+    byte[] content = Files.readAllBytes(report.toPath());
+    Files.write(report.toPath(), Arrays.copyOf(content, content.length - 1));
+
+    // when
+    parser.parse(report, relativePath -> true, MutantField.all(), mutant -> {
+    });
+  }
+
+  /**
+   * Writes mutants the way the PIT listener of the <code>pitest-binary-report</code> module does.
+   */
+  private File writeReport(Collection<Mutant> mutants) throws IOException {
+    StringTable strings = new StringTable();
+    List<int[]> records = new ArrayList<>();
+    for (Mutant mutant : mutants) {
+      int[] record = new int[BinaryReportParser.RECORD_FIELDS];
+      record[BinaryReportParser.SOURCE_FILE] = strings.id(mutant.mutantLocation.sourceFile);
+      record[BinaryReportParser.MUTATED_CLASS] = strings.id(mutant.mutantLocation.className);
+      record[BinaryReportParser.MUTATED_METHOD] = strings.id(mutant.mutantLocation.mutatedMethod);
+      record[BinaryReportParser.METHOD_DESCRIPTION] = strings.id(mutant.mutantLocation.methodDescription);
+      record[BinaryReportParser.LINE_NUMBER] = mutant.mutantLocation.lineNumber;
+      record[BinaryReportParser.MUTATOR] = strings.id(mutant.mutator.getKey());
+      record[BinaryReportParser.INDEX] = mutant.index;
+      record[BinaryReportParser.DESCRIPTION] = strings.id(mutant.description);
+      record[BinaryReportParser.KILLING_TEST] = strings.id(mutant.killingTest);
+      record[BinaryReportParser.STATUS] = strings.id(mutant.mutantStatus == MutantStatus.OTHER ? "MEMORY_ERROR" : mutant.mutantStatus.name());
+      record[BinaryReportParser.DETECTED] = mutant.detected ? 1 : 0;
+      records.add(record);
+    }
+    File report = temporaryFolder.newFile("mutations.bin");
+    try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(report.toPath()))) {
+      out.writeInt(BinaryReportParser.MAGIC);
+      out.writeInt(BinaryReportParser.VERSION);
+      strings.writeTo(out);
+      out.writeInt(records.size());
+      for (int[] record : records) {
+        for (int field : record) {
+          out.writeInt(field);
+        }
+      }
+    }
+    return report;
+  }
+}
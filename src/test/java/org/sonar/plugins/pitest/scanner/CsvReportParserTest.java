@@ -0,0 +1,155 @@
+/*
+ * Sonar Pitest Plugin
+ * Copyright (C) 2009-2018 Vinod Anandan
+ * vinod@owasp.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.pitest.scanner;
+
+import com.google.common.io.Resources;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.plugins.pitest.domain.Mutant;
+import org.sonar.plugins.pitest.domain.MutantStatus;
+import org.sonar.plugins.pitest.domain.Mutator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+public class CsvReportParserTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private final CsvReportParser parser = new CsvReportParser(1, Long.MAX_VALUE);
+
+  @Test
+  public void should_find_the_same_mutants_as_in_the_xml_report() {
+    // given
+    File csvReport = new File(Resources.getResource("mutations.csv").getFile());
+    File xmlReport = new File(Resources.getResource("mutations.xml").getFile());
+    Collection<Mutant> expected = new XmlReportParser().parse(xmlReport);
+
+    // when
+    List<Mutant> mutants = parse(parser, csvReport);
+
+    // then
+    assertThat(mutants).hasSize(46);
+    assertThat(mutants)
+      .extracting(m -> m.mutantLocation.className, m -> m.mutantLocation.sourceFile, m -> m.mutantLocation.mutatedMethod, m -> m.mutantLocation.lineNumber,
+        m -> m.mutantLocation.relativePath, m -> m.mutantStatus, m -> m.detected, m -> m.mutator, m -> m.killingTest)
+      .containsExactlyElementsOf(expected.stream()
+        .map(m -> tuple(m.mutantLocation.className, m.mutantLocation.sourceFile, m.mutantLocation.mutatedMethod, m.mutantLocation.lineNumber,
+          m.mutantLocation.relativePath, m.mutantStatus, m.detected, m.mutator, m.killingTest))
+        .collect(Collectors.toList()));
+    assertThat(mutants).allMatch(m -> m.mutantLocation.methodDescription == null && m.index == 0 && m.description == null);
+  }
+
+  @Test
+  public void should_parse_in_parallel_shards_with_same_result_as_single_thread() throws IOException {
+    // given
+    File report = temporaryFolder.newFile("mutations.csv");
+    List<String> lines = Files.readAllLines(new File(Resources.getResource("mutations.csv").getFile()).toPath());
+    StringBuilder content = new StringBuilder();
+    for (int i = 0; i < 100; i++) {
+      for (String line : lines) {
+        content.append(line).append(i % 2 == 0 ? "\r\n" : "\n");
+      }
+    }
+    Files.write(report.toPath(), content.toString().getBytes(StandardCharsets.UTF_8));
+
+    // when
+    List<Mutant> expected = parse(parser, report);
+    List<Mutant> mutants = parse(new CsvReportParser(4, 0), report);
+
+    // then
+    assertThat(expected).hasSize(4600);
+    assertThat(mutants).usingRecursiveFieldByFieldElementComparator().containsExactlyElementsOf(expected);
+  }
+
+  @Test
+  public void should_only_build_the_mutants_accepted_by_the_filter_with_the_requested_fields() {
+    // given
+    File report = new File(Resources.getResource("mutations.csv").getFile());
+    List<Mutant> mutants = new ArrayList<>();
+
+    // when
+    parser.parse(report, "org/sonar/plugins/csharp/gallio/GallioSensor.java"::equals, EnumSet.noneOf(MutantField.class), mutants::add);
+
+    // then
+    assertThat(mutants).isNotEmpty().allMatch(m -> m.mutantLocation.className.equals("org.sonar.plugins.csharp.gallio.GallioSensor"));
+    assertThat(mutants).allMatch(m -> m.mutantLocation.mutatedMethod == null && m.killingTest == null);
+  }
+
+  @Test
+  public void should_read_the_killing_test_up_to_the_end_of_the_line() throws IOException {
+    // given
+    File report = temporaryFolder.newFile("mutations.csv.gz");
+    try (GZIPOutputStream gzip = new GZIPOutputStream(new FileOutputStream(report))) {
+      gzip.write(("Foo.java,com.example.Foo,org.pitest.mutationtest.engine.gregor.mutators.MathMutator,bar,12,TIMED_OUT,com.example.FooTest.[engine:junit-jupiter]/[test-template:bar(int, int)]\r\n"
+        + "Foo.java,com.example.Foo,org.pitest.mutationtest.engine.gregor.mutators.MathMutator,bar,x,SURVIVED,none\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    // when
+    List<Mutant> mutants = parse(parser, report);
+
+    // then
+    assertThat(mutants).extracting(m -> m.mutantLocation.lineNumber, m -> m.mutantStatus, m -> m.detected, m -> m.mutator, m -> m.killingTest).containsExactly(
+      tuple(12, MutantStatus.OTHER, true, Mutator.MATH, "com.example.FooTest.[engine:junit-jupiter]/[test-template:bar(int, int)]"),
+      tuple(0, MutantStatus.SURVIVED, false, Mutator.MATH, ""));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void should_throw_exception_if_a_line_misses_fields() throws IOException {
+    // given
+    File report = temporaryFolder.newFile("mutations.csv");
+    Files.write(report.toPath(), "Foo.java,com.example.Foo,org.pitest.mutationtest.engine.gregor.mutators.MathMutator,bar,12\n".getBytes(StandardCharsets.UTF_8));
+
+    // when
+    parse(parser, report);
+  }
+
+  @Test
+  public void should_cut_shards_after_line_breaks() {
+    // given
+    ByteBuffer content = ByteBuffer.wrap("aaaa\nbbbbbbbb\ncc\ndddddd".getBytes(StandardCharsets.UTF_8));
+
+    // when
+    int[] boundaries = CsvReportParser.shardBoundaries(content, 3);
+
+    // then
+    assertThat(boundaries).containsExactly(0, 14, 17, 23);
+  }
+
+  private static List<Mutant> parse(CsvReportParser parser, File report) {
+    List<Mutant> mutants = new ArrayList<>();
+    parser.parse(report, relativePath -> true, MutantField.all(), mutants::add);
+    return mutants;
+  }
+}
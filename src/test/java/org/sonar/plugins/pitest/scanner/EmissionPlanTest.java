@@ -0,0 +1,105 @@
+/*
+ * Sonar Pitest Plugin
+ * Copyright (C) 2009-2018 Vinod Anandan
+ * vinod@owasp.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.pitest.scanner;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+import org.sonar.api.batch.sensor.internal.SensorContextTester;
+import org.sonar.api.batch.sensor.issue.Issue;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.plugins.pitest.PitestMetrics;
+import org.sonar.plugins.pitest.scanner.EmissionPlan.IssueLocation;
+import org.sonar.plugins.pitest.scanner.EmissionPlan.IssuePlan;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class EmissionPlanTest {
+
+  private static final RuleKey RULE = RuleKey.of("pitest", "rule");
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void should_replay_measures_coverage_and_issues() throws Exception {
+    // given
+    SensorContextTester context = SensorContextTester.create(temporaryFolder.newFolder());
+    InputFile inputFile = inputFile(context.fileSystem().baseDir());
+    EmissionPlan plan = EmissionPlan.builder(inputFile)
+      .measure(PitestMetrics.MUTATIONS_KILLED, 2)
+      .measure(PitestMetrics.MUTATIONS_DATA, "data")
+      .coveredLines(new int[] {2, 4})
+      .issue(new IssuePlan(RULE, Arrays.asList(new IssueLocation(3, "primary"), new IssueLocation(5, "secondary"))))
+      .issue(new IssuePlan(RULE, Collections.singletonList(new IssueLocation(IssueLocation.WHOLE_FILE, "whole file"))))
+      .build();
+
+    // when
+    plan.replay(context);
+
+    // then
+    assertThat(context.measure(inputFile.key(), PitestMetrics.MUTATIONS_KILLED).value()).isEqualTo(2);
+    assertThat(context.measure(inputFile.key(), PitestMetrics.MUTATIONS_DATA).value()).isEqualTo("data");
+    assertThat(context.lineHits(inputFile.key(), 2)).isEqualTo(1);
+    assertThat(context.lineHits(inputFile.key(), 3)).isNull();
+    assertThat(context.lineHits(inputFile.key(), 4)).isEqualTo(1);
+
+    assertThat(context.allIssues()).hasSize(2);
+    Issue grouped = context.allIssues().stream().filter(i -> "primary".equals(i.primaryLocation().message())).findFirst().get();
+    assertThat(grouped.ruleKey()).isEqualTo(RULE);
+    assertThat(grouped.primaryLocation().textRange().start().line()).isEqualTo(3);
+    assertThat(grouped.flows()).hasSize(1);
+    assertThat(grouped.flows().get(0).locations().get(0).message()).isEqualTo("secondary");
+    assertThat(grouped.flows().get(0).locations().get(0).textRange().start().line()).isEqualTo(5);
+    Issue wholeFile = context.allIssues().stream().filter(i -> "whole file".equals(i.primaryLocation().message())).findFirst().get();
+    assertThat(wholeFile.primaryLocation().textRange()).isNull();
+  }
+
+  @Test
+  public void should_not_save_coverage_without_covered_lines() throws Exception {
+    // given
+    SensorContextTester context = SensorContextTester.create(temporaryFolder.newFolder());
+    InputFile inputFile = inputFile(context.fileSystem().baseDir());
+    EmissionPlan plan = EmissionPlan.builder(inputFile).measure(PitestMetrics.MUTATIONS_KILLED, 0).build();
+
+    // when
+    plan.replay(context);
+
+    // then
+    assertThat(context.lineHits(inputFile.key(), 1)).isNull();
+    assertThat(context.allIssues()).isEmpty();
+    assertThat(plan.issues()).isEmpty();
+    assertThat(plan.inputFile()).isSameAs(inputFile);
+  }
+
+  private static InputFile inputFile(File baseDir) {
+    return new TestInputFileBuilder("module.key", "com/foo/Bar.java")
+      .setModuleBaseDir(baseDir.toPath())
+      .setLanguage("java")
+      .setType(InputFile.Type.MAIN)
+      .setContents("line 1\nline 2\nline 3\nline 4\nline 5\nline 6\n")
+      .build();
+  }
+}
@@ -0,0 +1,96 @@
+/*
+ * Sonar Pitest Plugin
+ * Copyright (C) 2009-2018 Vinod Anandan
+ * vinod@owasp.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.pitest.scanner;
+
+import java.io.File;
+import org.junit.Before;
+import org.junit.Test;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.DefaultFileSystem;
+import org.sonar.api.batch.fs.internal.DefaultInputFile;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class InputFileIndexTest {
+
+  private DefaultFileSystem fileSystem;
+
+  @Before
+  public void setUp() {
+    fileSystem = new DefaultFileSystem(new File("src/test/resources"));
+  }
+
+  @Test
+  public void should_resolve_path_suffixes() {
+    // given
+    DefaultInputFile bar = addFile("src/main/java/com/foo/Bar.java", InputFile.Type.MAIN);
+
+    // when
+    InputFileIndex index = new InputFileIndex(fileSystem);
+
+    // then
+    assertThat(index.get("com/foo/Bar.java")).isSameAs(bar);
+    assertThat(index.get("Bar.java")).isSameAs(bar);
+    assertThat(index.get("src/main/java/com/foo/Bar.java")).isSameAs(bar);
+    assertThat(index.get("oo/Bar.java")).isNull();
+    assertThat(index.contains("com/foo/Bar.java")).isTrue();
+    assertThat(index.contains("oo/Bar.java")).isFalse();
+    assertThat(index.get("com/foo/Qix.java")).isNull();
+    assertThat(index.candidates("com/foo/Qix.java")).isEmpty();
+  }
+
+  @Test
+  public void should_report_ambiguous_suffixes() {
+    // given
+    DefaultInputFile fooBar = addFile("src/main/java/com/foo/Bar.java", InputFile.Type.MAIN);
+    DefaultInputFile quxBar = addFile("src/main/java/com/qux/Bar.java", InputFile.Type.MAIN);
+
+    // when
+    InputFileIndex index = new InputFileIndex(fileSystem);
+
+    // then
+    assertThat(index.get("com/foo/Bar.java")).isSameAs(fooBar);
+    assertThat(index.get("com/qux/Bar.java")).isSameAs(quxBar);
+    assertThat(index.get("Bar.java")).isNull();
+    assertThat(index.contains("Bar.java")).isTrue();
+    assertThat(index.candidates("Bar.java")).containsExactlyInAnyOrder(fooBar, quxBar);
+  }
+
+  @Test
+  public void should_ignore_test_files() {
+    // given
+    DefaultInputFile main = addFile("src/main/java/com/foo/Bar.java", InputFile.Type.MAIN);
+    addFile("src/test/java/com/foo/Bar.java", InputFile.Type.TEST);
+
+    // when
+    InputFileIndex index = new InputFileIndex(fileSystem);
+
+    // then
+    assertThat(index.get("com/foo/Bar.java")).isSameAs(main);
+    assertThat(index.candidates("com/foo/Bar.java")).isEmpty();
+  }
+
+  private DefaultInputFile addFile(String relativePath, InputFile.Type type) {
+    DefaultInputFile inputFile = new TestInputFileBuilder("module.key", relativePath).setModuleBaseDir(fileSystem.baseDirPath()).setType(type).build();
+    fileSystem.add(inputFile);
+    return inputFile;
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ * Sonar Pitest Plugin
+ * Copyright (C) 2009-2018 Vinod Anandan
+ * vinod@owasp.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.pitest.scanner;
+
+import org.junit.Test;
+import org.sonar.plugins.pitest.domain.Mutant;
+import org.sonar.plugins.pitest.domain.MutantLocation;
+import org.sonar.plugins.pitest.domain.MutantStatus;
+import org.sonar.plugins.pitest.domain.Mutator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MutantStoreTest {
+
+  @Test
+  public void should_read_back_columns() {
+    // given
+    MutantStore store = new MutantStore(new StringTable());
+    Mutant mutant = new Mutant(true, MutantStatus.KILLED, new MutantLocation("com.foo.Bar", "Bar.java", "doIt", "()V", 17), Mutator.NEGATE_CONDITIONALS, 3,
+      "negated conditional", "com.foo.BarTest");
+
+    // when
+    store.add(mutant);
+
+    // then
+    assertThat(store.size()).isEqualTo(1);
+    assertThat(store.detected(0)).isTrue();
+    assertThat(store.status(0)).isEqualTo(MutantStatus.KILLED);
+    assertThat(store.mutator(0)).isEqualTo(Mutator.NEGATE_CONDITIONALS);
+    assertThat(store.lineNumber(0)).isEqualTo(17);
+    assertThat(store.index(0)).isEqualTo(3);
+    assertThat(store.className(0)).isEqualTo("com.foo.Bar");
+    assertThat(store.sourceFile(0)).isEqualTo("Bar.java");
+    assertThat(store.mutatedMethod(0)).isEqualTo("doIt");
+    assertThat(store.methodDescription(0)).isEqualTo("()V");
+    assertThat(store.description(0)).isEqualTo("negated conditional");
+    assertThat(store.killingTest(0)).isEqualTo("com.foo.BarTest");
+    assertThat(store.violationDescription(0)).isEqualTo(mutant.violationDescription());
+  }
+
+  @Test
+  public void should_copy_a_row_of_a_store_with_other_strings() {
+    // given
+    MutantStore other = new MutantStore(new StringTable());
+    other.add(new Mutant(false, MutantStatus.SURVIVED, new MutantLocation("com.foo.Qix", "Qix.java", "run", "()V", 4), Mutator.MATH, 1, "replaced", null));
+    Mutant mutant = new Mutant(true, MutantStatus.KILLED, new MutantLocation("com.foo.Bar", "Bar.java", "doIt", "()V", 17), Mutator.NEGATE_CONDITIONALS, 3,
+      "negated conditional", "com.foo.BarTest");
+    other.add(mutant);
+    StringTable strings = new StringTable();
+    strings.id("unrelated");
+    MutantStore store = new MutantStore(strings);
+
+    // when
+    store.add(other, 1);
+
+    // then
+    assertThat(store.size()).isEqualTo(1);
+    assertThat(store.mutant(0, "com/foo/Bar.java")).isEqualToComparingFieldByFieldRecursively(mutant);
+  }
+
+  @Test
+  public void should_rebuild_equal_mutant() {
+    // given
+    MutantStore store = new MutantStore(new StringTable());
+    Mutant mutant = new Mutant(false, MutantStatus.SURVIVED, new MutantLocation("com.foo.Bar$1", "Bar.java", "run", "()V", 4), Mutator.VOID_METHOD_CALLS, 0,
+      "removed call", null);
+    store.add(mutant);
+
+    // when
+    Mutant rebuilt = store.mutant(0, "com/foo/Bar.java");
+
+    // then
+    assertThat(rebuilt).isEqualToComparingFieldByFieldRecursively(mutant);
+    assertThat(rebuilt.killingTest).isNull();
+    assertThat(rebuilt.sourceRelativePath()).isEqualTo("com/foo/Bar.java");
+  }
+
+  @Test
+  public void should_grow_and_share_strings() {
+    // given
+    StringTable strings = new StringTable();
+    MutantStore store = new MutantStore(strings);
+
+    // when
+    for (int i = 0; i < 100; i++) {
+      store.add(new Mutant(false, MutantStatus.NO_COVERAGE, new MutantLocation("com.foo.Bar", "Bar.java", "doIt", "()V", i), Mutator.INCREMENTS, i,
+        "changed increment", null));
+    }
+
+    // then
+    assertThat(store.size()).isEqualTo(100);
+    assertThat(store.lineNumber(99)).isEqualTo(99);
+    assertThat(strings.size()).isEqualTo(5);
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * Sonar Pitest Plugin
+ * Copyright (C) 2009-2018 Vinod Anandan
+ * vinod@owasp.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.pitest.scanner;
+
+import org.junit.Test;
+import org.sonar.plugins.pitest.domain.MutantStatus;
+import org.sonar.plugins.pitest.domain.Mutator;
+import org.sonar.plugins.pitest.domain.TestMutantBuilder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MutationsCompactWriterTest {
+
+  @Test
+  public void should_write_each_string_once() {
+    // given
+    SourceFileReport report = qix();
+
+    // when
+    String compact = MutationsCompactWriter.write(report.getStore(), false);
+
+    // then
+    assertThat(compact).isEqualTo("{\"v\":1,"
+      + "\"d\":[\"com.foo.bar.Qix\",\"Qix.java\",\"doIt\",\"Inline Constant Mutator\",\"An inline constant has been changed\",\"QixTest.\\\"doIt\\\"\","
+      + "\"Return Values Mutator\",\"The return value of a method call has been replaced\"],"
+      + "\"m\":[[3,1,1,0,1,2,3,4,5],[3,2,0,0,1,2,6,7,-1],[12,0,0,0,1,2,3,4,-1]]}");
+  }
+
+  @Test
+  public void should_only_write_survived_mutants() {
+    // when
+    String compact = MutationsCompactWriter.write(qix().getStore(), true);
+
+    // then
+    assertThat(compact).isEqualTo("{\"v\":1,"
+      + "\"d\":[\"com.foo.bar.Qix\",\"Qix.java\",\"doIt\",\"Return Values Mutator\",\"The return value of a method call has been replaced\"],"
+      + "\"m\":[[3,2,0,0,1,2,3,4,-1]]}");
+  }
+
+  @Test
+  public void should_write_nothing_without_survived_mutants() {
+    // given
+    SourceFileReport report = new SourceFileReport("com/foo/bar/Qix.java");
+    report.addMutant(new TestMutantBuilder().mutantStatus(MutantStatus.KILLED).className("com.foo.bar.Qix").sourceFile("Qix.java").build());
+
+    // when
+    String compact = MutationsCompactWriter.write(report.getStore(), true);
+
+    // then
+    assertThat(compact).isNull();
+  }
+
+  @Test
+  public void should_count_mutants_of_each_line_by_status_code() {
+    // when
+    String lines = MutationsCompactWriter.writeLines(qix().getStore());
+
+    // then
+    assertThat(lines).isEqualTo("{\"v\":1,\"l\":[[3,0,1,1,0,0],[12,1,0,0,0,0]]}");
+  }
+
+  private static SourceFileReport qix() {
+    SourceFileReport report = new SourceFileReport("com/foo/bar/Qix.java");
+    report.addMutant(new TestMutantBuilder().detected(false).mutantStatus(MutantStatus.NO_COVERAGE).className("com.foo.bar.Qix").sourceFile("Qix.java")
+      .mutatedMethod("doIt").lineNumber(12).mutator(Mutator.INLINE_CONSTS).build());
+    report.addMutant(new TestMutantBuilder().detected(true).mutantStatus(MutantStatus.KILLED).className("com.foo.bar.Qix").sourceFile("Qix.java")
+      .mutatedMethod("doIt").lineNumber(3).mutator(Mutator.INLINE_CONSTS).killingTest("QixTest.\"doIt\"").build());
+    report.addMutant(new TestMutantBuilder().detected(false).mutantStatus(MutantStatus.SURVIVED).className("com.foo.bar.Qix").sourceFile("Qix.java")
+      .mutatedMethod("doIt").lineNumber(3).mutator(Mutator.RETURN_VALS).build());
+    return report;
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ * Sonar Pitest Plugin
+ * Copyright (C) 2009-2018 Vinod Anandan
+ * vinod@owasp.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.pitest.scanner;
+
+import org.junit.Test;
+import org.sonar.plugins.pitest.domain.MutantStatus;
+import org.sonar.plugins.pitest.domain.Mutator;
+import org.sonar.plugins.pitest.domain.TestMutantBuilder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.plugins.pitest.PitestConstants.MUTATIONS_DATA_FORMAT_COMPACT;
+import static org.sonar.plugins.pitest.PitestConstants.MUTATIONS_DATA_FORMAT_DEFLATE;
+import static org.sonar.plugins.pitest.PitestConstants.MUTATIONS_DATA_FORMAT_JSON;
+import static org.sonar.plugins.pitest.PitestConstants.MUTATIONS_DATA_FULL;
+import static org.sonar.plugins.pitest.PitestConstants.MUTATIONS_DATA_LINES;
+import static org.sonar.plugins.pitest.PitestConstants.MUTATIONS_DATA_NONE;
+import static org.sonar.plugins.pitest.PitestConstants.MUTATIONS_DATA_SURVIVED;
+
+public class MutationsDataEncoderTest {
+
+  @Test
+  public void should_keep_the_original_json_by_default() {
+    // given
+    MutantStore mutants = qix();
+
+    // when
+    String data = new MutationsDataEncoder(MUTATIONS_DATA_FULL, MUTATIONS_DATA_FORMAT_JSON).encode(mutants);
+
+    // then
+    assertThat(data).isEqualTo(MutationsJsonWriter.write(mutants));
+  }
+
+  @Test
+  public void should_write_the_selected_level_in_the_selected_format() {
+    // given
+    MutantStore mutants = qix();
+
+    // then
+    assertThat(new MutationsDataEncoder(MUTATIONS_DATA_SURVIVED, MUTATIONS_DATA_FORMAT_JSON).encode(mutants)).isEqualTo(MutationsJsonWriter.write(mutants, true));
+    assertThat(new MutationsDataEncoder(MUTATIONS_DATA_FULL, MUTATIONS_DATA_FORMAT_COMPACT).encode(mutants))
+      .isEqualTo(MutationsCompactWriter.write(mutants, false));
+    assertThat(new MutationsDataEncoder(MUTATIONS_DATA_SURVIVED, MUTATIONS_DATA_FORMAT_COMPACT).encode(mutants))
+      .isEqualTo(MutationsCompactWriter.write(mutants, true));
+    assertThat(new MutationsDataEncoder(MUTATIONS_DATA_LINES, MUTATIONS_DATA_FORMAT_COMPACT).encode(mutants)).isEqualTo(MutationsCompactWriter.writeLines(mutants));
+  }
+
+  @Test
+  public void should_write_the_per_line_summary_in_the_versioned_compact_form_for_the_json_format() {
+    // given
+    MutantStore mutants = qix();
+
+    // when
+    String lines = new MutationsDataEncoder(MUTATIONS_DATA_LINES, MUTATIONS_DATA_FORMAT_JSON).encode(mutants);
+
+    // then
+    assertThat(lines).isEqualTo(MutationsCompactWriter.writeLines(mutants)).startsWith("{\"v\":");
+  }
+
+  @Test
+  public void should_deflate_the_compact_form() {
+    // given
+    MutantStore mutants = qix();
+
+    // when
+    String data = new MutationsDataEncoder(MUTATIONS_DATA_FULL, MUTATIONS_DATA_FORMAT_DEFLATE).encode(mutants);
+
+    // then
+    assertThat(data).startsWith(MutationsDataEncoder.DEFLATED_PREFIX);
+    assertThat(data.length()).isLessThan(MutationsCompactWriter.write(mutants, false).length());
+    assertThat(MutationsDataEncoder.decode(data)).isEqualTo(MutationsCompactWriter.write(mutants, false));
+  }
+
+  @Test
+  public void should_decode_values_that_are_not_deflated_as_they_are() {
+    String json = MutationsJsonWriter.write(qix());
+    assertThat(MutationsDataEncoder.decode(json)).isSameAs(json);
+  }
+
+  @Test
+  public void should_write_nothing_for_level_none() {
+    // given
+    MutationsDataEncoder encoder = new MutationsDataEncoder(MUTATIONS_DATA_NONE, MUTATIONS_DATA_FORMAT_COMPACT);
+
+    // then
+    assertThat(encoder.isEnabled()).isFalse();
+    assertThat(encoder.needsMutants()).isFalse();
+    assertThat(encoder.encode(qix())).isNull();
+  }
+
+  @Test
+  public void should_only_need_mutant_details_for_mutant_levels() {
+    assertThat(new MutationsDataEncoder(MUTATIONS_DATA_FULL, MUTATIONS_DATA_FORMAT_JSON).needsMutants()).isTrue();
+    assertThat(new MutationsDataEncoder(MUTATIONS_DATA_SURVIVED, MUTATIONS_DATA_FORMAT_JSON).needsMutants()).isTrue();
+    assertThat(new MutationsDataEncoder(MUTATIONS_DATA_LINES, MUTATIONS_DATA_FORMAT_JSON).needsMutants()).isFalse();
+  }
+
+  private static MutantStore qix() {
+    SourceFileReport report = new SourceFileReport("com/foo/bar/Qix.java");
+    for (int line = 1; line <= 40; line++) {
+      report.addMutant(new TestMutantBuilder().detected(line % 3 == 0).mutantStatus(line % 3 == 0 ? MutantStatus.KILLED : MutantStatus.SURVIVED)
+        .className("com.foo.bar.Qix").sourceFile("Qix.java").mutatedMethod("method" + line / 10).lineNumber(line)
+        .mutator(line % 2 == 0 ? Mutator.INLINE_CONSTS : Mutator.RETURN_VALS).killingTest(line % 3 == 0 ? "QixTest.test" : null).build());
+    }
+    return report.getStore();
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ * Sonar Pitest Plugin
+ * Copyright (C) 2009-2018 Vinod Anandan
+ * vinod@owasp.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.pitest.scanner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.junit.Test;
+import org.sonar.plugins.pitest.domain.Mutant;
+import org.sonar.plugins.pitest.domain.MutantStatus;
+import org.sonar.plugins.pitest.domain.Mutator;
+import org.sonar.plugins.pitest.domain.TestMutantBuilder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MutationsJsonWriterTest {
+
+  @Test
+  public void should_write_lines_in_ascending_order_and_mutants_in_report_order() {
+    // given
+    SourceFileReport report = new SourceFileReport("com/foo/bar/Qix.java");
+    List<Mutant> mutants = new ArrayList<>();
+    for (int line : new int[] {120, 7, 33, 7, 1000, 33, 120, 2}) {
+      Mutant mutant = new TestMutantBuilder().detected(line % 2 == 0).mutantStatus(line % 2 == 0 ? MutantStatus.KILLED : MutantStatus.SURVIVED)
+        .className("com.foo.bar.Qix").sourceFile("Qix.java").mutatedMethod("m" + mutants.size()).lineNumber(line).mutator(Mutator.INLINE_CONSTS)
+        .killingTest(line % 2 == 0 ? "QixTest.test" + line : null).build();
+      mutants.add(mutant);
+      report.addMutant(mutant);
+    }
+
+    // when
+    String json = MutationsJsonWriter.write(report.getStore());
+
+    // then
+    assertThat(json).isEqualTo(concatenated(mutants));
+  }
+
+  @Test
+  public void should_escape_strings() {
+    // given
+    SourceFileReport report = new SourceFileReport("com/foo/bar/Qix.java");
+    report.addMutant(new TestMutantBuilder().mutantStatus(MutantStatus.KILLED).className("com.foo.bar.Qix").sourceFile("Qix.java").mutatedMethod("m")
+      .lineNumber(3).mutator(Mutator.INLINE_CONSTS).killingTest("QixTest.[\"a\\b\"]\n\t\u0001").build());
+
+    // when
+    String json = MutationsJsonWriter.write(report.getStore());
+
+    // then
+    assertThat(json).contains("\"killtest\" : \"QixTest.[\\\"a\\\\b\\\"]\\n\\t\\u0001\" }");
+  }
+
+  @Test
+  public void should_only_write_survived_mutants() {
+    // given
+    SourceFileReport report = new SourceFileReport("com/foo/bar/Qix.java");
+    Mutant survived = new TestMutantBuilder().detected(false).mutantStatus(MutantStatus.SURVIVED).className("com.foo.bar.Qix").sourceFile("Qix.java")
+      .mutatedMethod("m").lineNumber(9).mutator(Mutator.INLINE_CONSTS).build();
+    report.addMutant(new TestMutantBuilder().mutantStatus(MutantStatus.KILLED).className("com.foo.bar.Qix").sourceFile("Qix.java").lineNumber(4).build());
+    report.addMutant(survived);
+
+    // when
+    String json = MutationsJsonWriter.write(report.getStore(), true);
+
+    // then
+    assertThat(json).isEqualTo("{\"9\":[" + survived + "]}");
+  }
+
+  @Test
+  public void should_write_nothing_without_mutants() {
+    assertThat(MutationsJsonWriter.write(new SourceFileReport("com/foo/bar/Qix.java").getStore())).isNull();
+  }
+
+  /**
+   * The mutants rendered one by one with {@link Mutant#toString()}, grouped by line in ascending order.
+   */
+  private static String concatenated(List<Mutant> mutants) {
+    Map<Integer, List<String>> byLine = new TreeMap<>();
+    for (Mutant mutant : mutants) {
+      byLine.computeIfAbsent(mutant.lineNumber(), line -> new ArrayList<>()).add(mutant.toString());
+    }
+    StringBuilder builder = new StringBuilder("{");
+    for (Map.Entry<Integer, List<String>> line : byLine.entrySet()) {
+      if (builder.length() > 1) {
+        builder.append(',');
+      }
+      builder.append('"').append(line.getKey()).append("\":[").append(String.join(",", line.getValue())).append(']');
+    }
+    return builder.append('}').toString();
+  }
+}
@@ -0,0 +1,238 @@
+/*
+ * Sonar Pitest Plugin
+ * Copyright (C) 2009-2018 Vinod Anandan
+ * vinod@owasp.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.pitest.scanner;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Writes synthetic but PIT-shaped <code>mutations.xml</code> reports. The output only depends on the
+ * configured sizes and seed, so that benchmarks and scale tests compare like with like between commits.
+ * <p>
+ * Mutants are spread evenly over the source files. Within a file they walk through the classes (top level
+ * and inner), methods and lines, {@link #mutantsPerLine(int)} at a time, so that several mutants share
+ * a line as they do in real reports.
+ */
+public class MutationsXmlGenerator {
+
+  /**
+   * Line numbers stay below this value, so that callers can build matching input files.
+   */
+  public static final int LINES_PER_FILE = 500;
+
+  private static final String[] MUTATORS = {
+    "org.pitest.mutationtest.engine.gregor.mutators.NegateConditionalsMutator",
+    "org.pitest.mutationtest.engine.gregor.mutators.ConditionalsBoundaryMutator",
+    "org.pitest.mutationtest.engine.gregor.mutators.MathMutator",
+    "org.pitest.mutationtest.engine.gregor.mutators.IncrementsMutator",
+    "org.pitest.mutationtest.engine.gregor.mutators.VoidMethodCallMutator",
+    "org.pitest.mutationtest.engine.gregor.mutators.ReturnValsMutator",
+    "org.pitest.mutationtest.engine.gregor.mutators.InvertNegsMutator"
+  };
+
+  private static final String[] DESCRIPTIONS = {
+    "negated conditional",
+    "changed conditional boundary",
+    "Replaced integer addition with subtraction",
+    "Changed increment from 1 to -1",
+    "removed call to com/acme/Service::run",
+    "replaced return of integer sized value with (x == 0 ? 1 : 0)",
+    "removed negation"
+  };
+
+  private static final String[] METHOD_DESCRIPTIONS = {"()V", "(I)Z", "(Ljava/lang/String;)Ljava/lang/String;", "(JJ)J"};
+
+  private static final String[] OTHER_STATUSES = {"TIMED_OUT", "MEMORY_ERROR", "RUN_ERROR", "NON_VIABLE"};
+
+  private int files = 100;
+  private int mutants = 1_000;
+  private int classesPerFile = 2;
+  private int methodsPerClass = 10;
+  private int mutantsPerLine = 2;
+  private int killedPercent = 60;
+  private int survivedPercent = 20;
+  private int noCoveragePercent = 15;
+  private int kotlinPercent = 0;
+  private boolean killingTests = true;
+  private long seed = 42L;
+
+  public MutationsXmlGenerator files(int files) {
+    this.files = files;
+    return this;
+  }
+
+  public MutationsXmlGenerator mutants(int mutants) {
+    this.mutants = mutants;
+    return this;
+  }
+
+  /**
+   * Classes compiled from each source file: the top level class, then <code>$Inner1</code>, <code>$Inner2</code>...
+   */
+  public MutationsXmlGenerator classesPerFile(int classesPerFile) {
+    this.classesPerFile = classesPerFile;
+    return this;
+  }
+
+  public MutationsXmlGenerator methodsPerClass(int methodsPerClass) {
+    this.methodsPerClass = methodsPerClass;
+    return this;
+  }
+
+  public MutationsXmlGenerator mutantsPerLine(int mutantsPerLine) {
+    this.mutantsPerLine = mutantsPerLine;
+    return this;
+  }
+
+  /**
+   * Status mix, in percent. Whatever remains up to 100 goes to TIMED_OUT, MEMORY_ERROR, RUN_ERROR and NON_VIABLE.
+   */
+  public MutationsXmlGenerator statuses(int killedPercent, int survivedPercent, int noCoveragePercent) {
+    this.killedPercent = killedPercent;
+    this.survivedPercent = survivedPercent;
+    this.noCoveragePercent = noCoveragePercent;
+    return this;
+  }
+
+  /**
+   * Share of the source files, in percent, that are Kotlin instead of Java.
+   */
+  public MutationsXmlGenerator kotlinPercent(int kotlinPercent) {
+    this.kotlinPercent = kotlinPercent;
+    return this;
+  }
+
+  public MutationsXmlGenerator killingTests(boolean killingTests) {
+    this.killingTests = killingTests;
+    return this;
+  }
+
+  public MutationsXmlGenerator seed(long seed) {
+    this.seed = seed;
+    return this;
+  }
+
+  public Path write(Path report) throws IOException {
+    try (Writer writer = new BufferedWriter(Files.newBufferedWriter(report, StandardCharsets.UTF_8), 1 << 16)) {
+      write(writer);
+    }
+    return report;
+  }
+
+  public void write(Writer writer) throws IOException {
+    Random random = new Random(seed);
+    int fileCount = fileCount();
+    writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<mutations>\n");
+    for (int file = 0; file < fileCount; file++) {
+      String packageName = packageName(file);
+      String className = className(file);
+      String sourceFile = className + (isKotlin(file) ? ".kt" : ".java");
+      int first = (int) ((long) file * mutants / fileCount);
+      int last = (int) ((long) (file + 1) * mutants / fileCount);
+      for (int i = 0; i < last - first; i++) {
+        int step = i / mutantsPerLine;
+        int innerClass = step % classesPerFile;
+        int mutator = random.nextInt(MUTATORS.length);
+        String status = status(random);
+        boolean detected = !"SURVIVED".equals(status) && !"NO_COVERAGE".equals(status);
+
+        writer.write("<mutation detected='" + detected + "' status='" + status + "'>");
+        element(writer, "sourceFile", sourceFile);
+        element(writer, "mutatedClass", packageName + "." + className + (innerClass == 0 ? "" : "$Inner" + innerClass));
+        element(writer, "mutatedMethod", "method" + (step / classesPerFile) % methodsPerClass);
+        element(writer, "methodDescription", METHOD_DESCRIPTIONS[step % METHOD_DESCRIPTIONS.length]);
+        element(writer, "lineNumber", String.valueOf(1 + step % (LINES_PER_FILE - 1)));
+        element(writer, "mutator", MUTATORS[mutator]);
+        element(writer, "index", String.valueOf(i % mutantsPerLine));
+        element(writer, "block", String.valueOf(step % 7));
+        element(writer, "killingTest", killingTests && "KILLED".equals(status) ? killingTest(random, packageName, className) : "");
+        element(writer, "description", DESCRIPTIONS[mutator]);
+        writer.write("</mutation>\n");
+      }
+    }
+    writer.write("</mutations>\n");
+  }
+
+  /**
+   * @return the module relative path of every source file the report refers to, in the layout of a
+   * Maven project (<code>src/main/java</code> and <code>src/main/kotlin</code>)
+   */
+  public List<String> sourceFiles() {
+    int fileCount = fileCount();
+    List<String> sourceFiles = new ArrayList<>(fileCount);
+    for (int file = 0; file < fileCount; file++) {
+      String path = packageName(file).replace('.', '/') + "/" + className(file);
+      sourceFiles.add(isKotlin(file) ? ("src/main/kotlin/" + path + ".kt") : ("src/main/java/" + path + ".java"));
+    }
+    return sourceFiles;
+  }
+
+  private int fileCount() {
+    return Math.max(1, Math.min(files, mutants));
+  }
+
+  private boolean isKotlin(int file) {
+    return (long) file * kotlinPercent % 100 < kotlinPercent;
+  }
+
+  private static String packageName(int file) {
+    return "com.acme.p" + (file % 97);
+  }
+
+  private static String className(int file) {
+    return "Generated" + file;
+  }
+
+  private String status(Random random) {
+    int percentile = random.nextInt(100);
+    if (percentile < killedPercent) {
+      return "KILLED";
+    }
+    if (percentile < killedPercent + survivedPercent) {
+      return "SURVIVED";
+    }
+    if (percentile < killedPercent + survivedPercent + noCoveragePercent) {
+      return "NO_COVERAGE";
+    }
+    return OTHER_STATUSES[percentile % OTHER_STATUSES.length];
+  }
+
+  private static String killingTest(Random random, String packageName, String className) {
+    String testClass = packageName + "." + className + "Test";
+    return testClass + ".test" + random.nextInt(10) + "(" + testClass + ")";
+  }
+
+  private static void element(Writer writer, String name, String text) throws IOException {
+    writer.write('<');
+    writer.write(name);
+    writer.write('>');
+    writer.write(text);
+    writer.write("</");
+    writer.write(name);
+    writer.write('>');
+  }
+}
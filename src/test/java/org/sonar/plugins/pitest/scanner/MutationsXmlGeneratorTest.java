@@ -0,0 +1,82 @@
+/*
+ * Sonar Pitest Plugin
+ * Copyright (C) 2009-2018 Vinod Anandan
+ * vinod@owasp.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.pitest.scanner;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.plugins.pitest.domain.Mutant;
+import org.sonar.plugins.pitest.domain.MutantStatus;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MutationsXmlGeneratorTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void should_be_deterministic() throws IOException {
+    // given
+    MutationsXmlGenerator generator = new MutationsXmlGenerator().files(10).mutants(200).kotlinPercent(30);
+    StringWriter first = new StringWriter();
+    StringWriter second = new StringWriter();
+    StringWriter otherSeed = new StringWriter();
+
+    // when
+    generator.write(first);
+    generator.write(second);
+    generator.seed(7L).write(otherSeed);
+
+    // then
+    assertThat(first.toString()).isEqualTo(second.toString());
+    assertThat(otherSeed.toString()).isNotEqualTo(first.toString());
+  }
+
+  @Test
+  public void should_write_parseable_report_matching_source_files() throws IOException {
+    // given
+    MutationsXmlGenerator generator = new MutationsXmlGenerator().files(20).mutants(1_000).classesPerFile(3).mutantsPerLine(4).kotlinPercent(10)
+      .statuses(50, 30, 20);
+    File report = generator.write(temporaryFolder.getRoot().toPath().resolve("mutations.xml")).toFile();
+
+    // when
+    List<Mutant> mutants = new ArrayList<>();
+    new XmlReportParser().parse(report, mutants::add);
+
+    // then
+    assertThat(mutants).hasSize(1_000);
+    assertThat(mutants).extracting(m -> m.mutantStatus).containsOnly(MutantStatus.KILLED, MutantStatus.SURVIVED, MutantStatus.NO_COVERAGE);
+    assertThat(mutants).extracting(m -> m.mutantLocation.lineNumber).allMatch(line -> line > 0 && line < MutationsXmlGenerator.LINES_PER_FILE);
+    assertThat(mutants).filteredOn(m -> m.mutantLocation.className.contains("$Inner2")).isNotEmpty();
+    assertThat(mutants).filteredOn(m -> m.mutantStatus == MutantStatus.KILLED).allMatch(m -> m.killingTest.endsWith("Test)"));
+
+    ProjectReport projectReport = new ProjectReport(mutants);
+    List<String> sourceFiles = generator.sourceFiles();
+    assertThat(sourceFiles).hasSize(20).filteredOn(path -> path.endsWith(".kt")).hasSize(2);
+    assertThat(projectReport.getSourceFileReports()).hasSize(20)
+      .allMatch(sourceFileReport -> sourceFiles.stream().anyMatch(path -> path.endsWith("/" + sourceFileReport.getRelativePath())));
+  }
+}
@@ -0,0 +1,179 @@
+/*
+ * Sonar Pitest Plugin
+ * Copyright (C) 2009-2018 Vinod Anandan
+ * vinod@owasp.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.pitest.scanner;
+
+import com.google.common.io.Resources;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.sonar.plugins.pitest.domain.Mutant;
+import org.sonar.plugins.pitest.domain.MutantStatus;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class MutationsXmlScannerTest {
+
+  private static final String[] FIXTURES = {
+    "mutations.xml",
+    "mutations-kotlin.xml",
+    "mutations-elements-out-of-order.xml",
+    "pit-reports/201710212128/mutations.xml",
+    "pit-reports/201710281222/mutations.xml",
+    "pit-reports/201710281222/mutations-small.xml",
+    "xml-report-parser-test/mutations.xml",
+    "xml-report-parser-test/mutations-unordered.xml"
+  };
+
+  @Test
+  public void should_find_the_same_mutants_as_the_stax_parser() throws IOException {
+    XmlReportParser staxParser = new XmlReportParser();
+    for (String fixture : FIXTURES) {
+      // given
+      File report = new File(Resources.getResource(fixture).getFile());
+
+      // when
+      List<Mutant> mutants = scan(Files.readAllBytes(report.toPath()));
+
+      // then
+      assertThat(mutants).as(fixture).usingRecursiveFieldByFieldElementComparator().containsExactlyElementsOf(staxParser.parse(report));
+    }
+  }
+
+  @Test
+  public void should_resolve_entities() {
+    // when
+    List<Mutant> mutants = scan(mutations(
+      "<mutation detected='false' status='SURVIVED'><sourceFile>A.java</sourceFile><mutatedClass>a.A</mutatedClass>"
+        + "<mutatedMethod>&#60;init&#62;</mutatedMethod><lineNumber> 12 </lineNumber><index>3</index>"
+        + "<description>a &amp;&amp; b &lt; &#x43;</description></mutation>"));
+
+    // then
+    assertThat(mutants).hasSize(1);
+    Mutant mutant = mutants.get(0);
+    assertThat(mutant.mutantLocation.mutatedMethod).isEqualTo("<init>");
+    assertThat(mutant.description).isEqualTo("a && b < C");
+    assertThat(mutant.lineNumber()).isEqualTo(12);
+    assertThat(mutant.index).isEqualTo(3);
+    assertThat(mutant.mutantStatus).isEqualTo(MutantStatus.SURVIVED);
+  }
+
+  @Test
+  public void should_scan_shards_without_root_element() {
+    // when
+    List<Mutant> mutants = scan(("<mutation detected=\"true\" status=\"KILLED\"><sourceFile>A.java</sourceFile><mutatedClass>a.A</mutatedClass>"
+      + "<killingTest/></mutation>\n").getBytes(StandardCharsets.UTF_8));
+
+    // then
+    assertThat(mutants).hasSize(1);
+    assertThat(mutants.get(0).detected).isTrue();
+    assertThat(mutants.get(0).killingTest).isEmpty();
+  }
+
+  @Test
+  public void should_stop_on_unknown_nested_element_and_tell_how_many_mutants_were_emitted() {
+    // given
+    String known = "<mutation detected='true' status='KILLED'><sourceFile>A.java</sourceFile><mutatedClass>a.A</mutatedClass></mutation>";
+    String unknown = "<mutation detected='true' status='KILLED'><sourceFile>A.java</sourceFile><killingTests><test/></killingTests></mutation>";
+    List<Mutant> mutants = new ArrayList<>();
+
+    // when
+    Throwable thrown = catchThrowable(() -> new MutationsXmlScanner(ByteBuffer.wrap(mutations(known + unknown)), mutants::add).scan());
+
+    // then
+    assertThat(thrown).isInstanceOf(MutationsXmlScanner.UnsupportedContentException.class);
+    assertThat(((MutationsXmlScanner.UnsupportedContentException) thrown).processed()).isEqualTo(1);
+    assertThat(mutants).hasSize(1);
+  }
+
+  @Test
+  public void should_step_over_unknown_leaf_elements() {
+    // given
+    String mutation = "<mutation detected='true' status='KILLED' numberOfTestsRun='1'><sourceFile>A.java</sourceFile><mutatedClass>a.A</mutatedClass>"
+      + "<index>1</index><block>4</block><extra/><extra2 value='x'></extra2><killingTest>a.ATest</killingTest></mutation>";
+    List<Mutant> mutants = new ArrayList<>();
+    MutationsXmlScanner scanner = new MutationsXmlScanner(ByteBuffer.wrap(mutations(mutation + mutation)), mutants::add);
+
+    // when
+    scanner.scan();
+
+    // then
+    assertThat(scanner.processed()).isEqualTo(2);
+    assertThat(mutants).extracting(m -> m.index).containsExactly(1, 1);
+    assertThat(mutants).extracting(m -> m.killingTest).containsExactly("a.ATest", "a.ATest");
+  }
+
+  @Test
+  public void should_skip_mutants_rejected_by_the_filter() {
+    // given
+    String kept = "<mutation detected='true' status='KILLED'><sourceFile>A.java</sourceFile><mutatedClass>a.A</mutatedClass><index>%d</index></mutation>";
+    String rejected = "<mutation detected='true' status='KILLED'><sourceFile>B.java</sourceFile><mutatedClass>b.B</mutatedClass><lineNumber>x</lineNumber><extra/></mutation>";
+    List<Mutant> mutants = new ArrayList<>();
+    MutationsXmlScanner scanner = new MutationsXmlScanner(ByteBuffer.wrap(mutations(String.format(kept, 0) + rejected + String.format(kept, 2))), mutants::add,
+      new StringDictionary(), "a/A.java"::equals, MutantField.all());
+
+    // when
+    scanner.scan();
+
+    // then
+    assertThat(mutants).extracting(m -> m.index).containsExactly(0, 2);
+    assertThat(scanner.processed()).isEqualTo(3);
+  }
+
+  @Test
+  public void should_stop_on_unbalanced_root_element() {
+    assertUnsupported("<mutations><mutations>");
+  }
+
+  @Test
+  public void should_stop_on_invalid_number() {
+    assertUnsupported("<mutations><mutation><sourceFile>A.java</sourceFile><lineNumber>not a number</lineNumber></mutation></mutations>");
+  }
+
+  @Test
+  public void should_stop_on_cdata() {
+    assertUnsupported("<mutations><mutation><description><![CDATA[x]]></description></mutation></mutations>");
+  }
+
+  @Test
+  public void should_stop_on_truncated_content() {
+    assertUnsupported("<mutations><mutation detected='true' status='KILLED'><sourceFile>A.ja");
+  }
+
+  private static void assertUnsupported(String content) {
+    Throwable thrown = catchThrowable(() -> scan(content.getBytes(StandardCharsets.UTF_8)));
+    assertThat(thrown).isInstanceOf(MutationsXmlScanner.UnsupportedContentException.class);
+  }
+
+  private static byte[] mutations(String content) {
+    return ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<!-- generated -->\n<mutations>\n" + content + "\n</mutations>\n").getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static List<Mutant> scan(byte[] content) {
+    List<Mutant> mutants = new ArrayList<>();
+    new MutationsXmlScanner(ByteBuffer.wrap(content), mutants::add).scan();
+    return mutants;
+  }
+}
@@ -0,0 +1,143 @@
+/*
+ * Sonar Pitest Plugin
+ * Copyright (C) 2009-2018 Vinod Anandan
+ * vinod@owasp.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.pitest.scanner;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+import org.sonar.api.batch.sensor.internal.SensorContextTester;
+import org.sonar.api.config.internal.MapSettings;
+import org.sonar.api.profiles.RulesProfile;
+import org.sonar.api.rules.ActiveRule;
+import org.sonar.api.rules.Rule;
+import org.sonar.plugins.pitest.PitestMetrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.sonar.plugins.pitest.PitestConstants.COVERAGE_RATIO_PARAM;
+import static org.sonar.plugins.pitest.PitestConstants.INSUFFICIENT_MUTATION_COVERAGE_RULE_KEY;
+import static org.sonar.plugins.pitest.PitestConstants.MODE_KEY;
+import static org.sonar.plugins.pitest.PitestConstants.MODE_REUSE_REPORT;
+import static org.sonar.plugins.pitest.PitestConstants.REPORT_DIRECTORY_DEF;
+import static org.sonar.plugins.pitest.PitestConstants.REPORT_DIRECTORY_KEY;
+import static org.sonar.plugins.pitest.PitestConstants.REPOSITORY_KEY;
+import static org.sonar.plugins.pitest.PitestConstants.SURVIVED_MUTANT_RULE_KEY;
+
+/**
+ * End to end runs of {@link PitestSensor} on generated reports, failing when wall time or peak heap go over
+ * budget. Not part of the default build: run with <code>mvn -Pscale test</code>, budgets can be changed with
+ * <code>-Dpitest.scale.maxSeconds</code> and <code>-Dpitest.scale.maxHeapMb</code>.
+ */
+public class PitestSensorScaleTest {
+
+  private static final long MAX_SECONDS = Long.getLong("pitest.scale.maxSeconds", 60L);
+  private static final long MAX_HEAP_MB = Long.getLong("pitest.scale.maxHeapMb", 1536L);
+
+  @org.junit.Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void ten_thousand_files() throws IOException {
+    analyse(new MutationsXmlGenerator().files(10_000).mutants(200_000).kotlinPercent(10));
+  }
+
+  @Test
+  public void one_million_mutants() throws IOException {
+    analyse(new MutationsXmlGenerator().files(2_000).mutants(1_000_000).classesPerFile(3).mutantsPerLine(3));
+  }
+
+  private void analyse(MutationsXmlGenerator generator) throws IOException {
+    // given
+    File baseDir = temporaryFolder.newFolder();
+    Path reportDirectory = baseDir.toPath().resolve(REPORT_DIRECTORY_DEF).resolve("201801010000");
+    Files.createDirectories(reportDirectory);
+    generator.write(reportDirectory.resolve("mutations.xml"));
+
+    SensorContextTester context = SensorContextTester.create(baseDir);
+    String contents = sourceLines();
+    for (String sourceFile : generator.sourceFiles()) {
+      context.fileSystem().add(new TestInputFileBuilder("module.key", sourceFile)
+        .setModuleBaseDir(baseDir.toPath())
+        .setLanguage(sourceFile.endsWith(".java") ? "java" : "kotlin")
+        .setType(InputFile.Type.MAIN)
+        .initMetadata(contents)
+        .build());
+    }
+    MapSettings settings = new MapSettings()
+      .setProperty(MODE_KEY, MODE_REUSE_REPORT)
+      .setProperty(REPORT_DIRECTORY_KEY, REPORT_DIRECTORY_DEF);
+    PitestSensor sensor = new PitestSensor(settings.asConfig(), new XmlReportParser(), rulesProfile(), new XmlReportFinder(), context.fileSystem());
+
+    // when
+    System.gc();
+    ManagementFactory.getMemoryPoolMXBeans().forEach(MemoryPoolMXBean::resetPeakUsage);
+    long start = System.nanoTime();
+    sensor.execute(context);
+    long seconds = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start);
+    long peakHeapMb = peakHeapUsage() >> 20;
+
+    // then
+    String someFile = "module.key:" + generator.sourceFiles().get(0);
+    assertThat(context.measure(someFile, PitestMetrics.MUTATIONS_GENERATED_KEY)).isNotNull();
+    assertThat(context.allIssues()).isNotEmpty();
+    assertThat(seconds).as("wall time in seconds").isLessThanOrEqualTo(MAX_SECONDS);
+    assertThat(peakHeapMb).as("peak heap in MB").isLessThanOrEqualTo(MAX_HEAP_MB);
+  }
+
+  private static String sourceLines() {
+    StringBuilder contents = new StringBuilder();
+    for (int line = 0; line < MutationsXmlGenerator.LINES_PER_FILE; line++) {
+      contents.append("  statement();\n");
+    }
+    return contents.toString();
+  }
+
+  private static long peakHeapUsage() {
+    long peak = 0;
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (pool.getType() == MemoryType.HEAP) {
+        peak += pool.getPeakUsage().getUsed();
+      }
+    }
+    return peak;
+  }
+
+  private static RulesProfile rulesProfile() {
+    RulesProfile rulesProfile = mock(RulesProfile.class);
+    ActiveRule survivedMutantRule = mock(ActiveRule.class);
+    when(survivedMutantRule.getRule()).thenReturn(Rule.create());
+    when(rulesProfile.getActiveRule(REPOSITORY_KEY, SURVIVED_MUTANT_RULE_KEY)).thenReturn(survivedMutantRule);
+    ActiveRule coverageRule = mock(ActiveRule.class);
+    when(coverageRule.getRule()).thenReturn(Rule.create());
+    when(coverageRule.getParameter(COVERAGE_RATIO_PARAM)).thenReturn("80");
+    when(rulesProfile.getActiveRule(REPOSITORY_KEY, INSUFFICIENT_MUTATION_COVERAGE_RULE_KEY)).thenReturn(coverageRule);
+    return rulesProfile;
+  }
+}
@@ -25,15 +25,22 @@ import java.io.Serializable;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.internal.DefaultFileSystem;
 import org.sonar.api.batch.fs.internal.DefaultInputFile;
 import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
 import org.sonar.api.batch.sensor.SensorDescriptor;
 import org.sonar.api.batch.sensor.internal.SensorContextTester;
+import org.sonar.api.batch.sensor.issue.Issue;
 import org.sonar.api.batch.sensor.measure.Measure;
 import org.sonar.api.config.Configuration;
 import org.sonar.api.profiles.RulesProfile;
@@ -43,20 +50,36 @@ import org.sonar.plugins.pitest.PitestConstants;
 import org.sonar.plugins.pitest.PitestMetrics;
 import org.sonar.plugins.pitest.domain.Mutant;
 import org.sonar.plugins.pitest.domain.MutantStatus;
+import org.sonar.plugins.pitest.domain.Mutator;
 import org.sonar.plugins.pitest.domain.TestMutantBuilder;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.sonar.plugins.pitest.PitestConstants.MODE_KEY;
 import static org.sonar.plugins.pitest.PitestConstants.MODE_REUSE_REPORT;
 import static org.sonar.plugins.pitest.PitestConstants.MODE_SKIP;
+import static org.sonar.plugins.pitest.PitestConstants.MUTATIONS_DATA_FORMAT_DEFLATE;
+import static org.sonar.plugins.pitest.PitestConstants.MUTATIONS_DATA_FORMAT_KEY;
+import static org.sonar.plugins.pitest.PitestConstants.MUTATIONS_DATA_KEY;
+import static org.sonar.plugins.pitest.PitestConstants.MUTATIONS_DATA_LINES;
+import static org.sonar.plugins.pitest.PitestConstants.MUTATIONS_DATA_NONE;
+import static org.sonar.plugins.pitest.PitestConstants.PARSER_CACHE_DIRECTORY_KEY;
+import static org.sonar.plugins.pitest.PitestConstants.PARSER_CACHE_KEY;
+import static org.sonar.plugins.pitest.PitestConstants.PARSER_SHARED_KEY;
+import static org.sonar.plugins.pitest.PitestConstants.PIPELINE_KEY;
+import static org.sonar.plugins.pitest.PitestConstants.PIPELINE_WINDOW_KEY;
 import static org.sonar.plugins.pitest.PitestConstants.REPORT_DIRECTORY_DEF;
 import static org.sonar.plugins.pitest.PitestConstants.REPORT_DIRECTORY_KEY;
 import static org.sonar.plugins.pitest.PitestConstants.REPOSITORY_KEY;
+import static org.sonar.plugins.pitest.PitestConstants.SURVIVED_MUTANT_GROUPING_KEY;
+import static org.sonar.plugins.pitest.PitestConstants.SURVIVED_MUTANT_GROUPING_LINE;
+import static org.sonar.plugins.pitest.PitestConstants.SURVIVED_MUTANT_GROUPING_METHOD;
 
 public class PitestSensorTest {
 
@@ -65,6 +88,9 @@ public class PitestSensorTest {
   private static final String JAVA_CLASS = "com.foo.Bar";
   private static final String KOTLIN_RELATIVE_PATH = "Maze.kt";
 
+  @org.junit.Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
   @Test
   public void should_describe_execution_conditions() throws Exception {
     // given
@@ -104,7 +130,7 @@ public class PitestSensorTest {
     // given
     Configuration configuration = mock(Configuration.class);
     when(configuration.get(MODE_KEY)).thenReturn(Optional.of(MODE_REUSE_REPORT));
-    when(configuration.get(REPORT_DIRECTORY_KEY)).thenReturn(Optional.of("nonexistant-directory"));
+    when(configuration.getStringArray(REPORT_DIRECTORY_KEY)).thenReturn(new String[] {"nonexistant-directory"});
     SensorContextTester context = createTestSensorContext();
     PitestSensor sensor = new PitestSensor(configuration, mock(XmlReportParser.class), mock(RulesProfile.class), mock(XmlReportFinder.class), context.fileSystem());
 
@@ -130,6 +156,29 @@ public class PitestSensorTest {
 
   }
 
+  @Test
+  public void should_leave_out_the_missing_description_of_mutants_of_a_csv_report() throws Exception {
+    // given
+    File report = temporaryFolder.newFile("mutations.csv");
+    Files.write(report.toPath(), Arrays.asList(
+      "Bar.java,com.foo.Bar,org.pitest.mutationtest.engine.gregor.mutators.NegateConditionalsMutator,doIt,2,SURVIVED,none",
+      "Bar.java,com.foo.Bar,org.pitest.mutationtest.engine.gregor.mutators.ReturnValsMutator,doIt,3,KILLED,com.foo.BarTest.doIt(com.foo.BarTest)"),
+      StandardCharsets.UTF_8);
+    XmlReportFinder xmlReportFinder = mock(XmlReportFinder.class);
+    when(xmlReportFinder.findReport(any(File.class))).thenReturn(report);
+    SensorContextTester context = createTestSensorContext();
+
+    // when
+    new PitestSensor(mockConfiguration(), new XmlReportParser(), mockRulesProfile(true, false), xmlReportFinder, context.fileSystem()).execute(context);
+
+    // then
+    assertThat(context.allIssues()).hasSize(1);
+    assertThat(context.allIssues().iterator().next().primaryLocation().message())
+      .isEqualTo("A conditional expression has been negated without breaking the tests");
+    assertMeasure(context, "module.key:com/foo/Bar.java", PitestMetrics.MUTATIONS_GENERATED_KEY, 2);
+    assertMeasure(context, "module.key:com/foo/Bar.java", PitestMetrics.MUTATIONS_KILLED_KEY, 1);
+  }
+
   @Test
   public void should_not_create_issue_for_survived_mutant_if_present_but_rule_not_active() throws Exception {
     // given
@@ -297,6 +346,340 @@ public class PitestSensorTest {
     assertMeasure(context, componentKey, PitestMetrics.MUTATIONS_ERROR_KEY, 0);
     assertMeasure(context, componentKey, PitestMetrics.MUTATIONS_UNKNOWN_KEY, 0);  
   }  
+
+  @Test
+  public void should_save_one_hit_per_killed_line() throws Exception {
+    // given
+    List<Mutant> mutants = new ArrayList<>();
+    mutants.add(new TestMutantBuilder().mutantStatus(MutantStatus.KILLED).className(JAVA_CLASS).sourceFile(JAVA_RELATIVE_PATH).lineNumber(2).build());
+    mutants.add(new TestMutantBuilder().mutantStatus(MutantStatus.KILLED).className(JAVA_CLASS).sourceFile(JAVA_RELATIVE_PATH).lineNumber(2).build());
+    mutants.add(new TestMutantBuilder().mutantStatus(MutantStatus.KILLED).className(JAVA_CLASS).sourceFile(JAVA_RELATIVE_PATH).lineNumber(4).build());
+    mutants.add(new TestMutantBuilder().mutantStatus(MutantStatus.SURVIVED).className(JAVA_CLASS).sourceFile(JAVA_RELATIVE_PATH).lineNumber(3).build());
+    SensorContextTester context = createTestSensorContext();
+    PitestSensor sensor = new PitestSensor(mockConfiguration(), mockXmlReportParser(mutants), mockRulesProfile(false, false), mockXmlReportFinder(), context.fileSystem());
+
+    // when
+    sensor.execute(context);
+
+    // then
+    String componentKey = "module.key:com/foo/Bar.java";
+    assertThat(context.lineHits(componentKey, 2)).isEqualTo(1);
+    assertThat(context.lineHits(componentKey, 3)).isNull();
+    assertThat(context.lineHits(componentKey, 4)).isEqualTo(1);
+  }
+
+  @Test
+  public void should_group_survived_mutants_by_line() throws Exception {
+    // given
+    Configuration configuration = mockConfiguration();
+    when(configuration.get(SURVIVED_MUTANT_GROUPING_KEY)).thenReturn(Optional.of(SURVIVED_MUTANT_GROUPING_LINE));
+    SensorContextTester context = createTestSensorContext();
+    PitestSensor sensor = new PitestSensor(configuration, mockXmlReportParser(survivorsOfTwoMethods()), mockRulesProfile(true, false), mockXmlReportFinder(),
+      context.fileSystem());
+
+    // when
+    sensor.execute(context);
+
+    // then
+    assertThat(context.allIssues()).hasSize(3);
+    Issue grouped = context.allIssues().stream().filter(i -> i.primaryLocation().textRange().start().line() == 2).findFirst().get();
+    assertThat(grouped.primaryLocation().message()).isEqualTo("2 mutants survived on this line without breaking the tests:"
+      + " [A relational operator has been replaced by a boundary counterpart] [A conditional expression has been negated]");
+    assertThat(grouped.flows()).hasSize(1);
+  }
+
+  @Test
+  public void should_group_survived_mutants_by_method() throws Exception {
+    // given
+    Configuration configuration = mockConfiguration();
+    when(configuration.get(SURVIVED_MUTANT_GROUPING_KEY)).thenReturn(Optional.of(SURVIVED_MUTANT_GROUPING_METHOD));
+    SensorContextTester context = createTestSensorContext();
+    PitestSensor sensor = new PitestSensor(configuration, mockXmlReportParser(survivorsOfTwoMethods()), mockRulesProfile(true, false), mockXmlReportFinder(),
+      context.fileSystem());
+
+    // when
+    sensor.execute(context);
+
+    // then
+    assertThat(context.allIssues()).hasSize(2);
+    Issue grouped = context.allIssues().stream().filter(i -> i.primaryLocation().textRange().start().line() == 2).findFirst().get();
+    // the mutator of the third survivor is the one of the second
+    assertThat(grouped.primaryLocation().message()).isEqualTo("3 mutants survived in method doIt without breaking the tests:"
+      + " [A relational operator has been replaced by a boundary counterpart] [A conditional expression has been negated]");
+    assertThat(grouped.flows()).hasSize(2);
+    assertThat(grouped.flows().get(1).locations().get(0).textRange().start().line()).isEqualTo(3);
+  }
+
+  @Test
+  public void should_reuse_cached_report() throws Exception {
+    // given
+    File report = temporaryFolder.newFile("mutations.xml");
+    Files.write(report.toPath(), "<mutations/>".getBytes(StandardCharsets.UTF_8));
+    XmlReportFinder xmlReportFinder = mock(XmlReportFinder.class);
+    when(xmlReportFinder.findReport(any(File.class))).thenReturn(report);
+    Configuration configuration = mockConfiguration();
+    when(configuration.getBoolean(PARSER_CACHE_KEY)).thenReturn(Optional.of(true));
+    File cacheDirectory = temporaryFolder.newFolder();
+    when(configuration.get(PARSER_CACHE_DIRECTORY_KEY)).thenReturn(Optional.of(cacheDirectory.getAbsolutePath()));
+    XmlReportParser parser = mockXmlReportParser();
+    new PitestSensor(configuration, parser, mockRulesProfile(false, false), xmlReportFinder, createTestSensorContext().fileSystem()).execute(createTestSensorContext());
+    SensorContextTester context = createTestSensorContext();
+
+    // when
+    new PitestSensor(configuration, parser, mockRulesProfile(false, false), xmlReportFinder, context.fileSystem()).execute(context);
+
+    // then
+    verify(parser, times(1)).parse(any(File.class), any(), any(), any());
+    assertThat(cacheDirectory.list()).hasSize(1);
+    assertThat(report.getParentFile().list()).noneMatch(name -> name.endsWith(ReportCache.SUFFIX));
+    assertMeasure(context, "module.key:com/foo/Bar.java", PitestMetrics.MUTATIONS_KILLED_KEY, 3);
+    assertMeasure(context, "module.key:Maze.kt", PitestMetrics.MUTATIONS_GENERATED_KEY, 3);
+    assertThat(readStats(context)).contains("\"bytesRead\":0,", "\"reportsReused\":1,");
+  }
+
+  @Test
+  public void should_parse_shared_report_once_for_all_modules() throws Exception {
+    // given
+    Configuration configuration = mockConfiguration();
+    when(configuration.getBoolean(PARSER_SHARED_KEY)).thenReturn(Optional.of(true));
+    XmlReportParser parser = mockXmlReportParser();
+    SharedProjectReports sharedProjectReports = new SharedProjectReports();
+    SensorContextTester firstModule = createTestSensorContext();
+    SensorContextTester secondModule = createTestSensorContext();
+
+    // when
+    new PitestSensor(configuration, parser, mockRulesProfile(false, false), mockXmlReportFinder(), firstModule.fileSystem(), sharedProjectReports)
+      .execute(firstModule);
+    new PitestSensor(configuration, parser, mockRulesProfile(false, false), mockXmlReportFinder(), secondModule.fileSystem(), sharedProjectReports)
+      .execute(secondModule);
+
+    // then
+    verify(parser, times(1)).parse(any(File.class), any(), any(), any());
+    assertMeasure(firstModule, "module.key:com/foo/Bar.java", PitestMetrics.MUTATIONS_KILLED_KEY, 3);
+    assertMeasure(secondModule, "module.key:com/foo/Bar.java", PitestMetrics.MUTATIONS_KILLED_KEY, 3);
+    assertThat(readStats(firstModule)).contains("\"reportsReused\":0,");
+    assertThat(readStats(secondModule)).contains("\"bytesRead\":0,", "\"reportsReused\":1,");
+  }
+
+  @Test
+  public void should_only_let_the_parser_keep_mutants_of_the_module() throws Exception {
+    // given
+    XmlReportParser parser = mockXmlReportParser();
+    SensorContextTester context = createTestSensorContext();
+
+    // when
+    new PitestSensor(mockConfiguration(), parser, mockRulesProfile(false, false), mockXmlReportFinder(), context.fileSystem()).execute(context);
+
+    // then
+    ArgumentCaptor<Predicate<String>> relativePathFilter = ArgumentCaptor.forClass(Predicate.class);
+    verify(parser).parse(any(File.class), relativePathFilter.capture(), any(), any());
+    assertThat(relativePathFilter.getValue().test(JAVA_RELATIVE_PATH)).isTrue();
+    assertThat(relativePathFilter.getValue().test("com/other/Module.java")).isFalse();
+  }
+
+  @Test
+  public void should_keep_every_mutant_of_a_shared_report() throws Exception {
+    // given
+    Configuration configuration = mockConfiguration();
+    when(configuration.getBoolean(PARSER_SHARED_KEY)).thenReturn(Optional.of(true));
+    XmlReportParser parser = mockXmlReportParser();
+    SensorContextTester context = createTestSensorContext();
+
+    // when
+    new PitestSensor(configuration, parser, mockRulesProfile(false, false), mockXmlReportFinder(), context.fileSystem(), new SharedProjectReports()).execute(context);
+
+    // then
+    ArgumentCaptor<Predicate<String>> relativePathFilter = ArgumentCaptor.forClass(Predicate.class);
+    verify(parser).parse(any(File.class), relativePathFilter.capture(), any(), any());
+    assertThat(relativePathFilter.getValue().test("com/other/Module.java")).isTrue();
+  }
+
+  @Test
+  public void should_only_ask_for_the_fields_of_the_mutations_data_measure_when_no_rule_is_active() throws Exception {
+    // given
+    XmlReportParser parser = mockXmlReportParser();
+    SensorContextTester context = createTestSensorContext();
+
+    // when
+    new PitestSensor(mockConfiguration(), parser, mockRulesProfile(false, false), mockXmlReportFinder(), context.fileSystem()).execute(context);
+
+    // then
+    ArgumentCaptor<Set<MutantField>> fields = ArgumentCaptor.forClass(Set.class);
+    verify(parser).parse(any(File.class), any(), fields.capture(), any());
+    assertThat(fields.getValue()).containsOnly(MutantField.MUTATED_METHOD, MutantField.KILLING_TEST);
+    assertThat(context.measure("module.key:com/foo/Bar.java", PitestMetrics.MUTATIONS_DATA_KEY)).isNotNull();
+  }
+
+  @Test
+  public void should_only_ask_for_the_fields_of_the_active_rules_without_mutations_data() throws Exception {
+    // given
+    Configuration configuration = mockConfiguration();
+    when(configuration.get(MUTATIONS_DATA_KEY)).thenReturn(Optional.of(MUTATIONS_DATA_NONE));
+    when(configuration.get(SURVIVED_MUTANT_GROUPING_KEY)).thenReturn(Optional.of(SURVIVED_MUTANT_GROUPING_METHOD));
+    XmlReportParser parser = mockXmlReportParser();
+    SensorContextTester context = createTestSensorContext();
+
+    // when
+    new PitestSensor(configuration, parser, mockRulesProfile(true, false), mockXmlReportFinder(), context.fileSystem()).execute(context);
+
+    // then
+    ArgumentCaptor<Set<MutantField>> fields = ArgumentCaptor.forClass(Set.class);
+    verify(parser).parse(any(File.class), any(), fields.capture(), any());
+    assertThat(fields.getValue()).containsOnly(MutantField.DESCRIPTION, MutantField.MUTATED_METHOD, MutantField.METHOD_DESCRIPTION);
+    assertThat(context.measure("module.key:com/foo/Bar.java", PitestMetrics.MUTATIONS_DATA_KEY)).isNull();
+    assertMeasure(context, "module.key:com/foo/Bar.java", PitestMetrics.MUTATIONS_KILLED_KEY, 3);
+  }
+
+  @Test
+  public void should_store_a_deflated_per_line_summary() throws Exception {
+    // given
+    Configuration configuration = mockConfiguration();
+    when(configuration.get(MUTATIONS_DATA_KEY)).thenReturn(Optional.of(MUTATIONS_DATA_LINES));
+    when(configuration.get(MUTATIONS_DATA_FORMAT_KEY)).thenReturn(Optional.of(MUTATIONS_DATA_FORMAT_DEFLATE));
+    XmlReportParser parser = mockXmlReportParser();
+    SensorContextTester context = createTestSensorContext();
+
+    // when
+    new PitestSensor(configuration, parser, mockRulesProfile(false, false), mockXmlReportFinder(), context.fileSystem()).execute(context);
+
+    // then
+    ArgumentCaptor<Set<MutantField>> fields = ArgumentCaptor.forClass(Set.class);
+    verify(parser).parse(any(File.class), any(), fields.capture(), any());
+    assertThat(fields.getValue()).isEmpty();
+    Measure<String> data = context.measure("module.key:com/foo/Bar.java", PitestMetrics.MUTATIONS_DATA_KEY);
+    assertThat(data.value()).startsWith(MutationsDataEncoder.DEFLATED_PREFIX);
+    assertThat(MutationsDataEncoder.decode(data.value())).startsWith("{\"v\":1,\"l\":[[");
+  }
+
+  @Test
+  public void should_merge_the_reports_of_every_configured_directory() throws Exception {
+    // given
+    Configuration configuration = mockConfiguration();
+    when(configuration.getStringArray(REPORT_DIRECTORY_KEY)).thenReturn(new String[] {"shard-1", "shard-2"});
+    XmlReportFinder xmlReportFinder = mock(XmlReportFinder.class);
+    when(xmlReportFinder.findReport(any(File.class))).thenAnswer(invocation -> new File(invocation.<File>getArgument(0), "mutations.xml"));
+    Mutant survived = new TestMutantBuilder().detected(false).mutantStatus(MutantStatus.SURVIVED).className(JAVA_CLASS).sourceFile(JAVA_RELATIVE_PATH)
+      .mutatedMethod("doIt").methodDescription("()V").lineNumber(2).mutator(Mutator.INLINE_CONSTS).index(0).build();
+    Mutant killed = new TestMutantBuilder().detected(true).mutantStatus(MutantStatus.KILLED).className(JAVA_CLASS).sourceFile(JAVA_RELATIVE_PATH)
+      .mutatedMethod("doIt").methodDescription("()V").lineNumber(2).mutator(Mutator.INLINE_CONSTS).index(0).build();
+    XmlReportParser parser = mock(XmlReportParser.class);
+    doAnswer(invocation -> {
+      Consumer<Mutant> consumer = invocation.getArgument(3);
+      consumer.accept(invocation.<File>getArgument(0).getParentFile().getName().equals("shard-1") ? survived : killed);
+      return null;
+    }).when(parser).parse(any(File.class), any(), any(), any());
+    SensorContextTester context = createTestSensorContext();
+
+    // when
+    new PitestSensor(configuration, parser, mockRulesProfile(false, false), xmlReportFinder, context.fileSystem()).execute(context);
+
+    // then
+    verify(parser, times(2)).parse(any(File.class), any(), any(), any());
+    assertMeasure(context, "module.key:com/foo/Bar.java", PitestMetrics.MUTATIONS_GENERATED_KEY, 1);
+    assertMeasure(context, "module.key:com/foo/Bar.java", PitestMetrics.MUTATIONS_KILLED_KEY, 1);
+  }
+
+  @Test
+  public void should_save_the_same_measures_and_issues_through_the_pipeline() throws Exception {
+    // given
+    List<Mutant> mutants = mutantsBackedByFileSystem();
+    SensorContextTester expected = createTestSensorContext();
+    new PitestSensor(mockConfiguration(), mockXmlReportParser(mutants), mockRulesProfile(true, true), mockXmlReportFinder(), expected.fileSystem()).execute(expected);
+    SensorContextTester context = createTestSensorContext();
+    Configuration configuration = mockConfiguration();
+    when(configuration.getBoolean(PIPELINE_KEY)).thenReturn(Optional.of(true));
+    when(configuration.getInt(PIPELINE_WINDOW_KEY)).thenReturn(Optional.of(1));
+    PitestSensor sensor = new PitestSensor(configuration, mockXmlReportParser(mutants), mockRulesProfile(true, true), mockXmlReportFinder(), context.fileSystem());
+
+    // when
+    sensor.execute(context);
+
+    // then
+    for (String componentKey : new String[] {"module.key:com/foo/Bar.java", "module.key:Maze.kt"}) {
+      assertThat(context.measures(componentKey)).hasSize(7);
+      for (Measure<Serializable> measure : expected.<Serializable>measures(componentKey)) {
+        assertThat(context.measure(componentKey, measure.metric().key()).value()).isEqualTo(measure.value());
+      }
+    }
+    assertThat(context.allIssues()).hasSameSizeAs(expected.allIssues()).isNotEmpty();
+    assertThat(context.lineHits("module.key:com/foo/Bar.java", 1)).isEqualTo(expected.lineHits("module.key:com/foo/Bar.java", 1));
+  }
+
+  @Test
+  public void should_read_the_report_as_a_whole_when_the_mutants_of_a_source_file_are_spread_wider_than_the_pipeline_window() throws Exception {
+    // given
+    List<Mutant> mutants = mutantsBackedByFileSystem();
+    // the first Java mutant now comes after the Kotlin ones
+    mutants.add(mutants.remove(0));
+    SensorContextTester context = createTestSensorContext();
+    Configuration configuration = mockConfiguration();
+    when(configuration.getBoolean(PIPELINE_KEY)).thenReturn(Optional.of(true));
+    when(configuration.getInt(PIPELINE_WINDOW_KEY)).thenReturn(Optional.of(1));
+    XmlReportParser parser = mockXmlReportParser(mutants);
+
+    // when
+    new PitestSensor(configuration, parser, mockRulesProfile(true, true), mockXmlReportFinder(), context.fileSystem()).execute(context);
+
+    // then: the order check stopped at the second Java source file, then the report was read as a whole
+    verify(parser, times(2)).parse(any(File.class), any(), any(), any());
+    assertMeasure(context, "module.key:com/foo/Bar.java", PitestMetrics.MUTATIONS_GENERATED_KEY, 5);
+    assertMeasure(context, "module.key:com/foo/Bar.java", PitestMetrics.MUTATIONS_KILLED_KEY, 3);
+    assertMeasure(context, "module.key:com/foo/Bar.java", PitestMetrics.MUTATIONS_SURVIVED_KEY, 1);
+    assertMeasure(context, "module.key:com/foo/Bar.java", PitestMetrics.MUTATIONS_NOT_COVERED_KEY, 1);
+    assertMeasure(context, "module.key:Maze.kt", PitestMetrics.MUTATIONS_GENERATED_KEY, 3);
+    assertMeasure(context, "module.key:Maze.kt", PitestMetrics.MUTATIONS_KILLED_KEY, 1);
+  }
+
+  @Test
+  public void should_write_the_statistics_of_the_execution_into_the_work_directory() throws Exception {
+    // given
+    SensorContextTester context = createTestSensorContext();
+    PitestSensor sensor = new PitestSensor(mockConfiguration(), mockXmlReportParser(), mockRulesProfile(true, false), mockXmlReportFinder(), context.fileSystem());
+
+    // when
+    sensor.execute(context);
+
+    // then
+    String stats = readStats(context);
+    assertThat(stats).contains("\"find\":", "\"index\":", "\"parse\":", "\"plan\":", "\"emit\":");
+    assertThat(stats).contains("\"reportsReused\":0,", "\"moduleMutants\":8,", "\"filesResolved\":2,", "\"filesUnresolved\":0,", "\"issues\":2,");
+  }
+
+  @Test
+  public void should_only_count_the_mutants_of_the_module_in_a_shared_report() throws Exception {
+    // given
+    Configuration configuration = mockConfiguration();
+    when(configuration.getBoolean(PARSER_SHARED_KEY)).thenReturn(Optional.of(true));
+    List<Mutant> mutants = mutantsBackedByFileSystem();
+    mutants.add(new TestMutantBuilder().mutantStatus(MutantStatus.KILLED).className("com.other.Module").sourceFile("com/other/Module.java").build());
+    mutants.add(new TestMutantBuilder().mutantStatus(MutantStatus.SURVIVED).className("com.other.Module").sourceFile("com/other/Module.java").build());
+    SensorContextTester context = createTestSensorContext();
+
+    // when
+    new PitestSensor(configuration, mockXmlReportParser(mutants), mockRulesProfile(false, false), mockXmlReportFinder(), context.fileSystem(),
+      new SharedProjectReports()).execute(context);
+
+    // then
+    assertThat(readStats(context)).contains("\"moduleMutants\":8,", "\"filesResolved\":2,", "\"filesUnresolved\":1,");
+  }
+
+  private List<Mutant> survivorsOfTwoMethods() {
+    List<Mutant> mutants = new ArrayList<>();
+    mutants.add(new TestMutantBuilder().mutantStatus(MutantStatus.SURVIVED).className(JAVA_CLASS).sourceFile(JAVA_RELATIVE_PATH).mutatedMethod("doIt")
+      .methodDescription("()V").lineNumber(3).description("third").mutator(Mutator.NEGATE_CONDITIONALS).build());
+    mutants.add(new TestMutantBuilder().mutantStatus(MutantStatus.SURVIVED).className(JAVA_CLASS).sourceFile(JAVA_RELATIVE_PATH).mutatedMethod("doIt")
+      .methodDescription("()V").lineNumber(2).description("first").mutator(Mutator.CONDITIONALS_BOUNDARY).build());
+    mutants.add(new TestMutantBuilder().mutantStatus(MutantStatus.SURVIVED).className(JAVA_CLASS).sourceFile(JAVA_RELATIVE_PATH).mutatedMethod("doIt")
+      .methodDescription("()V").lineNumber(2).description("second").mutator(Mutator.NEGATE_CONDITIONALS).build());
+    mutants.add(new TestMutantBuilder().mutantStatus(MutantStatus.SURVIVED).className(JAVA_CLASS).sourceFile(JAVA_RELATIVE_PATH).mutatedMethod("other")
+      .methodDescription("()V").lineNumber(4).description("fourth").build());
+    return mutants;
+  }
+
+  private static String readStats(SensorContextTester context) throws IOException {
+    return new String(Files.readAllBytes(new File(context.fileSystem().workDir(), SensorStats.FILE_NAME).toPath()), StandardCharsets.UTF_8);
+  }
+
   private void assertMeasure(SensorContextTester context, String componentKey, String metricKey, Integer expectedValue) {
     Measure<Serializable> measure = context.measure(componentKey, metricKey);
     Serializable value = measure.value();
@@ -306,13 +689,23 @@ public class PitestSensorTest {
   private Configuration mockConfiguration() {
     Configuration configuration = mock(Configuration.class);
     when(configuration.get(MODE_KEY)).thenReturn(Optional.of(MODE_REUSE_REPORT));
-    when(configuration.get(REPORT_DIRECTORY_KEY)).thenReturn(Optional.of(REPORT_DIRECTORY_DEF));
+    when(configuration.getStringArray(REPORT_DIRECTORY_KEY)).thenReturn(new String[] {REPORT_DIRECTORY_DEF});
     return configuration;
   }
 
   private XmlReportParser mockXmlReportParser() {
+    return mockXmlReportParser(mutantsBackedByFileSystem());
+  }
+
+  private XmlReportParser mockXmlReportParser(List<Mutant> mutants) {
     XmlReportParser xmlReportParser = mock(XmlReportParser.class);
-    when(xmlReportParser.parse(any(File.class))).thenReturn(mutantsBackedByFileSystem());
+    when(xmlReportParser.parse(any(File.class))).thenReturn(mutants);
+    doAnswer(invocation -> {
+      Predicate<String> relativePathFilter = invocation.getArgument(1);
+      Consumer<Mutant> consumer = invocation.getArgument(3);
+      mutants.stream().filter(mutant -> relativePathFilter.test(mutant.sourceRelativePath())).forEach(consumer);
+      return null;
+    }).when(xmlReportParser).parse(any(File.class), any(), any(), any());
     return xmlReportParser;
   }
 
@@ -345,6 +738,7 @@ public class PitestSensorTest {
 
     SensorContextTester context = SensorContextTester.create(new File(MODULE_BASE_DIR));
     DefaultFileSystem fs = context.fileSystem();
+    fs.setWorkDir(temporaryFolder.newFolder().toPath());
 
     File javaFile = new File(fs.baseDir(), JAVA_RELATIVE_PATH);
     DefaultInputFile javaInputFile = new TestInputFileBuilder("module.key", JAVA_RELATIVE_PATH).setLanguage("java").setModuleBaseDir(fs.baseDirPath())
@@ -74,4 +74,24 @@ public class ProjectReportTest {
     assertThat(sourceFileReport.getMutationsTotal()).isEqualTo(2);
 
   }
+
+  @Test
+  public void should_fold_mutants_added_one_at_a_time() {
+    // given
+    ProjectReport report = new ProjectReport();
+
+    // when
+    report.addMutant(new TestMutantBuilder().className("com.foo.bar.Toto").sourceFile("Toto.java").build());
+    report.addMutant(new TestMutantBuilder().className("com.foo.bar.qix.Tata").sourceFile("Tata.java").build());
+    report.addMutant(new TestMutantBuilder().className("com.foo.bar.Toto$Inner").sourceFile("Toto.java").build());
+
+    // then
+    Collection<SourceFileReport> sourceFileReports = report.getSourceFileReports();
+    assertThat(sourceFileReports)
+      .usingElementComparatorOnFields("sourceFileRelativePath")
+      .containsOnly(
+        new SourceFileReport("com/foo/bar/Toto.java"),
+        new SourceFileReport("com/foo/bar/qix/Tata.java"));
+    assertThat(sourceFileReports).extracting(SourceFileReport::getMutationsTotal).containsOnly(2, 1);
+  }
 }
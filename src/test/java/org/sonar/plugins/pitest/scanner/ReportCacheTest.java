@@ -0,0 +1,218 @@
+/*
+ * Sonar Pitest Plugin
+ * Copyright (C) 2009-2018 Vinod Anandan
+ * vinod@owasp.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.pitest.scanner;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ReportCacheTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void should_read_back_written_report() throws IOException {
+    // given
+    File report = generatedReport();
+    ProjectReport parsed = parse(report);
+    ReportCache cache = new ReportCache(temporaryFolder.newFolder("cache"));
+
+    // when
+    cache.entry(report).write(parsed);
+    ProjectReport cached = cache.entry(report).read();
+
+    // then
+    assertThat(cache.cacheFile(report)).exists().hasParent(temporaryFolder.getRoot().toPath().resolve("cache").toFile());
+    assertThat(report.getParentFile().list()).noneMatch(name -> name.endsWith(ReportCache.SUFFIX));
+    assertThat(cached).isNotNull();
+    Map<String, SourceFileReport> expected = byPath(parsed);
+    Map<String, SourceFileReport> actual = byPath(cached);
+    assertThat(actual.keySet()).isEqualTo(expected.keySet());
+    for (Map.Entry<String, SourceFileReport> entry : expected.entrySet()) {
+      SourceFileReport sourceFileReport = actual.get(entry.getKey());
+      assertThat(sourceFileReport.getMutationsTotal()).isEqualTo(entry.getValue().getMutationsTotal());
+      assertThat(sourceFileReport.getMutationsKilled()).isEqualTo(entry.getValue().getMutationsKilled());
+      assertThat(sourceFileReport.getMutationsSurvived()).isEqualTo(entry.getValue().getMutationsSurvived());
+      assertThat(sourceFileReport.getMutationsNoCoverage()).isEqualTo(entry.getValue().getMutationsNoCoverage());
+      assertThat(sourceFileReport.getMutationsOther()).isEqualTo(entry.getValue().getMutationsOther());
+      assertThat(sourceFileReport.toJSON()).isEqualTo(entry.getValue().toJSON());
+    }
+  }
+
+  @Test
+  public void should_ignore_missing_cache() throws IOException {
+    assertThat(new ReportCache(temporaryFolder.newFolder()).entry(generatedReport()).read()).isNull();
+  }
+
+  @Test
+  public void should_invalidate_cache_when_report_content_changes() throws IOException {
+    // given
+    File report = generatedReport();
+    ReportCache cache = new ReportCache(temporaryFolder.newFolder("cache"));
+    cache.entry(report).write(parse(report));
+    long lastModified = report.lastModified();
+
+    // when: same size and modification time, different content
+    String content = new String(Files.readAllBytes(report.toPath()), StandardCharsets.UTF_8);
+    Files.write(report.toPath(), content.replaceFirst("status='KILLED'", "status='KILLER'").getBytes(StandardCharsets.UTF_8));
+    assertThat(report.setLastModified(lastModified)).isTrue();
+
+    // then
+    assertThat(cache.entry(report).read()).isNull();
+  }
+
+  @Test
+  public void should_invalidate_cache_when_report_is_touched() throws IOException {
+    // given
+    File report = generatedReport();
+    ReportCache cache = new ReportCache(temporaryFolder.newFolder("cache"));
+    cache.entry(report).write(parse(report));
+
+    // when
+    assertThat(report.setLastModified(report.lastModified() + 60_000L)).isTrue();
+
+    // then
+    assertThat(cache.entry(report).read()).isNull();
+  }
+
+  @Test
+  public void should_ignore_corrupted_cache() throws IOException {
+    // given
+    File report = generatedReport();
+    ReportCache cache = new ReportCache(temporaryFolder.newFolder("cache"));
+    cache.entry(report).write(parse(report));
+    File cacheFile = cache.cacheFile(report);
+    byte[] bytes = Files.readAllBytes(cacheFile.toPath());
+
+    // when
+    Files.write(cacheFile.toPath(), Arrays.copyOf(bytes, bytes.length / 2));
+
+    // then
+    assertThat(cache.entry(report).read()).isNull();
+  }
+
+  @Test
+  public void should_key_cached_copies_by_report_path() throws IOException {
+    // given
+    ReportCache cache = new ReportCache(temporaryFolder.newFolder("cache"));
+    File report = generatedReport();
+    File sameName = new File(temporaryFolder.newFolder("other"), report.getName());
+    Files.copy(report.toPath(), sameName.toPath());
+
+    // when
+    cache.entry(report).write(parse(report));
+
+    // then
+    assertThat(cache.cacheFile(sameName)).isNotEqualTo(cache.cacheFile(report));
+    assertThat(cache.cacheFile(new File(report.getParentFile(), "./" + report.getName()))).isEqualTo(cache.cacheFile(report));
+    assertThat(cache.entry(sameName).read()).isNull();
+    assertThat(cache.entry(report).read()).isNotNull();
+  }
+
+  @Test
+  public void should_not_fail_when_cache_directory_cannot_be_created() throws IOException {
+    // given
+    File report = generatedReport();
+    ReportCache cache = new ReportCache(new File(temporaryFolder.newFile("not-a-directory"), "cache"));
+
+    // when
+    cache.entry(report).write(parse(report));
+
+    // then
+    assertThat(cache.entry(report).read()).isNull();
+  }
+
+  @Test
+  public void should_prune_old_and_least_recently_used_copies_on_write() throws IOException {
+    // given
+    File directory = temporaryFolder.newFolder("cache");
+    ReportCache cache = new ReportCache(directory);
+    File report = generatedReport();
+    long now = System.currentTimeMillis();
+    File stale = copy(directory, "stale", now - TimeUnit.DAYS.toMillis(ReportCache.MAX_AGE_DAYS + 1));
+    File unrelated = new File(directory, "unrelated.txt");
+    Files.write(unrelated.toPath(), new byte[0]);
+    unrelated.setLastModified(stale.lastModified());
+    for (int i = 0; i < ReportCache.MAX_ENTRIES; i++) {
+      copy(directory, "recent-" + i, now - TimeUnit.MINUTES.toMillis(i + 1));
+    }
+
+    // when
+    cache.entry(report).write(parse(report));
+
+    // then
+    assertThat(stale).doesNotExist();
+    assertThat(unrelated).exists();
+    assertThat(cache.cacheFile(report)).exists();
+    assertThat(new File(directory, "recent-0" + ReportCache.SUFFIX)).exists();
+    assertThat(new File(directory, "recent-" + (ReportCache.MAX_ENTRIES - 1) + ReportCache.SUFFIX)).doesNotExist();
+    assertThat(directory.list((dir, name) -> name.endsWith(ReportCache.SUFFIX))).hasSize(ReportCache.MAX_ENTRIES);
+  }
+
+  @Test
+  public void should_keep_reused_copies_from_being_pruned() throws IOException {
+    // given
+    File report = generatedReport();
+    ReportCache cache = new ReportCache(temporaryFolder.newFolder("cache"));
+    cache.entry(report).write(parse(report));
+    File cacheFile = cache.cacheFile(report);
+    cacheFile.setLastModified(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(ReportCache.MAX_AGE_DAYS + 1));
+
+    // when
+    cache.entry(report).read();
+    ReportCache.prune(cacheFile.getParentFile(), report);
+
+    // then
+    assertThat(cacheFile).exists();
+  }
+
+  private static File copy(File directory, String name, long lastModified) throws IOException {
+    File copy = new File(directory, name + ReportCache.SUFFIX);
+    Files.write(copy.toPath(), new byte[0]);
+    copy.setLastModified(lastModified);
+    return copy;
+  }
+
+  private File generatedReport() throws IOException {
+    return new MutationsXmlGenerator().files(10).mutants(500).kotlinPercent(20).write(temporaryFolder.getRoot().toPath().resolve("mutations.xml")).toFile();
+  }
+
+  private static ProjectReport parse(File report) {
+    ProjectReport projectReport = new ProjectReport();
+    new XmlReportParser().parse(report, projectReport::addMutant);
+    return projectReport;
+  }
+
+  private static Map<String, SourceFileReport> byPath(ProjectReport projectReport) {
+    return projectReport.getSourceFileReports().stream().collect(Collectors.toMap(SourceFileReport::getRelativePath, Function.identity()));
+  }
+}
@@ -0,0 +1,124 @@
+/*
+ * Sonar Pitest Plugin
+ * Copyright (C) 2009-2018 Vinod Anandan
+ * vinod@owasp.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.pitest.scanner;
+
+import com.google.common.io.Resources;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.plugins.pitest.domain.Mutant;
+import org.sonar.plugins.pitest.domain.MutantStatus;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+public class ReportMergerTest {
+
+  private static final String MUTATION = "<mutation detected='%s' status='%s'><sourceFile>%s.java</sourceFile><mutatedClass>a.%3$s</mutatedClass>"
+    + "<mutatedMethod>run</mutatedMethod><methodDescription>()V</methodDescription><lineNumber>%d</lineNumber>"
+    + "<mutator>org.pitest.mutationtest.engine.gregor.mutators.NegateConditionalsMutator</mutator><index>%d</index>"
+    + "<killingTest/><description>negated conditional</description></mutation>\n";
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void should_count_mutants_found_in_several_reports_once_with_the_most_conclusive_status() throws IOException {
+    // given
+    File firstShard = report("shard-1.xml",
+      mutation(false, "SURVIVED", "A", 3, 0),
+      mutation(false, "NO_COVERAGE", "A", 7, 0));
+    File secondShard = report("shard-2.xml",
+      mutation(true, "KILLED", "A", 3, 0),
+      mutation(false, "SURVIVED", "A", 3, 1),
+      mutation(false, "SURVIVED", "A", 7, 0));
+
+    // when
+    ProjectReport projectReport = new ReportMerger(new XmlReportParser(), 2).merge(Arrays.asList(firstShard, secondShard), path -> true,
+      MutantField.all());
+
+    // then
+    Collection<Mutant> mutants = projectReport.getSourceFileReports().iterator().next().getMutants();
+    assertThat(mutants).extracting(m -> m.mutantLocation.lineNumber, m -> m.index, m -> m.mutantStatus).containsExactly(
+      tuple(3, 0, MutantStatus.KILLED),
+      tuple(7, 0, MutantStatus.SURVIVED),
+      tuple(3, 1, MutantStatus.SURVIVED));
+  }
+
+  @Test
+  public void should_count_mutants_once_when_merging_the_xml_and_csv_reports_of_the_same_run() throws IOException {
+    // given
+    File xmlReport = new File(Resources.getResource("mutations.xml").getFile());
+    File csvReport = new File(Resources.getResource("mutations.csv").getFile());
+    ProjectReport expected = new ProjectReport(new XmlReportParser().parse(xmlReport));
+
+    // when
+    ProjectReport projectReport = new ReportMerger(new XmlReportParser(), 2).merge(Arrays.asList(xmlReport, csvReport), path -> true, MutantField.all());
+
+    // then
+    Map<String, SourceFileReport> merged = projectReport.getSourceFileReports().stream()
+      .collect(Collectors.toMap(SourceFileReport::getRelativePath, Function.identity()));
+    assertThat(merged.keySet()).hasSameSizeAs(expected.getSourceFileReports());
+    for (SourceFileReport sourceFileReport : expected.getSourceFileReports()) {
+      SourceFileReport actual = merged.get(sourceFileReport.getRelativePath());
+      assertThat(actual.getMutationsTotal()).isEqualTo(sourceFileReport.getMutationsTotal());
+      assertThat(actual.getMutationsKilled()).isEqualTo(sourceFileReport.getMutationsKilled());
+      assertThat(actual.getMutationsSurvived()).isEqualTo(sourceFileReport.getMutationsSurvived());
+      // the XML report comes first: its rows are kept, with their indexes
+      assertThat(actual.getMutants()).extracting(m -> m.mutantLocation.lineNumber, m -> m.index, m -> m.mutantStatus)
+        .containsExactlyElementsOf(sourceFileReport.getMutants().stream().map(m -> tuple(m.mutantLocation.lineNumber, m.index, m.mutantStatus))
+          .collect(Collectors.toList()));
+    }
+  }
+
+  @Test
+  public void should_merge_reports_of_different_modules() throws IOException {
+    // given
+    File first = report("first.xml", mutation(true, "KILLED", "A", 3, 0));
+    File second = report("second.xml", mutation(true, "KILLED", "B", 3, 0), mutation(true, "KILLED", "C", 3, 0));
+
+    // when
+    ProjectReport projectReport = new ReportMerger(new XmlReportParser()).merge(Arrays.asList(first, second), path -> !path.endsWith("C.java"),
+      MutantField.all());
+
+    // then
+    assertThat(projectReport.getSourceFileReports()).extracting(SourceFileReport::getRelativePath).containsExactlyInAnyOrder("a/A.java", "a/B.java");
+  }
+
+  private static String mutation(boolean detected, String status, String className, int line, int index) {
+    return String.format(MUTATION, detected, status, className, line, index);
+  }
+
+  private File report(String name, String... mutations) throws IOException {
+    File report = temporaryFolder.newFile(name);
+    Files.write(report.toPath(), ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<mutations>\n" + String.join("", mutations) + "</mutations>\n")
+      .getBytes(StandardCharsets.UTF_8));
+    return report;
+  }
+}
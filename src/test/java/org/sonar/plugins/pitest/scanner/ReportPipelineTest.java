@@ -0,0 +1,191 @@
+/*
+ * Sonar Pitest Plugin
+ * Copyright (C) 2009-2018 Vinod Anandan
+ * vinod@owasp.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.pitest.scanner;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.junit.Test;
+import org.sonar.plugins.pitest.domain.Mutant;
+import org.sonar.plugins.pitest.domain.MutantStatus;
+import org.sonar.plugins.pitest.domain.TestMutantBuilder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+public class ReportPipelineTest {
+
+  private static final File REPORT = new File("mutations.xml");
+
+  @Test
+  public void should_hand_over_each_source_file_once_complete() {
+    // given
+    XmlReportParser parser = parser(mutant -> { }, "A", "B", "A", "C", "C", "A", "D", "D");
+    List<SourceFileReport> sourceFileReports = new ArrayList<>();
+
+    // when
+    new ReportPipeline(parser, 2).run(REPORT, relativePath -> true, MutantField.all(), sourceFileReports::add);
+
+    // then
+    assertThat(sourceFileReports).extracting(SourceFileReport::getRelativePath, SourceFileReport::getMutationsTotal).containsExactly(
+      tuple("com/example/B.java", 1),
+      tuple("com/example/C.java", 2),
+      tuple("com/example/A.java", 3),
+      tuple("com/example/D.java", 2));
+  }
+
+  @Test
+  public void should_tell_a_report_grouped_within_the_window() {
+    // given
+    XmlReportParser parser = parser(mutant -> { }, "A", "B", "A", "C", "C", "A", "D", "D");
+
+    // when
+    boolean grouped = new ReportPipeline(parser, 2).isGrouped(REPORT, relativePath -> true);
+
+    // then
+    assertThat(grouped).isTrue();
+  }
+
+  @Test
+  public void should_stop_the_check_on_a_source_file_met_again_outside_the_window() {
+    // given
+    List<String> parsed = new ArrayList<>();
+    XmlReportParser parser = parser(mutant -> parsed.add(mutant.sourceRelativePath()), "A", "B", "C", "A", "B");
+
+    // when
+    boolean grouped = new ReportPipeline(parser, 1).isGrouped(REPORT, relativePath -> true);
+
+    // then
+    assertThat(grouped).isFalse();
+    assertThat(parsed).hasSize(4);
+  }
+
+  @Test
+  public void should_fail_on_a_mutant_of_a_source_file_already_handed_over() {
+    // given
+    XmlReportParser parser = parser(mutant -> { }, "A", "B", "C", "A", "B");
+    List<SourceFileReport> sourceFileReports = new ArrayList<>();
+
+    // when
+    try {
+      new ReportPipeline(parser, 1).run(REPORT, relativePath -> true, MutantField.all(), sourceFileReports::add);
+      fail("expected the pipeline to fail");
+    } catch (IllegalStateException e) {
+      // then
+      assertThat(e).hasMessageStartingWith("Mutants of com/example/A.java met after its measures were saved");
+    }
+    assertThat(sourceFileReports).extracting(SourceFileReport::getRelativePath).containsExactly("com/example/A.java", "com/example/B.java");
+  }
+
+  @Test
+  public void should_hand_over_source_files_while_the_parse_goes_on() {
+    // given
+    CountDownLatch firstHandedOver = new CountDownLatch(1);
+    XmlReportParser parser = parser(mutant -> {
+      if (mutant.sourceRelativePath().equals("com/example/Z.java")) {
+        await(firstHandedOver);
+      }
+    }, "A", "B", "C", "Z");
+    List<String> handedOver = new ArrayList<>();
+
+    // when
+    new ReportPipeline(parser, 1).run(REPORT, relativePath -> true, MutantField.all(), sourceFileReport -> {
+      handedOver.add(sourceFileReport.getRelativePath());
+      firstHandedOver.countDown();
+    });
+
+    // then
+    assertThat(handedOver).containsExactly("com/example/A.java", "com/example/B.java", "com/example/C.java", "com/example/Z.java");
+  }
+
+  @Test
+  public void should_rethrow_parse_failure() {
+    // given
+    XmlReportParser parser = parser(mutant -> {
+      throw new IllegalStateException("XML is not valid");
+    }, "A");
+
+    // when
+    try {
+      new ReportPipeline(parser, 1).run(REPORT, relativePath -> true, MutantField.all(), sourceFileReport -> { });
+      fail("expected the parse failure");
+    } catch (IllegalStateException e) {
+      // then
+      assertThat(e).hasMessage("XML is not valid");
+    }
+  }
+
+  @Test(timeout = 10_000)
+  public void should_stop_the_parse_when_handing_over_fails() {
+    // given
+    String[] sourceFiles = new String[10_000];
+    for (int i = 0; i < sourceFiles.length; i++) {
+      sourceFiles[i] = "F" + i;
+    }
+    XmlReportParser parser = parser(mutant -> { }, sourceFiles);
+
+    // when
+    try {
+      new ReportPipeline(parser, 1).run(REPORT, relativePath -> true, MutantField.all(), sourceFileReport -> {
+        throw new IllegalArgumentException("Can not add the same measure twice");
+      });
+      fail("expected the hand over failure");
+    } catch (IllegalArgumentException e) {
+      // then
+      assertThat(e).hasMessage("Can not add the same measure twice");
+    }
+  }
+
+  /**
+   * A parser streaming one mutant per given class name, each one in its own source file, after passing it to the
+   * listener.
+   */
+  private static XmlReportParser parser(Consumer<Mutant> listener, String... classNames) {
+    XmlReportParser parser = mock(XmlReportParser.class);
+    doAnswer(invocation -> {
+      Consumer<Mutant> consumer = invocation.getArgument(3);
+      for (String className : classNames) {
+        Mutant mutant = new TestMutantBuilder().mutantStatus(MutantStatus.KILLED).className("com.example." + className).sourceFile(className + ".java").build();
+        listener.accept(mutant);
+        consumer.accept(mutant);
+      }
+      return null;
+    }).when(parser).parse(any(File.class), any(), any(), any());
+    return parser;
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      if (!latch.await(10, TimeUnit.SECONDS)) {
+        throw new IllegalStateException("No source file handed over while parsing");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,130 @@
+/*
+ * Sonar Pitest Plugin
+ * Copyright (C) 2009-2018 Vinod Anandan
+ * vinod@owasp.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.pitest.scanner;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.DefaultFileSystem;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.plugins.pitest.domain.MutantStatus;
+import org.sonar.plugins.pitest.domain.TestMutantBuilder;
+import org.sonar.plugins.pitest.scanner.EmissionPlan.IssueLocation;
+import org.sonar.plugins.pitest.scanner.EmissionPlan.IssuePlan;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SensorStatsTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void should_sum_the_time_of_a_phase_run_several_times() throws Exception {
+    // given
+    SensorStats stats = new SensorStats();
+
+    // when
+    String result = stats.time("plan", () -> sleep(20));
+    stats.run("plan", () -> sleep(20));
+    stats.run("emit", () -> {
+    });
+
+    // then
+    assertThat(result).isEqualTo("slept");
+    assertThat(stats.millis("plan")).isGreaterThanOrEqualTo(40);
+    assertThat(stats.millis("parse")).isZero();
+    assertThat(stats.toJson()).startsWith("{\"phasesMs\":{\"plan\":").contains(",\"emit\":");
+  }
+
+  @Test
+  public void should_count_the_source_files_resolved_or_not() throws Exception {
+    // given
+    SensorStats stats = new SensorStats();
+    File report = temporaryFolder.newFile("mutations.xml");
+    Files.write(report.toPath(), new byte[1234]);
+    InputFile inputFile = new TestInputFileBuilder("module.key", "com/foo/Bar.java").setContents("a\nb\nc\n").build();
+    EmissionPlan plan = EmissionPlan.builder(inputFile).coveredLines(new int[] {1, 3})
+      .issue(new IssuePlan(RuleKey.of("pitest", "rule"), Collections.singletonList(new IssueLocation(2, "survived")))).build();
+
+    // when
+    stats.reportRead(report);
+    stats.reportReused();
+    stats.sourceFileReport(sourceFileReport("com.foo.Bar", 3), plan);
+    stats.sourceFileReport(sourceFileReport("com.foo.Other", 2), null);
+
+    // then
+    assertThat(stats.toJson()).contains("\"bytesRead\":1234,", "\"reportsReused\":1,", "\"moduleMutants\":3,", "\"filesResolved\":1,", "\"filesUnresolved\":1,", "\"issues\":1,",
+      "\"coveredLines\":2,");
+    assertThat(stats.moduleMutantsPerSecond()).isZero();
+  }
+
+  @Test
+  public void should_write_the_json_into_the_work_directory() throws Exception {
+    // given
+    SensorStats stats = new SensorStats();
+    DefaultFileSystem fileSystem = new DefaultFileSystem(temporaryFolder.newFolder());
+    fileSystem.setWorkDir(temporaryFolder.newFolder().toPath());
+
+    // when
+    stats.write(fileSystem);
+
+    // then
+    File written = new File(fileSystem.workDir(), SensorStats.FILE_NAME);
+    assertThat(new String(Files.readAllBytes(written.toPath()), StandardCharsets.UTF_8)).isEqualTo(stats.toJson());
+  }
+
+  @Test
+  public void should_not_fail_if_the_json_cannot_be_written() throws Exception {
+    // given
+    SensorStats stats = new SensorStats();
+    DefaultFileSystem fileSystem = new DefaultFileSystem(temporaryFolder.newFolder());
+    fileSystem.setWorkDir(temporaryFolder.newFile().toPath());
+
+    // when
+    stats.write(fileSystem);
+
+    // then
+    assertThat(fileSystem.workDir()).isFile();
+  }
+
+  private static SourceFileReport sourceFileReport(String className, int mutants) {
+    ProjectReport projectReport = new ProjectReport();
+    for (int i = 0; i < mutants; i++) {
+      projectReport.addMutant(new TestMutantBuilder().mutantStatus(MutantStatus.KILLED).className(className).sourceFile(className.substring(className.lastIndexOf('.') + 1) + ".java").build());
+    }
+    return projectReport.getSourceFileReports().iterator().next();
+  }
+
+  private static String sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    return "slept";
+  }
+}
@@ -0,0 +1,65 @@
+/*
+ * Sonar Pitest Plugin
+ * Copyright (C) 2009-2018 Vinod Anandan
+ * vinod@owasp.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.pitest.scanner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ShardedParseTest {
+
+  @Test
+  public void should_consume_shards_in_order_with_bounded_look_ahead() {
+    // given
+    int parallelism = 3;
+    AtomicInteger started = new AtomicInteger();
+    List<Supplier<List<Integer>>> shards = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      int shard = i;
+      shards.add(() -> {
+        started.incrementAndGet();
+        return Arrays.asList(shard * 2, shard * 2 + 1);
+      });
+    }
+    List<Integer> consumed = new ArrayList<>();
+    List<Integer> aheadWhenConsumed = new ArrayList<>();
+
+    // when
+    ShardedParse.inOrder(parallelism, shards, value -> {
+      consumed.add(value);
+      aheadWhenConsumed.add(started.get() - value / 2 - 1);
+    });
+
+    // then
+    assertThat(consumed).hasSize(100).isSorted();
+    assertThat(aheadWhenConsumed).allMatch(ahead -> ahead <= parallelism);
+  }
+
+  @Test
+  public void should_cut_large_content_into_more_shards_than_threads() {
+    assertThat(ShardedParse.shardCount(1000, 4)).isEqualTo(4);
+    assertThat(ShardedParse.shardCount(ShardedParse.SHARD_BYTES * 20, 4)).isEqualTo(20);
+  }
+}
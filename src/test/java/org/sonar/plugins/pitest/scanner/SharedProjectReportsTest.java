@@ -0,0 +1,52 @@
+/*
+ * Sonar Pitest Plugin
+ * Copyright (C) 2009-2018 Vinod Anandan
+ * vinod@owasp.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.pitest.scanner;
+
+import java.io.File;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SharedProjectReportsTest {
+
+  @Test
+  public void should_load_each_report_once() {
+    // given
+    SharedProjectReports sharedProjectReports = new SharedProjectReports();
+    AtomicInteger loads = new AtomicInteger();
+    Function<File, ProjectReport> loader = report -> {
+      loads.incrementAndGet();
+      return new ProjectReport();
+    };
+
+    // when
+    ProjectReport first = sharedProjectReports.get(new File("target/pit-reports/mutations.xml"), loader);
+    ProjectReport second = sharedProjectReports.get(new File("target/../target/pit-reports/mutations.xml"), loader);
+    ProjectReport other = sharedProjectReports.get(new File("other/mutations.xml"), loader);
+
+    // then
+    assertThat(second).isSameAs(first);
+    assertThat(other).isNotSameAs(first);
+    assertThat(loads.get()).isEqualTo(2);
+    assertThat(sharedProjectReports.size()).isEqualTo(2);
+  }
+}
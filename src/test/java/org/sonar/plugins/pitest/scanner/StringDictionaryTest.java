@@ -0,0 +1,94 @@
+/*
+ * Sonar Pitest Plugin
+ * Copyright (C) 2009-2018 Vinod Anandan
+ * vinod@owasp.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.pitest.scanner;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StringDictionaryTest {
+
+  @Test
+  public void should_share_equal_strings() {
+    // given
+    StringDictionary dictionary = new StringDictionary();
+    String first = new String("com.foo.Bar");
+    String second = new String("com.foo.Bar");
+
+    // when
+    String interned = dictionary.intern(first);
+
+    // then
+    assertThat(dictionary.intern(second)).isSameAs(interned).isSameAs(first);
+    assertThat(dictionary.intern("com.foo.Qix")).isNotSameAs(interned);
+    assertThat(dictionary.size()).isEqualTo(2);
+  }
+
+  @Test
+  public void should_accept_null() {
+    assertThat(new StringDictionary().intern(null)).isNull();
+  }
+
+  @Test
+  public void should_compute_relative_path_once_per_class() {
+    // given
+    StringDictionary dictionary = new StringDictionary();
+
+    // when
+    String path = dictionary.relativePath("com.foo.Bar$1", "Bar.java");
+
+    // then
+    assertThat(path).isEqualTo("com/foo/Bar.java");
+    assertThat(dictionary.relativePath("com.foo.Bar$1", "Bar.java")).isSameAs(path);
+    assertThat(dictionary.relativePath("com.foo.Bar", "Bar.java")).isEqualTo(path);
+  }
+
+  @Test
+  public void should_follow_source_file_of_class() {
+    // given
+    StringDictionary dictionary = new StringDictionary();
+    dictionary.relativePath("com.foo.Bar", "Bar.java");
+
+    // when
+    String path = dictionary.relativePath("com.foo.Bar", "Bar.kt");
+
+    // then
+    assertThat(path).isEqualTo("Bar.kt");
+  }
+
+  @Test
+  public void should_follow_source_file_of_class_first_seen_without_one() {
+    // given
+    StringDictionary dictionary = new StringDictionary();
+    dictionary.relativePath("com.foo.Bar", null);
+
+    // when
+    String path = dictionary.relativePath("com.foo.Bar", "Bar.kt");
+
+    // then
+    assertThat(path).isEqualTo("Bar.kt");
+    assertThat(dictionary.relativePath("com.foo.Bar", null)).isEqualTo("com/foo/Bar.java");
+  }
+
+  @Test
+  public void should_compute_relative_path_without_class_name() {
+    assertThat(new StringDictionary().relativePath(null, "Maze.kt")).isEqualTo("Maze.kt");
+  }
+}
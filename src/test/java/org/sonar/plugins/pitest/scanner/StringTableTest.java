@@ -0,0 +1,70 @@
+/*
+ * Sonar Pitest Plugin
+ * Copyright (C) 2009-2018 Vinod Anandan
+ * vinod@owasp.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.pitest.scanner;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StringTableTest {
+
+  @Test
+  public void should_number_distinct_strings() {
+    // given
+    StringTable table = new StringTable();
+
+    // when
+    int first = table.id("com.foo.Bar");
+    int second = table.id("com.foo.Qix");
+
+    // then
+    assertThat(table.id(new String("com.foo.Bar"))).isEqualTo(first);
+    assertThat(second).isNotEqualTo(first);
+    assertThat(table.get(first)).isEqualTo("com.foo.Bar");
+    assertThat(table.get(second)).isEqualTo("com.foo.Qix");
+    assertThat(table.size()).isEqualTo(2);
+  }
+
+  @Test
+  public void should_map_null_to_reserved_id() {
+    // given
+    StringTable table = new StringTable();
+
+    // then
+    assertThat(table.id(null)).isEqualTo(StringTable.NULL_ID);
+    assertThat(table.get(StringTable.NULL_ID)).isNull();
+    assertThat(table.size()).isZero();
+  }
+
+  @Test
+  public void should_grow_beyond_initial_capacity() {
+    // given
+    StringTable table = new StringTable();
+
+    // when
+    for (int i = 0; i < 1000; i++) {
+      table.id("s" + i);
+    }
+
+    // then
+    assertThat(table.size()).isEqualTo(1000);
+    assertThat(table.get(table.id("s999"))).isEqualTo("s999");
+  }
+}
@@ -21,12 +21,24 @@ package org.sonar.plugins.pitest.scanner;
 
 import com.google.common.io.Resources;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
 public class XmlReportFinderTest {
 
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
   @Test
   public void should_find_latest_report_file_with_one_timestamped_folder() {
     // given
@@ -73,6 +85,204 @@ public class XmlReportFinderTest {
     report.getAbsolutePath().endsWith("123/mutations.xml");
   }
 
+  @Test
+  public void should_take_the_report_of_the_newest_timestamped_folder_by_name() throws IOException {
+    // given
+    File reportDirectory = temporaryFolder.newFolder("pit-reports");
+    writeReport(reportDirectory, "201801011200/mutations.xml", 2_000_000L);
+    File newer = writeReport(reportDirectory, "201802011200/mutations.xml", 1_000_000L);
+    writeReport(reportDirectory, "201802011200/com.foo/Bar.java.html", 1_000_000L);
+    writeReport(reportDirectory, "201802011200/index.html", 1_000_000L);
+
+    // when
+    File report = new XmlReportFinder().findReport(reportDirectory);
+
+    // then
+    assertThat(report).isEqualTo(newer);
+  }
+
+  @Test
+  public void should_skip_timestamped_folders_without_report() throws IOException {
+    // given
+    File reportDirectory = temporaryFolder.newFolder("pit-reports");
+    File report = writeReport(reportDirectory, "201801011200/mutations.xml", 1_000_000L);
+    writeReport(reportDirectory, "201802011200/index.html", 2_000_000L);
+
+    // then
+    assertThat(new XmlReportFinder().findReport(reportDirectory)).isEqualTo(report);
+  }
+
+  @Test
+  public void should_find_report_next_to_the_html_report() throws IOException {
+    // given
+    File reportDirectory = temporaryFolder.newFolder("pit-reports");
+    File report = writeReport(reportDirectory, "mutations.xml", 1_000_000L);
+    writeReport(reportDirectory, "index.html", 1_000_000L);
+    writeReport(reportDirectory, "style.css", 1_000_000L);
+    writeReport(reportDirectory, "com.foo/Bar.java.html", 1_000_000L);
+    writeReport(reportDirectory, "com.foo/index.html", 1_000_000L);
+
+    // then
+    assertThat(new XmlReportFinder().findReport(reportDirectory)).isEqualTo(report);
+  }
+
+  @Test
+  public void should_leave_other_files_of_the_report_directory_alone() throws IOException {
+    // given
+    File reportDirectory = temporaryFolder.newFolder("pit-reports");
+    writeReport(reportDirectory, "201802011200/mutations.xml", 1_000_000L);
+    File report = writeReport(reportDirectory, "201802011300/mutations.xml", 1_000_000L);
+    writeReport(reportDirectory, "201802011400", 3_000_000L);
+    writeReport(reportDirectory, "linecoverage.bin", 3_000_000L);
+    writeReport(reportDirectory, "com.foo.bar/Qix.java.html", 3_000_000L);
+
+    // then
+    assertThat(new XmlReportFinder().findReport(reportDirectory)).isEqualTo(report);
+  }
+
+  @Test
+  public void should_find_most_recent_report_anywhere_in_an_unknown_layout() throws IOException {
+    // given
+    File reportDirectory = temporaryFolder.newFolder("pit-reports");
+    writeReport(reportDirectory, "201802011200/mutations.xml", 1_000_000L);
+    File report = writeReport(reportDirectory, "module/target/pit/mutations.xml", 2_000_000L);
+
+    // then
+    assertThat(new XmlReportFinder().findReport(reportDirectory)).isEqualTo(report);
+  }
+
+  @Test
+  public void should_find_gzipped_and_zipped_reports() throws IOException {
+    // given
+    File reportDirectory = temporaryFolder.newFolder("pit-reports");
+    writeReport(reportDirectory, "201801011200/mutations.xml", 1_000_000L);
+    File gzipped = writeReport(reportDirectory, "201802011200/mutations.xml.gz", 1_000_000L);
+    File archives = temporaryFolder.newFolder("archives");
+    File zipped = new File(archives, "pit-reports.zip");
+    try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(zipped))) {
+      zip.putNextEntry(new ZipEntry("201802011200/mutations.xml"));
+      zip.write("<mutations/>".getBytes(StandardCharsets.UTF_8));
+    }
+    new File(archives, "other.zip").createNewFile();
+
+    // then
+    assertThat(new XmlReportFinder().findReport(reportDirectory)).isEqualTo(gzipped);
+    assertThat(new XmlReportFinder().findReport(archives)).isEqualTo(zipped);
+  }
+
+  @Test
+  public void should_prefer_the_csv_report_when_pit_wrote_both_formats() throws IOException {
+    // given
+    File reportDirectory = temporaryFolder.newFolder("pit-reports");
+    writeReport(reportDirectory, "201801011200/mutations.csv", 1_000_000L);
+    File csv = writeReport(reportDirectory, "201802011200/mutations.csv", 1_000_000L);
+    writeReport(reportDirectory, "201802011200/mutations.xml", 2_000_000L);
+    File unknownLayout = temporaryFolder.newFolder("unknown");
+    writeReport(unknownLayout, "module/mutations.xml", 2_000_000L);
+    File walkedCsv = writeReport(unknownLayout, "module/mutations.csv", 1_000_000L);
+    writeReport(unknownLayout, "other/mutations.xml", 500_000L);
+
+    // then
+    assertThat(new XmlReportFinder().findReport(reportDirectory)).isEqualTo(csv);
+    assertThat(new XmlReportFinder().findReport(unknownLayout)).isEqualTo(walkedCsv);
+  }
+
+  @Test
+  public void should_prefer_the_binary_report_to_any_other_format() throws IOException {
+    // given
+    File reportDirectory = temporaryFolder.newFolder("pit-reports");
+    writeReport(reportDirectory, "201802011200/mutations.xml", 2_000_000L);
+    writeReport(reportDirectory, "201802011200/mutations.csv", 2_000_000L);
+    File binary = writeReport(reportDirectory, "201802011200/mutations.bin", 1_000_000L);
+
+    // then
+    assertThat(new XmlReportFinder().findReport(reportDirectory)).isEqualTo(binary);
+  }
+
+  @Test
+  public void should_find_every_report_matching_a_glob() throws IOException {
+    // given
+    File baseDirectory = temporaryFolder.newFolder("project");
+    File first = writeReport(baseDirectory, "shard-1/target/pit-reports/mutations.xml", 1_000_000L);
+    File second = writeReport(baseDirectory, "shard-2/target/pit-reports/mutations.xml", 1_000_000L);
+    writeReport(baseDirectory, "shard-2/target/other/mutations.xml", 1_000_000L);
+
+    // when
+    List<File> reports = new XmlReportFinder().findReports(baseDirectory, "shard-*/target/pit-reports/mutations.xml");
+
+    // then
+    assertThat(reports).containsExactly(first, second);
+  }
+
+  @Test
+  public void should_take_the_newest_report_of_every_directory_matching_a_glob() throws IOException {
+    // given
+    File baseDirectory = temporaryFolder.newFolder("project");
+    writeReport(baseDirectory, "core/target/pit-reports/201801011200/mutations.xml", 1_000_000L);
+    File core = writeReport(baseDirectory, "core/target/pit-reports/201802011200/mutations.xml", 1_000_000L);
+    File web = writeReport(baseDirectory, "modules/web/target/pit-reports/201801011200/mutations.xml", 1_000_000L);
+
+    // when
+    List<File> reports = new XmlReportFinder().findReports(baseDirectory, "**/target/pit-reports");
+
+    // then
+    assertThat(reports).containsExactly(core, web);
+  }
+
+  @Test
+  public void should_match_the_reports_of_the_base_directory_with_a_leading_double_star() throws IOException {
+    // given
+    File baseDirectory = temporaryFolder.newFolder("project");
+    File own = writeReport(baseDirectory, "target/pit-reports/201801011200/mutations.xml", 1_000_000L);
+    File web = writeReport(baseDirectory, "web/target/pit-reports/201801011200/mutations.xml", 1_000_000L);
+
+    // when
+    List<File> reports = new XmlReportFinder().findReports(baseDirectory, "**/target/pit-reports");
+
+    // then
+    assertThat(reports).containsExactly(own, web);
+  }
+
+  @Test
+  public void should_find_the_reports_matching_a_brace_group() throws IOException {
+    // given
+    File baseDirectory = temporaryFolder.newFolder("project");
+    File core = writeReport(baseDirectory, "core/mutations.xml", 1_000_000L);
+    writeReport(baseDirectory, "other/mutations.xml", 1_000_000L);
+    File web = writeReport(baseDirectory, "web/mutations.xml", 1_000_000L);
+
+    // when
+    String[] reportPaths = XmlReportFinder.joinBraceGroups(new String[] {"{core", "web}/mutations.xml"});
+    List<File> reports = new XmlReportFinder().findReports(baseDirectory, reportPaths[0]);
+
+    // then
+    assertThat(reportPaths).containsExactly("{core,web}/mutations.xml");
+    assertThat(reports).containsExactly(core, web);
+  }
+
+  @Test
+  public void should_only_join_the_values_split_inside_a_brace_group() {
+    assertThat(XmlReportFinder.joinBraceGroups(new String[] {"target/pit-reports", "{a", "b,c}/x", "d/{e,f}", "g"}))
+      .containsExactly("target/pit-reports", "{a,b,c}/x", "d/{e,f}", "g");
+    assertThat(XmlReportFinder.joinBraceGroups(new String[] {"{a", "b"})).containsExactly("{a,b");
+  }
+
+  @Test
+  public void should_tell_globs_from_directories() {
+    assertThat(XmlReportFinder.isGlob("target/pit-reports")).isFalse();
+    assertThat(XmlReportFinder.isGlob("**/target/pit-reports")).isTrue();
+    assertThat(XmlReportFinder.isGlob("shard-?/mutations.xml")).isTrue();
+    assertThat(XmlReportFinder.isGlob("target/{a,b}")).isTrue();
+  }
+
+  private static File writeReport(File reportDirectory, String path, long lastModified) throws IOException {
+    File file = new File(reportDirectory, path);
+    file.getParentFile().mkdirs();
+    Files.write(file.toPath(), "<mutations/>".getBytes(StandardCharsets.UTF_8));
+    file.setLastModified(lastModified);
+    return file;
+  }
+
   @Test
   public void should_return_null_if_no_report() {
     // given
@@ -21,19 +21,39 @@ package org.sonar.plugins.pitest.scanner;
 
 import com.google.common.io.Resources;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.config.internal.MapSettings;
+import org.sonar.plugins.pitest.PitestConstants;
 import org.sonar.plugins.pitest.domain.Mutant;
 import org.sonar.plugins.pitest.domain.MutantStatus;
 import org.sonar.plugins.pitest.domain.TestMutantBuilder;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.assertj.core.api.Fail.failBecauseExceptionWasNotThrown;
 
 public class XmlReportParserTest {
   private static final String MODULE_BASE_DIR = "src/test/resources/xml-report-parser-test";
 
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
   private XmlReportParser parser;
 
   @Before
@@ -80,6 +100,249 @@ public class XmlReportParserTest {
     assertThat(mutants).usingElementComparatorIgnoringFields("mutantLocation").contains(targetMutant);
   }
 
+  @Test
+  public void should_stream_mutants_in_report_order() {
+    // given
+    File report = new File(Resources.getResource("mutations.xml").getFile());
+    List<Mutant> streamed = new ArrayList<>();
+
+    // when
+    parser.parse(report, streamed::add);
+
+    // then
+    Collection<Mutant> collected = parser.parse(report);
+    assertThat(streamed).hasSize(collected.size());
+    assertThat(streamed).usingElementComparatorIgnoringFields("mutantLocation").containsExactlyElementsOf(collected);
+  }
+
+  @Test
+  public void should_parse_in_parallel_shards_with_same_result_as_single_thread() {
+    // given
+    XmlReportParser parallelParser = new XmlReportParser(4, 0, PitestConstants.PARSER_ENGINE_STAX);
+
+    for (String fixture : new String[] {"mutations.xml", "mutations-kotlin.xml", "pit-reports/201710212128/mutations.xml"}) {
+      File report = new File(Resources.getResource(fixture).getFile());
+
+      // when
+      Collection<Mutant> mutants = parallelParser.parse(report);
+
+      // then
+      assertThat(mutants).usingRecursiveFieldByFieldElementComparator().containsExactlyElementsOf(parser.parse(report));
+    }
+  }
+
+  @Test
+  public void should_find_the_same_mutants_with_the_byte_engine() {
+    // given
+    XmlReportParser byteParser = new XmlReportParser(1, 0, PitestConstants.PARSER_ENGINE_BYTES);
+    XmlReportParser parallelByteParser = new XmlReportParser(4, 0, PitestConstants.PARSER_ENGINE_BYTES);
+
+    for (String fixture : new String[] {"mutations.xml", "mutations-kotlin.xml", "mutations-invalid-format-line-number.xml", "pit-reports/201710212128/mutations.xml"}) {
+      File report = new File(Resources.getResource(fixture).getFile());
+
+      // when
+      Collection<Mutant> expected = parser.parse(report);
+
+      // then
+      assertThat(byteParser.parse(report)).usingRecursiveFieldByFieldElementComparator().containsExactlyElementsOf(expected);
+      assertThat(parallelByteParser.parse(report)).usingRecursiveFieldByFieldElementComparator().containsExactlyElementsOf(expected);
+    }
+  }
+
+  @Test
+  public void should_find_the_same_mutants_in_gzipped_and_zipped_reports() throws IOException {
+    // given
+    File report = new File(Resources.getResource("mutations.xml").getFile());
+    byte[] content = Files.readAllBytes(report.toPath());
+    File gzipped = temporaryFolder.newFile("mutations.xml.gz");
+    try (GZIPOutputStream gzip = new GZIPOutputStream(new FileOutputStream(gzipped))) {
+      gzip.write(content);
+    }
+    File zipped = temporaryFolder.newFile("pit-reports.zip");
+    try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(zipped))) {
+      zip.putNextEntry(new ZipEntry("201710212128/index.html"));
+      zip.putNextEntry(new ZipEntry("201710212128/mutations.xml"));
+      zip.write(content);
+    }
+
+    // when
+    Collection<Mutant> expected = parser.parse(report);
+
+    // then
+    assertThat(parser.parse(gzipped)).usingRecursiveFieldByFieldElementComparator().containsExactlyElementsOf(expected);
+    assertThat(parser.parse(zipped)).usingRecursiveFieldByFieldElementComparator().containsExactlyElementsOf(expected);
+  }
+
+  @Test
+  public void should_fall_back_to_stax_after_the_mutants_already_found() throws IOException {
+    // given
+    String mutation = "<mutation detected='true' status='KILLED'><sourceFile>A.java</sourceFile><mutatedClass>a.A</mutatedClass><index>%d</index></mutation>\n";
+    String unknown = "<mutation detected='true' status='KILLED'><sourceFile>A.java</sourceFile><mutatedClass>a.A</mutatedClass><index>1</index><extra/></mutation>\n";
+    File report = temporaryFolder.newFile("mutations.xml");
+    Files.write(report.toPath(), ("<mutations>\n" + String.format(mutation, 0) + unknown + String.format(mutation, 2) + "</mutations>").getBytes(StandardCharsets.UTF_8));
+
+    // when
+    Collection<Mutant> mutants = new XmlReportParser(1, 0, PitestConstants.PARSER_ENGINE_BYTES).parse(report);
+
+    // then
+    assertThat(mutants).extracting(m -> m.index).containsExactly(0, 1, 2);
+  }
+
+  @Test
+  public void should_only_keep_mutants_accepted_by_the_filter() {
+    File report = new File(Resources.getResource("pit-reports/201710212128/mutations.xml").getFile());
+    Collection<Mutant> all = parser.parse(report);
+    String relativePath = all.iterator().next().sourceRelativePath();
+    List<Mutant> expected = all.stream().filter(m -> relativePath.equals(m.sourceRelativePath())).collect(Collectors.toList());
+
+    for (XmlReportParser filteringParser : new XmlReportParser[] {
+      new XmlReportParser(1, 0, PitestConstants.PARSER_ENGINE_STAX), new XmlReportParser(4, 0, PitestConstants.PARSER_ENGINE_STAX),
+      new XmlReportParser(1, 0, PitestConstants.PARSER_ENGINE_BYTES), new XmlReportParser(4, 0, PitestConstants.PARSER_ENGINE_BYTES)}) {
+      List<Mutant> mutants = new ArrayList<>();
+
+      // when
+      filteringParser.parse(report, relativePath::equals, mutants::add);
+
+      // then
+      assertThat(mutants).usingRecursiveFieldByFieldElementComparator().containsExactlyElementsOf(expected);
+    }
+  }
+
+  @Test
+  public void should_only_decode_the_requested_fields() {
+    File report = new File(Resources.getResource("pit-reports/201710212128/mutations.xml").getFile());
+    List<Mutant> expected = new ArrayList<>(parser.parse(report));
+
+    for (String engine : new String[] {PitestConstants.PARSER_ENGINE_STAX, PitestConstants.PARSER_ENGINE_BYTES}) {
+      List<Mutant> mutants = new ArrayList<>();
+
+      // when
+      new XmlReportParser(1, 0, engine).parse(report, relativePath -> true, EnumSet.of(MutantField.KILLING_TEST), mutants::add);
+
+      // then
+      assertThat(mutants).hasSameSizeAs(expected);
+      assertThat(mutants).extracting(m -> m.mutantLocation.mutatedMethod, m -> m.mutantLocation.methodDescription, m -> m.description)
+        .containsOnly(tuple(null, null, null));
+      assertThat(mutants).extracting(m -> m.killingTest).containsExactlyElementsOf(expected.stream().map(m -> m.killingTest).collect(Collectors.toList()));
+      assertThat(mutants).extracting(m -> m.mutantLocation.lineNumber).containsExactlyElementsOf(expected.stream().map(Mutant::lineNumber).collect(Collectors.toList()));
+    }
+  }
+
+  @Test
+  public void should_fall_back_to_stax_after_the_mutants_already_filtered_out() throws IOException {
+    // given
+    String mutation = "<mutation detected='true' status='KILLED'><sourceFile>%s.java</sourceFile><mutatedClass>a.%1$s</mutatedClass><index>%d</index></mutation>\n";
+    String unknown = "<mutation detected='true' status='KILLED'><sourceFile>A.java</sourceFile><mutatedClass>a.A</mutatedClass><index>2</index><extra/></mutation>\n";
+    File report = temporaryFolder.newFile("mutations.xml");
+    Files.write(report.toPath(), ("<mutations>\n" + String.format(mutation, "A", 0) + String.format(mutation, "B", 1) + unknown + String.format(mutation, "B", 3)
+      + String.format(mutation, "A", 4) + "</mutations>").getBytes(StandardCharsets.UTF_8));
+    List<Mutant> mutants = new ArrayList<>();
+
+    // when
+    new XmlReportParser(1, 0, PitestConstants.PARSER_ENGINE_BYTES).parse(report, "a/A.java"::equals, mutants::add);
+
+    // then
+    assertThat(mutants).extracting(m -> m.index).containsExactly(0, 2, 4);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void should_throw_exception_if_file_is_invalid_with_the_byte_engine() {
+    File report = new File(Resources.getResource("mutations-invalid-format.xml").getFile());
+    new XmlReportParser(1, 0, PitestConstants.PARSER_ENGINE_BYTES).parse(report);
+  }
+
+  @Test
+  public void should_share_repeated_values_between_mutants() {
+    File report = new File(Resources.getResource("pit-reports/201710212128/mutations.xml").getFile());
+    for (String engine : new String[] {PitestConstants.PARSER_ENGINE_STAX, PitestConstants.PARSER_ENGINE_BYTES}) {
+      // when
+      List<Mutant> mutants = new ArrayList<>(new XmlReportParser(1, 0, engine).parse(report));
+
+      // then
+      Mutant first = mutants.get(0);
+      Mutant second = mutants.get(1);
+      assertThat(second.mutantLocation.className).isEqualTo(first.mutantLocation.className).isSameAs(first.mutantLocation.className);
+      assertThat(second.mutantLocation.sourceFile).isSameAs(first.mutantLocation.sourceFile);
+      assertThat(second.mutantLocation.mutatedMethod).isSameAs(first.mutantLocation.mutatedMethod);
+      assertThat(second.mutantLocation.methodDescription).isSameAs(first.mutantLocation.methodDescription);
+      assertThat(second.description).isSameAs(first.description);
+      assertThat(second.sourceRelativePath()).isSameAs(first.sourceRelativePath());
+    }
+  }
+
+  @Test
+  public void should_cut_shards_on_mutation_elements() throws IOException {
+    // given
+    File report = new File(Resources.getResource("mutations.xml").getFile());
+    ByteBuffer content = ByteBuffer.wrap(Files.readAllBytes(report.toPath()));
+    String xml = new String(content.array(), StandardCharsets.UTF_8);
+
+    // when
+    int[] boundaries = XmlReportParser.shardBoundaries(content, 4);
+
+    // then
+    assertThat(boundaries).hasSize(5);
+    assertThat(boundaries).isSorted();
+    for (int i = 0; i < boundaries.length - 1; i++) {
+      assertThat(xml.substring(boundaries[i])).startsWith("<mutation ");
+    }
+    assertThat(xml.substring(boundaries[4])).startsWith("</mutations>");
+  }
+
+  @Test
+  public void should_not_cut_content_without_mutations() {
+    assertThat(XmlReportParser.shardBoundaries(ByteBuffer.wrap("<mutations/>".getBytes(StandardCharsets.UTF_8)), 4)).isEmpty();
+  }
+
+  @Test
+  public void should_read_parallelism_from_configuration() {
+    // given
+    MapSettings settings = new MapSettings();
+    settings.setProperty(PitestConstants.PARSER_PARALLELISM_KEY, 2);
+    settings.setProperty(PitestConstants.PARSER_PARALLEL_THRESHOLD_KEY, 0);
+    File report = new File(Resources.getResource("mutations.xml").getFile());
+
+    // when
+    Collection<Mutant> mutants = new XmlReportParser(settings.asConfig()).parse(report);
+
+    // then
+    assertThat(mutants).hasSize(parser.parse(report).size());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void should_throw_exception_if_a_shard_is_invalid() throws IOException {
+    // given
+    String mutation = "<mutation detected='true' status='KILLED'><sourceFile>A.java</sourceFile><mutatedClass>A</mutatedClass></mutation>\n";
+    String broken = "<mutation detected='true' status='KILLED'><sourceFile>A.java</sourceFile><mutatedClass>A</mutatedClass></mutatio>\n";
+    File report = temporaryFolder.newFile("mutations.xml");
+    Files.write(report.toPath(), ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<mutations>\n" + mutation + mutation + broken + mutation + "</mutations>")
+      .getBytes(StandardCharsets.UTF_8));
+
+    // when
+    new XmlReportParser(4, 0, PitestConstants.PARSER_ENGINE_STAX).parse(report);
+
+    // then
+    failBecauseExceptionWasNotThrown(IllegalStateException.class);
+  }
+
+  @Test
+  public void should_report_io_failures_as_read_errors() {
+    // given
+    File report = new File(temporaryFolder.getRoot(), "mutations.xml");
+
+    for (XmlReportParser parser : new XmlReportParser[] {new XmlReportParser(1, 0, PitestConstants.PARSER_ENGINE_STAX),
+      new XmlReportParser(1, 0, PitestConstants.PARSER_ENGINE_BYTES), new XmlReportParser(4, 0, PitestConstants.PARSER_ENGINE_BYTES)}) {
+      try {
+        // when
+        parser.parse(report);
+        failBecauseExceptionWasNotThrown(IllegalStateException.class);
+      } catch (IllegalStateException e) {
+        // then
+        assertThat(e).hasMessage("Unable to read PIT report " + report);
+      }
+    }
+  }
+
   @Test(expected = IllegalArgumentException.class)
   public void should_throw_exception_if_file_is_missing() {
     // given